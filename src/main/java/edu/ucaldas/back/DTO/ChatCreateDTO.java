@@ -0,0 +1,9 @@
+package edu.ucaldas.back.DTO;
+
+import jakarta.validation.constraints.Positive;
+
+public record ChatCreateDTO(
+    @Positive long houseId
+) {
+
+}
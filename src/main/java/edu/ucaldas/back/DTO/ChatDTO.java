@@ -0,0 +1,13 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record ChatDTO(
+    long id,
+    long houseId,
+    String ownerEmail,
+    String interestedEmail,
+    LocalDateTime dateTime
+) {
+
+}
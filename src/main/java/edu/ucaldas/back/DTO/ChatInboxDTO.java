@@ -0,0 +1,19 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record ChatInboxDTO(
+    long chatId,
+    long houseId,
+    long counterpartId,
+    String counterpartName,
+    boolean counterpartOnline,
+    LocalDateTime counterpartLastSeen,
+    long lastMessageSeq,
+    Long lastMessageSenderId,
+    String lastMessagePreview,
+    LocalDateTime lastMessageAt,
+    long unread
+) {
+
+}
@@ -0,0 +1,16 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record ChatMessageDTO(
+    long id,
+    long chatId,
+    long seq,
+    long senderId,
+    String senderEmail,
+    String content,
+    LocalDateTime dateTime,
+    boolean read
+) {
+
+}
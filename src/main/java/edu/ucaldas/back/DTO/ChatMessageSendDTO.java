@@ -0,0 +1,12 @@
+package edu.ucaldas.back.DTO;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record ChatMessageSendDTO(
+    @Positive long chatId,
+    @NotBlank(message = "El mensaje no puede estar vacio") @Size(max = 2000) String content
+) {
+
+}
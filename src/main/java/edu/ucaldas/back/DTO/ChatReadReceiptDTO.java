@@ -0,0 +1,9 @@
+package edu.ucaldas.back.DTO;
+
+public record ChatReadReceiptDTO(
+    long chatId,
+    long readerId,
+    long messageId
+) {
+
+}
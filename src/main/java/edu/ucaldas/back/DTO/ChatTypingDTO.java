@@ -0,0 +1,8 @@
+package edu.ucaldas.back.DTO;
+
+public record ChatTypingDTO(
+    long chatId,
+    long userId
+) {
+
+}
@@ -1,5 +1,7 @@
 package edu.ucaldas.back.DTO;
 
+import java.util.List;
+
 import edu.ucaldas.back.models.rent.AddressData;
 
 public record HouseGetDTO(
@@ -8,7 +10,8 @@ public record HouseGetDTO(
             String emailOwener,
             String nameOwener,
             Float stars,
-            long idHouse
+            long idHouse,
+            List<HouseImageDTO> images
 ) {
 
 }
@@ -0,0 +1,16 @@
+package edu.ucaldas.back.DTO;
+
+/**
+ * An image of a house as embedded in {@link HouseGetDTO}. The URLs are file names under
+ * {@code /images/}; the variants are {@code null} until they have been generated, and clients then
+ * use {@code imageUrl}.
+ */
+public record HouseImageDTO(
+    long houseId,
+    String imageUrl,
+    String thumbnailUrl,
+    String cardUrl,
+    String fullUrl
+) {
+
+}
@@ -0,0 +1,14 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record MessageDTO(
+    long id,
+    long seq,
+    long senderId,
+    String content,
+    LocalDateTime dateTime,
+    boolean read
+) {
+
+}
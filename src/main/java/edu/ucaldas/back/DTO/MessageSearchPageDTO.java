@@ -0,0 +1,10 @@
+package edu.ucaldas.back.DTO;
+
+import java.util.List;
+
+public record MessageSearchPageDTO(
+    List<MessageSearchResultDTO> messages,
+    String nextCursor
+) {
+
+}
@@ -0,0 +1,14 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record MessageSearchResultDTO(
+    long id,
+    long chatId,
+    long seq,
+    long senderId,
+    String content,
+    LocalDateTime dateTime
+) {
+
+}
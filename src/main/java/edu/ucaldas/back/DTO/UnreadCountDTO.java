@@ -0,0 +1,8 @@
+package edu.ucaldas.back.DTO;
+
+public record UnreadCountDTO(
+    long chatId,
+    long unread
+) {
+
+}
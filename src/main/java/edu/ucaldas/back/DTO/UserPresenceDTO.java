@@ -0,0 +1,11 @@
+package edu.ucaldas.back.DTO;
+
+import java.time.LocalDateTime;
+
+public record UserPresenceDTO(
+    long userId,
+    boolean online,
+    LocalDateTime lastSeen
+) {
+
+}
@@ -0,0 +1,139 @@
+package edu.ucaldas.back.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucaldas.back.DTO.ChatCreateDTO;
+import edu.ucaldas.back.DTO.ChatDTO;
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+import edu.ucaldas.back.DTO.ChatReadDTO;
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.DTO.MessagePageDTO;
+import edu.ucaldas.back.DTO.MessageSearchPageDTO;
+import edu.ucaldas.back.DTO.UnreadCountDTO;
+import edu.ucaldas.back.service.chat.ChatService;
+import jakarta.validation.Valid;
+
+/**
+ * REST endpoints of the chat. Messages are exchanged over the STOMP connection, see
+ * {@link ChatSocketController}.
+ * <ul>
+ *   <li><b>POST /chat</b>: Open a chat with the owner of a house (or get the existing one).</li>
+ *   <li><b>GET /chat</b>: Inbox of the authenticated user, most recent conversation first.</li>
+ *   <li><b>GET /chat/{id}/messages</b>: Page through the history of a chat, newest first.</li>
+ *   <li><b>GET /chat/{id}/messages?after={seq}</b>: Messages a reconnecting client missed, oldest first.</li>
+ *   <li><b>PUT /chat/{id}/read</b>: Mark the messages of a chat as read up to a given one; the other
+ *       participant receives a read receipt on {@code /user/queue/read}.</li>
+ *   <li><b>GET /chat/unread</b>: Unread counts of the chats of the authenticated user.</li>
+ *   <li><b>GET /chat/search?q={words}</b>: Messages of the chats of the authenticated user that contain
+ *       the given words, newest first.</li>
+ * </ul>
+ *
+ * @author juan-manoel
+ * @see ChatService
+ */
+@RestController
+@RequestMapping("/chat")
+public class ChatController {
+
+    @Autowired
+    private ChatService chatService;
+
+    /**
+     * Opens a chat between the authenticated user and the owner of a house.
+     *
+     * @param data the house the chat is about
+     * @return the chat
+     */
+    @PostMapping
+    public ChatDTO openChat(@RequestBody @Valid ChatCreateDTO data) {
+        return chatService.openChat(data.houseId());
+    }
+
+    /**
+     * Returns the chats of the authenticated user with the other participant, the last message and the
+     * unread count of each, most recent conversation first.
+     *
+     * @param limit the maximum number of chats, up to {@value ChatService#MAX_PAGE_SIZE}
+     * @return the chats
+     */
+    @GetMapping
+    public List<ChatInboxDTO> getInbox(@RequestParam(defaultValue = "50") int limit) {
+        return chatService.getInbox(limit);
+    }
+
+    /**
+     * Returns a page of the history of a chat, newest first.
+     *
+     * @param id the ID of the chat
+     * @param before the {@code nextCursor} of the previous page; omitted for the latest messages
+     * @param limit the maximum number of messages, up to {@value ChatService#MAX_PAGE_SIZE}
+     * @return the messages and the cursor of the next (older) page
+     */
+    @GetMapping("/{id}/messages")
+    public MessagePageDTO getMessages(@PathVariable long id, @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "30") int limit) {
+        return chatService.getMessages(id, before, limit);
+    }
+
+    /**
+     * Returns the messages of a chat after the last one a client has, oldest first.
+     *
+     * @param id the ID of the chat
+     * @param after the sequence number of the last message the client has
+     * @param limit the maximum number of messages, up to {@value ChatService#MAX_PAGE_SIZE}
+     * @return the messages; if {@code limit} are returned, ask again after the last one
+     */
+    @GetMapping(value = "/{id}/messages", params = "after")
+    public List<MessageDTO> getMessagesAfter(@PathVariable long id, @RequestParam long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return chatService.getMessagesAfter(id, after, limit);
+    }
+
+    /**
+     * Marks the messages of a chat as read up to a given message.
+     *
+     * @param id the ID of the chat
+     * @param data the last message the user has seen
+     * @return the remaining unread count of the chat
+     */
+    @PutMapping("/{id}/read")
+    public UnreadCountDTO markRead(@PathVariable long id, @RequestBody @Valid ChatReadDTO data) {
+        return chatService.markRead(id, data.messageId());
+    }
+
+    /**
+     * Returns the unread counts of the chats of the authenticated user, for the inbox badges.
+     *
+     * @return the chats with unread messages and their counts
+     */
+    @GetMapping("/unread")
+    public List<UnreadCountDTO> getUnreadCounts() {
+        return chatService.getUnreadCounts();
+    }
+
+    /**
+     * Searches the messages of the chats of the authenticated user.
+     *
+     * @param q the words the messages must contain, regardless of case and accents
+     * @param chatId the ID of the only chat to search; omitted to search all of them
+     * @param before the {@code nextCursor} of the previous page; omitted for the newest messages
+     * @param limit the maximum number of messages, up to {@value ChatService#MAX_PAGE_SIZE}
+     * @return the messages and the cursor of the next (older) page
+     */
+    @GetMapping("/search")
+    public MessageSearchPageDTO searchMessages(@RequestParam String q, @RequestParam(required = false) Long chatId,
+            @RequestParam(required = false) String before, @RequestParam(defaultValue = "30") int limit) {
+        return chatService.searchMessages(q, chatId, before, limit);
+    }
+
+}
@@ -0,0 +1,90 @@
+package edu.ucaldas.back.controller;
+
+import java.security.Principal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+import edu.ucaldas.back.DTO.ChatTypingSendDTO;
+import edu.ucaldas.back.DTO.ErrorDTO;
+import edu.ucaldas.back.infra.exception.NotPermited;
+import edu.ucaldas.back.infra.exception.ServiceBusy;
+import edu.ucaldas.back.service.chat.ChatService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+
+/**
+ * STOMP endpoints of the chat, reached through the {@code /ws} connection.
+ * <ul>
+ *   <li><b>SEND /app/chat.send</b>: Send a message; both participants receive it on
+ *       {@code /user/queue/messages}.</li>
+ *   <li><b>SEND /app/chat.typing</b>: Tell the other participant, on {@code /user/queue/typing}, that
+ *       the user is typing.</li>
+ * </ul>
+ * <p>
+ * Errors are sent back to the session that caused them, on {@code /user/queue/errors}, with the same
+ * {@link ErrorDTO} as the REST API, with the HTTP status the same error would have.
+ * </p>
+ *
+ * @author juan-manoel
+ * @see ChatService
+ */
+@Controller
+public class ChatSocketController {
+
+    @Autowired
+    private ChatService chatService;
+
+    /**
+     * Sends a message to a chat as the user authenticated on the connection.
+     *
+     * @param data the chat and the text of the message
+     * @param principal the user of the connection
+     */
+    @MessageMapping("/chat.send")
+    public void send(@Payload @Valid ChatMessageSendDTO data, Principal principal) {
+        chatService.sendMessage(principal.getName(), data);
+    }
+
+    /**
+     * Tells the other participant of a chat that the user authenticated on the connection is typing.
+     *
+     * @param data the chat
+     * @param principal the user of the connection
+     */
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload @Valid ChatTypingSendDTO data, Principal principal) {
+        chatService.typing(principal.getName(), data.chatId());
+    }
+
+    /**
+     * Reports a failed message to the session that sent it.
+     *
+     * @param e the error
+     * @return the error description
+     */
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ErrorDTO handleError(Exception e) {
+        String code;
+        if (e instanceof EntityNotFoundException) {
+            code = "404";
+        } else if (e instanceof NotPermited) {
+            code = "403";
+        } else if (e instanceof MethodArgumentNotValidException) {
+            code = "400";
+        } else if (e instanceof ServiceBusy) {
+            code = "503";
+        } else {
+            code = "500";
+        }
+        return new ErrorDTO(e.getMessage(), code);
+    }
+
+}
@@ -1,6 +1,7 @@
 package edu.ucaldas.back.controller;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -36,7 +37,7 @@ import jakarta.validation.Valid;
  *   <li>Retrieve house details by ID</li>
  *   <li>Retrieve paginated and sorted lists of houses</li>
  *   <li>Create new houses</li>
- *   <li>Upload images for houses</li>
+ *   <li>Upload images for houses, one per request or several at once</li>
  *   <li>Update existing house information</li>
  *   <li>Delete houses by ID</li>
  * </ul>
@@ -102,6 +103,23 @@ public class HouseController {
 
     }
 
+    /**
+     * Handles HTTP POST requests to upload several images for a house at once.
+     * <p>
+     * The files are sent as repeated {@code images} parts of one multipart request, so a listing with
+     * many photos needs a single authenticated request instead of one per photo.
+     * </p>
+     *
+     * @param id the unique identifier of the house the images belong to
+     * @param files the image files, received as the "images" parts of the request
+     * @return a ResponseEntity containing one HouseImageSaveDTO per file, in the order they were sent
+     */
+    @PostMapping("/{id}/images")
+    public ResponseEntity<List<HouseImageSaveDTO>> uploadHouseImages(@PathVariable long id,
+            @RequestParam("images") List<MultipartFile> files) {
+        return ResponseEntity.ok(houseImageService.saveHouseImages(id, files));
+    }
+
     /**
      * Updates the details of an existing house with the specified ID.
      *
@@ -0,0 +1,283 @@
+package edu.ucaldas.back.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucaldas.back.infra.cache.OffHeapByteCache;
+import edu.ucaldas.back.infra.storage.BlobMetadata;
+import edu.ucaldas.back.infra.storage.BlobStore;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the uploaded house images under {@code /images/{fileName}}, from whichever {@link BlobStore}
+ * is configured.
+ * <p>
+ * Replaces the default static resource handler with one tuned for image delivery:
+ * </p>
+ * <ul>
+ *   <li>Strong {@code ETag}s and {@code If-None-Match} revalidation (304 Not Modified).</li>
+ *   <li>{@code Cache-Control: public, max-age=31536000, immutable} for content-addressed names
+ *       ({@code <sha256>.<ext>} and their variants), whose bytes never change; a one-hour
+ *       {@code max-age} for files stored before content addressing.</li>
+ *   <li>Single byte ranges ({@code Range: bytes=...}, {@code If-Range}) with 206 and 416 responses.
+ *       Requests for several ranges get the whole file, as HTTP allows.</li>
+ *   <li>Zero-copy transfer: on Tomcat, files of 48 KB or more are handed to the connector's
+ *       {@code sendfile} and go from the page cache to the socket without passing through the JVM.
+ *       Otherwise the file is copied with {@link FileChannel#transferTo}. Blobs that are not on a local
+ *       disk (S3) are streamed from the store to the response.</li>
+ *   <li>Small content-addressed files (thumbnails and cards, up to {@code app.images.cache.max-entry-size})
+ *       are kept in an {@link OffHeapByteCache} after their first read, so popular listing photos are
+ *       served without touching the store at all. A hit is written to the response channel straight
+ *       from the off-heap pages, with no copy on the heap. Their bytes never change, so the cache needs
+ *       no invalidation.</li>
+ * </ul>
+ *
+ * @author juan-manoel
+ */
+@RestController
+@RequestMapping("/images")
+public class ImageController {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("([0-9a-f]{64}(?:-[a-z]+)?)\\.[a-z]+");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired(required = false)
+    private OffHeapByteCache imageCache;
+
+    /**
+     * Sends an image, a part of it (206) or only its headers (304, HEAD).
+     *
+     * @param fileName the name of the image, as returned by the upload endpoint
+     * @param request the current request, for the conditional and range headers
+     * @param response the response the image is written to
+     * @throws IOException if the file cannot be read or the client disconnects
+     * @throws EntityNotFoundException if there is no image with that name
+     */
+    @GetMapping("/{fileName:.+}")
+    public void getImage(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!isFileName(fileName)) {
+            throw new EntityNotFoundException("Image not found");
+        }
+        Matcher contentAddressed = CONTENT_ADDRESSED.matcher(fileName);
+        boolean cacheable = imageCache != null && contentAddressed.matches();
+        try (OffHeapByteCache.Value cached = cacheable ? imageCache.get(fileName) : null) {
+            serve(fileName, contentAddressed, cacheable, cached, request, response);
+        }
+    }
+
+    /**
+     * Tells whether a decoded path variable is a single file name: not empty, without path separators,
+     * {@code ..} or control characters. Anything else (spaces, accents, parentheses of the original names
+     * kept by files stored before content addressing) is left to the store, which answers whether the
+     * file exists.
+     */
+    private static boolean isFileName(String fileName) {
+        if (fileName.isEmpty() || fileName.contains("..")) {
+            return false;
+        }
+        return fileName.chars().noneMatch(c -> c == '/' || c == '\\' || Character.isISOControl(c));
+    }
+
+    /**
+     * Sends an image from the cache when {@code cached} is not {@code null}, from the store otherwise.
+     */
+    private void serve(String fileName, Matcher contentAddressed, boolean cacheable, OffHeapByteCache.Value cached,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean hit = cached != null;
+        long length;
+        String etag;
+        if (hit) {
+            length = cached.length();
+            etag = "\"" + contentAddressed.group(1) + "\"";
+        } else {
+            BlobMetadata metadata = blobStore.stat(fileName)
+                    .orElseThrow(() -> new EntityNotFoundException("Image not found"));
+            length = metadata.size();
+            etag = contentAddressed.matches()
+                    ? "\"" + contentAddressed.group(1) + "\""
+                    : "\"" + Long.toHexString(length) + "-" + Long.toHexString(metadata.lastModified().toEpochMilli()) + "\"";
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, contentAddressed.matches() ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        if (noneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        ByteRange range = rangeHeader != null && (ifRange == null || ifRange.equals(etag))
+                ? parseRange(rangeHeader, length)
+                : null;
+        if (range == UNSATISFIABLE) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        if (range != null) {
+            start = range.start();
+            end = range.end() + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (hit) {
+            cached.writeTo(Channels.newChannel(response.getOutputStream()), start, end);
+            imageCache.recordServed(end - start);
+            return;
+        }
+        if (cacheable && length <= imageCache.getMaxEntrySize()) {
+            byte[] loaded = load(fileName);
+            response.getOutputStream().write(loaded, (int) start, (int) (end - start));
+            return;
+        }
+        Optional<Path> path = blobStore.localPath(fileName);
+        if (path.isPresent()) {
+            send(path.get(), start, end, request, response);
+        } else {
+            try (InputStream in = blobStore.open(fileName, start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    /**
+     * Reads a whole small blob and stores it in the cache.
+     */
+    private byte[] load(String fileName) throws IOException {
+        byte[] content;
+        try (InputStream in = blobStore.open(fileName)) {
+            content = in.readAllBytes();
+        }
+        imageCache.put(fileName, content);
+        return content;
+    }
+
+    /**
+     * Writes bytes {@code [start, end)} of a local file, through Tomcat's sendfile when available.
+     */
+    private void send(Path path, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (end - start >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header against the current ETag (weak comparison).
+     */
+    private boolean noneMatch(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a {@code Range} header with a single byte range.
+     *
+     * @return the range to send, {@link #UNSATISFIABLE} if it lies outside the file, or {@code null}
+     *         if the header must be ignored and the whole file sent (malformed or several ranges)
+     */
+    private ByteRange parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return end < start ? null : new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An inclusive byte range, as written in {@code Content-Range}.
+     */
+    private record ByteRange(long start, long end) {
+    }
+
+}
@@ -0,0 +1,82 @@
+package edu.ucaldas.back.infra.async;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Enables {@code @Async} methods and defines the thread pools they run on.
+ * <p>
+ * Every pool is bounded in threads and in queued tasks: when the queue is full, new tasks are
+ * rejected with a {@link org.springframework.core.task.TaskRejectedException} instead of piling up
+ * in memory, and the caller decides what to do with the work.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfiguration {
+
+    /**
+     * Name of the pool that resizes house images ({@code @Async(AsyncConfiguration.IMAGE_EXECUTOR)}).
+     */
+    public static final String IMAGE_EXECUTOR = "imageTaskExecutor";
+
+    /**
+     * Name of the pool that stores the files of a batch upload in parallel.
+     */
+    public static final String UPLOAD_EXECUTOR = "imageUploadExecutor";
+
+    /**
+     * Creates the pool that generates the resized variants of uploaded images.
+     * <p>
+     * Decoding an image takes memory proportional to its pixel count, so the number of threads
+     * bounds how many images are held in memory at the same time.
+     * </p>
+     *
+     * @param poolSize the number of worker threads
+     * @param queueCapacity the number of images that can wait for a worker
+     * @return the executor for image processing tasks
+     */
+    @Bean(IMAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageTaskExecutor(
+            @Value("${app.images.variants.pool-size:2}") int poolSize,
+            @Value("${app.images.variants.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Creates the pool that stores the files of a multi-image upload in parallel.
+     * <p>
+     * Storing a file is mostly I/O (reading the multipart part, hashing, writing it to the
+     * {@link edu.ucaldas.back.infra.storage.BlobStore}), so a few threads overlap the waits of the files of
+     * a batch. When the queue is full, the request stores its remaining files on its own thread.
+     * </p>
+     *
+     * @param poolSize the number of worker threads
+     * @param queueCapacity the number of files that can wait for a worker
+     * @return the executor for upload tasks
+     */
+    @Bean(UPLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor imageUploadExecutor(
+            @Value("${app.images.upload.pool-size:4}") int poolSize,
+            @Value("${app.images.upload.queue-capacity:40}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        return executor;
+    }
+
+}
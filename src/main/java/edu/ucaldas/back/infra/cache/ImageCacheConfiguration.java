@@ -0,0 +1,44 @@
+package edu.ucaldas.back.infra.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Creates the off-heap cache of small images used by
+ * {@link edu.ucaldas.back.controller.ImageController}, unless {@code app.images.cache.enabled=false}.
+ * <p>
+ * The memory is allocated with {@link java.nio.ByteBuffer#allocateDirect(int)}, so
+ * {@code app.images.cache.max-memory} must fit in {@code -XX:MaxDirectMemorySize} (by default the
+ * maximum heap size) together with the direct buffers of the connectors.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Configuration
+public class ImageCacheConfiguration {
+
+    /**
+     * Creates the image cache. Its meters are bound by Actuator, since it is a
+     * {@link io.micrometer.core.instrument.binder.MeterBinder}.
+     *
+     * @param maxMemory the maximum off-heap memory of the cache
+     * @param slabSize the size of each direct buffer
+     * @param pageSize the allocation unit inside the slabs
+     * @param maxEntrySize larger images are not cached
+     * @return the cache
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.images.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public OffHeapByteCache imageCache(
+            @Value("${app.images.cache.max-memory:64MB}") DataSize maxMemory,
+            @Value("${app.images.cache.slab-size:1MB}") DataSize slabSize,
+            @Value("${app.images.cache.page-size:4KB}") DataSize pageSize,
+            @Value("${app.images.cache.max-entry-size:128KB}") DataSize maxEntrySize) {
+        return new OffHeapByteCache("images", maxMemory.toBytes(), (int) slabSize.toBytes(),
+                (int) pageSize.toBytes(), (int) maxEntrySize.toBytes());
+    }
+
+}
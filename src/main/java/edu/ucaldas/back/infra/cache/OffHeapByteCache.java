@@ -0,0 +1,445 @@
+package edu.ucaldas.back.infra.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A cache of small byte arrays (image files) kept outside the Java heap.
+ * <p>
+ * The content lives in direct {@link ByteBuffer} slabs of {@code slabSize} bytes, allocated on demand
+ * up to {@code maxMemory} and never released, so the cached bytes neither count towards the heap nor
+ * cost the garbage collector anything. Slabs are divided in pages of {@code pageSize} bytes and an
+ * entry takes as many pages as it needs, not necessarily contiguous, so entries of any size share the
+ * same memory and no size class runs out while another one sits idle.
+ * </p>
+ * <p>
+ * Eviction is GreedyDual-Size-Frequency: each entry has the priority {@code L + hits / pages}, where
+ * {@code L} is the priority of the last evicted entry, and the entry with the lowest priority is
+ * evicted first. Frequently read entries stay (LFU), entries that stop being read fall behind as
+ * {@code L} grows (LRU aging), and a large entry must be read more often than a small one to keep its
+ * place (size-aware), which maximizes the hit ratio for a given memory.
+ * </p>
+ * <p>
+ * Every operation takes a single lock; a read holds it only for the bookkeeping and copies no bytes. A
+ * read returns a {@link Value}, read-only views of the pages of the entry that are written straight
+ * to the client and never copied to the heap. The entry is pinned until the value is closed: pinned
+ * entries are skipped by eviction, so their pages are not reused while they are being read, and a
+ * value that cannot fit next to them is not cached. The statistics are
+ * published as Micrometer meters tagged {@code cache=<name>}: {@code offheap.cache.gets}
+ * ({@code result=hit|miss}), {@code offheap.cache.hit.ratio}, {@code offheap.cache.served} (bytes sent
+ * from the cache), {@code offheap.cache.evictions}, {@code offheap.cache.entries},
+ * {@code offheap.cache.used} and {@code offheap.cache.capacity}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class OffHeapByteCache implements MeterBinder {
+
+    private final String name;
+    private final int pageSize;
+    private final int pagesPerSlab;
+    private final int maxSlabs;
+    private final int maxEntrySize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final List<ByteBuffer> views = new ArrayList<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> queue = new TreeSet<>(
+            Comparator.comparingDouble((Entry entry) -> entry.priority).thenComparingLong(entry -> entry.sequence));
+    private int[] freePages = new int[0];
+    private int freeCount;
+    private double inflation;
+    private long sequence;
+    private long usedBytes;
+    private long pinnedPages;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache; no memory is allocated until the first entry is stored.
+     *
+     * @param name the name of the cache, used as the {@code cache} tag of the meters
+     * @param maxMemory the maximum off-heap memory, rounded down to whole slabs (at least one)
+     * @param slabSize the size of each direct buffer; a multiple of {@code pageSize}
+     * @param pageSize the allocation unit; entries waste less than a page each
+     * @param maxEntrySize larger values are not cached
+     */
+    public OffHeapByteCache(String name, long maxMemory, int slabSize, int pageSize, int maxEntrySize) {
+        if (pageSize <= 0 || slabSize < pageSize || slabSize % pageSize != 0) {
+            throw new IllegalArgumentException("The slab size must be a positive multiple of the page size");
+        }
+        this.name = name;
+        this.pageSize = pageSize;
+        this.pagesPerSlab = slabSize / pageSize;
+        this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE / pagesPerSlab, maxMemory / slabSize));
+        this.maxEntrySize = (int) Math.min(maxEntrySize, (long) maxSlabs * slabSize);
+    }
+
+    /**
+     * Returns a cached value, pinned until it is closed, and counts a hit or a miss.
+     *
+     * @param key the key
+     * @return the value, which must be closed, or {@code null} if it is not cached
+     */
+    public Value get(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            queue.remove(entry);
+            entry.hits++;
+            prioritize(entry);
+            queue.add(entry);
+            hits.increment();
+            if (entry.pins++ == 0) {
+                pinnedPages += entry.pages.length;
+            }
+            return new Value(entry, read(entry));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a value, evicting the entries with the lowest priority until it fits. Values larger than
+     * the maximum entry size are ignored, and so is a key that is already cached: the cache is meant for
+     * immutable content.
+     *
+     * @param key the key
+     * @param value the value; copied, so the caller may reuse the array
+     * @return whether the value is cached
+     */
+    public boolean put(String key, byte[] value) {
+        if (value.length > maxEntrySize) {
+            return false;
+        }
+        int pages = Math.max(1, (value.length + pageSize - 1) / pageSize);
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                return true;
+            }
+            if (pages > (long) maxSlabs * pagesPerSlab - pinnedPages) {
+                return false;
+            }
+            while (freeCount < pages) {
+                if (slabs.size() < maxSlabs) {
+                    allocateSlab();
+                } else {
+                    evict(victim());
+                }
+            }
+            Entry entry = new Entry(key, value.length, new int[pages]);
+            for (int i = 0; i < pages; i++) {
+                entry.pages[i] = freePages[--freeCount];
+            }
+            write(entry, value);
+            prioritize(entry);
+            entries.put(key, entry);
+            queue.add(entry);
+            usedBytes += value.length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts bytes sent to clients from cached values, for the {@code offheap.cache.served} meter.
+     *
+     * @param bytes the number of bytes written
+     */
+    public void recordServed(long bytes) {
+        served.add(bytes);
+    }
+
+    /**
+     * Returns the size of the largest value the cache accepts.
+     *
+     * @return the maximum entry size in bytes
+     */
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the number of cached values.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total size of the cached values, without the unused part of their last pages.
+     *
+     * @return the bytes held by the entries
+     */
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the off-heap memory allocated so far.
+     *
+     * @return the size of the allocated slabs in bytes
+     */
+    public long allocatedBytes() {
+        lock.lock();
+        try {
+            return (long) slabs.size() * pagesPerSlab * pageSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("offheap.cache.gets", hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit")
+                .description("Lookups answered from the off-heap cache")
+                .register(registry);
+        FunctionCounter.builder("offheap.cache.gets", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss")
+                .description("Lookups not found in the off-heap cache")
+                .register(registry);
+        Gauge.builder("offheap.cache.hit.ratio", this, OffHeapByteCache::hitRatio)
+                .tag("cache", name)
+                .description("Fraction of off-heap cache lookups that were hits")
+                .register(registry);
+        FunctionCounter.builder("offheap.cache.served", served, LongAdder::sum)
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .description("Bytes sent to clients from the off-heap cache")
+                .register(registry);
+        FunctionCounter.builder("offheap.cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name)
+                .description("Entries evicted to make room for new ones")
+                .register(registry);
+        Gauge.builder("offheap.cache.entries", this, OffHeapByteCache::size)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("offheap.cache.used", this, OffHeapByteCache::usedBytes)
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("offheap.cache.capacity", this, OffHeapByteCache::allocatedBytes)
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .description("Off-heap memory allocated by the cache")
+                .register(registry);
+    }
+
+    private double hitRatio() {
+        double hit = hits.sum();
+        double total = hit + misses.sum();
+        return total == 0 ? 0 : hit / total;
+    }
+
+    private void prioritize(Entry entry) {
+        entry.priority = inflation + (double) entry.hits / entry.pages.length;
+        entry.sequence = ++sequence;
+    }
+
+    /**
+     * Removes from the queue the entry with the lowest priority that is not pinned.
+     */
+    private Entry victim() {
+        Iterator<Entry> candidates = queue.iterator();
+        while (true) {
+            Entry candidate = candidates.next();
+            if (candidate.pins == 0) {
+                candidates.remove();
+                return candidate;
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        lock.lock();
+        try {
+            if (--entry.pins == 0) {
+                pinnedPages -= entry.pages.length;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(Entry victim) {
+        entries.remove(victim.key);
+        inflation = victim.priority;
+        for (int page : victim.pages) {
+            freePages[freeCount++] = page;
+        }
+        usedBytes -= victim.length;
+        evictions.increment();
+    }
+
+    private void allocateSlab() {
+        int first = slabs.size() * pagesPerSlab;
+        ByteBuffer slab = ByteBuffer.allocateDirect(pagesPerSlab * pageSize);
+        slabs.add(slab);
+        views.add(slab.asReadOnlyBuffer());
+        if (freePages.length < first + pagesPerSlab) {
+            freePages = Arrays.copyOf(freePages, first + pagesPerSlab);
+        }
+        for (int page = first + pagesPerSlab - 1; page >= first; page--) {
+            freePages[freeCount++] = page;
+        }
+    }
+
+    private void write(Entry entry, byte[] value) {
+        int offset = 0;
+        for (int page : entry.pages) {
+            int length = Math.min(pageSize, value.length - offset);
+            if (length <= 0) {
+                break;
+            }
+            slabs.get(page / pagesPerSlab).put((page % pagesPerSlab) * pageSize, value, offset, length);
+            offset += length;
+        }
+    }
+
+    private ByteBuffer[] read(Entry entry) {
+        ByteBuffer[] parts = new ByteBuffer[entry.pages.length];
+        int offset = 0;
+        for (int i = 0; i < parts.length; i++) {
+            int page = entry.pages[i];
+            int length = Math.min(pageSize, entry.length - offset);
+            parts[i] = views.get(page / pagesPerSlab).slice((page % pagesPerSlab) * pageSize, length);
+            offset += length;
+        }
+        return parts;
+    }
+
+    /**
+     * A cached value, read in place from the off-heap pages of its entry. The entry stays pinned, and
+     * its pages unchanged, until the value is closed. A value is meant to be used by one thread.
+     */
+    public final class Value implements AutoCloseable {
+
+        private final Entry entry;
+        private final ByteBuffer[] parts;
+        private boolean closed;
+
+        private Value(Entry entry, ByteBuffer[] parts) {
+            this.entry = entry;
+            this.parts = parts;
+        }
+
+        /**
+         * Returns the size of the value.
+         *
+         * @return the number of bytes
+         */
+        public int length() {
+            return entry.length;
+        }
+
+        /**
+         * Writes bytes {@code [start, end)} of the value to a channel, straight from the off-heap pages.
+         *
+         * @param out the channel
+         * @param start the first byte to write
+         * @param end the byte after the last one to write
+         * @throws IOException if the channel fails
+         */
+        public void writeTo(WritableByteChannel out, long start, long end) throws IOException {
+            long offset = 0;
+            for (ByteBuffer part : parts) {
+                int from = (int) Math.max(0, start - offset);
+                int to = (int) Math.min(part.capacity(), end - offset);
+                offset += part.capacity();
+                if (from >= to) {
+                    continue;
+                }
+                ByteBuffer range = part.slice(from, to - from);
+                while (range.hasRemaining()) {
+                    out.write(range);
+                }
+            }
+        }
+
+        /**
+         * Copies the value to a new array.
+         *
+         * @return the bytes of the value
+         */
+        public byte[] toByteArray() {
+            byte[] value = new byte[entry.length];
+            int offset = 0;
+            for (ByteBuffer part : parts) {
+                part.get(0, value, offset, part.capacity());
+                offset += part.capacity();
+            }
+            return value;
+        }
+
+        /**
+         * Unpins the entry, so it can be evicted again. Closing twice has no effect.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * A cached value: where its bytes are and how valuable it is.
+     */
+    private static final class Entry {
+
+        private final String key;
+        private final int length;
+        private final int[] pages;
+        private long hits = 1;
+        private int pins;
+        private double priority;
+        private long sequence;
+
+        private Entry(String key, int length, int[] pages) {
+            this.key = key;
+            this.length = length;
+            this.pages = pages;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package edu.ucaldas.back.infra.cache;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Publishes the statistics of the Hibernate second-level cache regions as Micrometer meters.
+ * <p>
+ * Every JCache region created by Hibernate (entity regions and natural-id regions) is bound with
+ * {@link JCacheMetrics}, which exposes {@code cache.gets} (tagged {@code result=hit|miss}),
+ * {@code cache.puts}, {@code cache.removals} and {@code cache.evictions}. A {@code cache.hit.ratio}
+ * gauge is added per region on top of the hit and miss counters.
+ * </p>
+ *
+ * <p>
+ * The meters are available at {@code /actuator/metrics}, e.g.
+ * {@code /actuator/metrics/cache.hit.ratio?tag=cache:users}.
+ * Statistics must be enabled for the regions ({@code monitoring.statistics} in {@code application.conf}).
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Binds the metrics of every cache region known to Hibernate's JCache region factory.
+     * Does nothing when the second-level cache is disabled or backed by another provider.
+     *
+     * @param registry the registry the meters are added to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        var regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory jCacheRegionFactory)) {
+            return;
+        }
+        CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache<Object, Object> cache = cacheManager.getCache(name);
+            JCacheMetrics.monitor(registry, cache);
+            Gauge.builder("cache.hit.ratio", registry, r -> hitRatio(r, name))
+                    .tag("cache", name)
+                    .description("Fraction of second-level cache lookups served from the cache")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Computes the hit ratio of a region from the {@code cache.gets} counters bound by {@link JCacheMetrics}.
+     *
+     * @param registry the registry holding the counters
+     * @param name the name of the cache region
+     * @return hits / (hits + misses), or 0 when the region has not been read yet
+     */
+    private double hitRatio(MeterRegistry registry, String name) {
+        double hits = count(registry.find("cache.gets").tags("cache", name, "result", "hit").functionCounter());
+        double misses = count(registry.find("cache.gets").tags("cache", name, "result", "miss").functionCounter());
+        double total = hits + misses;
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private double count(FunctionCounter counter) {
+        return counter == null || Double.isNaN(counter.count()) ? 0 : counter.count();
+    }
+
+}
@@ -0,0 +1,129 @@
+package edu.ucaldas.back.infra.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Splits database traffic between the primary and a set of read replicas.
+ * <p>
+ * Enabled only when {@code app.datasource.replica.urls} is set; otherwise Spring Boot's single
+ * data source from {@code spring.datasource.*} is used unchanged. When enabled:
+ * </p>
+ * <ul>
+ *   <li>The primary pool is built from {@code spring.datasource.*} and {@code spring.datasource.hikari.*}.</li>
+ *   <li>One read-only pool is built per replica URL, with the same credentials and driver.</li>
+ *   <li>The data source used by JPA is a {@link LazyConnectionDataSourceProxy}: read-write transactions
+ *       get a primary connection, read-only transactions ({@code @Transactional(readOnly = true)}) are
+ *       handed to a {@link ReplicaRoutingDataSource}.</li>
+ *   <li>Users who committed a write within {@code app.datasource.read-your-writes-window} keep reading
+ *       from the primary ({@link ReadYourWritesTracker}).</li>
+ * </ul>
+ *
+ * @author juan-manoel
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class DataSourceConfiguration {
+
+    /**
+     * Creates the connection pool of the primary database.
+     *
+     * @param properties the {@code spring.datasource.*} properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the tracker of recent writes per user.
+     *
+     * @param window how long a user's reads stay on the primary after a write
+     * @return the tracker
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesTracker(window, Clock.systemUTC());
+    }
+
+    /**
+     * Registers the listener that records the user of every committed read-write transaction.
+     *
+     * @param tracker the tracker of recent writes
+     * @return the transaction listener
+     */
+    @Bean
+    public WriteTrackingTransactionListener writeTrackingTransactionListener(ReadYourWritesTracker tracker) {
+        return new WriteTrackingTransactionListener(tracker);
+    }
+
+    /**
+     * Creates one read-only pool per replica URL and the data source that routes between them.
+     *
+     * @param urls the JDBC URLs of the replicas
+     * @param maximumPoolSize the size of each replica pool
+     * @param properties the {@code spring.datasource.*} properties, for credentials and driver
+     * @param primaryDataSource the primary pool
+     * @param tracker the tracker of recent writes
+     * @param meterRegistry registry for the pool metrics, if Actuator is present
+     * @return the routing data source for read-only transactions
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            @Value("${app.datasource.replica.urls}") List<String> urls,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            DataSourceProperties properties, HikariDataSource primaryDataSource,
+            ReadYourWritesTracker tracker, ObjectProvider<MeterRegistry> meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, tracker);
+    }
+
+    /**
+     * The data source used by JPA and JDBC: primary for read-write transactions, replicas for
+     * read-only ones.
+     *
+     * @param primaryDataSource the primary pool
+     * @param replicaDataSource the routing data source for read-only transactions
+     * @return the data source exposed to the application
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+}
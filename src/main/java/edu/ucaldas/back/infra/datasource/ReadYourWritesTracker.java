@@ -0,0 +1,94 @@
+package edu.ucaldas.back.infra.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Remembers when each user last committed a write, so that the user's reads can be kept on the
+ * primary database until the replicas have caught up.
+ * <p>
+ * The window should be at least the replication lag expected from the replicas: a user who wrote
+ * less than {@code window} ago reads from the primary, everyone else reads from a replica.
+ * Users are identified by the name of the authenticated principal (the email); anonymous requests
+ * are never pinned to the primary.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class ReadYourWritesTracker {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final Duration window;
+    private final Clock clock;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param window how long the reads of a user stay on the primary after a write
+     * @param clock the clock used to timestamp writes
+     */
+    public ReadYourWritesTracker(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that the given user has just committed a write.
+     *
+     * @param user the name of the user, ignored when {@code null}
+     */
+    public void recordWrite(String user) {
+        if (user == null) {
+            return;
+        }
+        long now = clock.millis();
+        lastWrites.put(user, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= window.toMillis());
+        }
+    }
+
+    /**
+     * Checks whether the given user wrote within the window and must therefore read from the primary.
+     *
+     * @param user the name of the user, may be {@code null}
+     * @return true if the user's reads must go to the primary, false otherwise
+     */
+    public boolean isRecentWriter(String user) {
+        if (user == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(user);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (clock.millis() - writtenAt < window.toMillis()) {
+            return true;
+        }
+        lastWrites.remove(user, writtenAt);
+        return false;
+    }
+
+    /**
+     * Returns the name of the user authenticated in the current thread.
+     *
+     * @return the name of the authenticated user, or {@code null} for anonymous requests
+     */
+    public String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+}
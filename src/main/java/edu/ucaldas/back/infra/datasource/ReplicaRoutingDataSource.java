@@ -0,0 +1,82 @@
+package edu.ucaldas.back.infra.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Chooses the database used by a read-only transaction.
+ * <p>
+ * This data source is installed as the read-only target of a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so it is only asked for
+ * connections of transactions marked {@code readOnly = true}. It spreads them over the replicas in
+ * round-robin order, except for users who wrote recently according to the {@link ReadYourWritesTracker}:
+ * their reads go to the primary so they see their own changes even if the replicas are lagging.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Creates the routing data source.
+     *
+     * @param primary the primary database, used for users that wrote recently
+     * @param replicas the read replicas, at least one
+     * @param tracker the tracker of recent writes per user
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker tracker) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.tracker = tracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Returns {@link #PRIMARY} for users inside their read-your-writes window, otherwise the index of
+     * the next replica.
+     *
+     * @return the lookup key of the data source to use
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (tracker.isRecentWriter(tracker.currentUser())) {
+            return PRIMARY;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Closes the replica pools. The primary is a separate bean and is closed by the container.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package edu.ucaldas.back.infra.datasource;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Marks the current user as a recent writer every time a read-write transaction commits.
+ * <p>
+ * Spring Boot registers {@link TransactionExecutionListener} beans on the transaction manager, so
+ * every service method annotated with {@code @Transactional} and every repository save or delete
+ * called outside one are covered.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class WriteTrackingTransactionListener implements TransactionExecutionListener {
+
+    private final ReadYourWritesTracker tracker;
+
+    public WriteTrackingTransactionListener(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            tracker.recordWrite(tracker.currentUser());
+        }
+    }
+
+}
@@ -6,11 +6,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import edu.ucaldas.back.DTO.ErrorDTO;
 import edu.ucaldas.back.infra.exception.DataNotFound;
 import edu.ucaldas.back.infra.exception.EntityAlredyExists;
 import edu.ucaldas.back.infra.exception.ErrorToken;
+import edu.ucaldas.back.infra.exception.FileTooLarge;
+import edu.ucaldas.back.infra.exception.InvalidFile;
 import edu.ucaldas.back.infra.exception.MissingData;
 import edu.ucaldas.back.infra.exception.MissingToken;
 import edu.ucaldas.back.infra.exception.SaveFileError;
@@ -70,4 +73,29 @@ public class ErrorHandle {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorDTO(e.getMessage(), "500"));
     }
 
-}
\ No newline at end of file
+    /**
+     * Handles uploaded files whose content is not an accepted image format.
+     * Returns a 400 Bad Request response with an error message encapsulated in an {@link ErrorDTO}.
+     *
+     * @param e the {@link InvalidFile} exception thrown when the file format is rejected
+     * @return a {@link ResponseEntity} containing the error details and a 400 Bad Request status
+     */
+    @ExceptionHandler(InvalidFile.class)
+    public ResponseEntity<ErrorDTO> handleInvalidFile(InvalidFile e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorDTO(e.getMessage(), "400"));
+    }
+
+    /**
+     * Handles uploads over the size limit, whether rejected by the application while streaming
+     * ({@link FileTooLarge}) or by the multipart parser ({@link MaxUploadSizeExceededException}).
+     * Returns a 413 Payload Too Large response with an error message encapsulated in an {@link ErrorDTO}.
+     *
+     * @param e the exception thrown when the upload is too large
+     * @return a {@link ResponseEntity} containing the error details and a 413 Payload Too Large status
+     */
+    @ExceptionHandler({ FileTooLarge.class, MaxUploadSizeExceededException.class })
+    public ResponseEntity<ErrorDTO> handleFileTooLarge(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new ErrorDTO(e.getMessage(), "413"));
+    }
+
+}
@@ -0,0 +1,33 @@
+package edu.ucaldas.back.infra.exception;
+
+/**
+ * Exception thrown when an uploaded file exceeds the maximum allowed size.
+ * <p>
+ * The limit is checked while the file is being written, so the upload is aborted as soon as
+ * it goes over the limit instead of after the whole file has been stored.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class FileTooLarge extends RuntimeException {
+    public FileTooLarge() {
+        super("File too large.");
+    }
+
+    public FileTooLarge(String message) {
+        super(message);
+    }
+
+    public FileTooLarge(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public FileTooLarge(Throwable cause) {
+        super(cause);
+    }
+
+    public FileTooLarge(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+}
@@ -0,0 +1,33 @@
+package edu.ucaldas.back.infra.exception;
+
+/**
+ * Exception thrown when an uploaded file is not in one of the accepted formats.
+ * <p>
+ * The format is detected from the first bytes of the file, not from the name or the
+ * {@code Content-Type} sent by the client.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class InvalidFile extends RuntimeException {
+    public InvalidFile() {
+        super("Invalid file.");
+    }
+
+    public InvalidFile(String message) {
+        super(message);
+    }
+
+    public InvalidFile(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidFile(Throwable cause) {
+        super(cause);
+    }
+
+    public InvalidFile(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+}
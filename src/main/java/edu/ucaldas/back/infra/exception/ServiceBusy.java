@@ -0,0 +1,33 @@
+package edu.ucaldas.back.infra.exception;
+
+/**
+ * Exception thrown when a request is rejected because a bounded queue that would hold its work is full.
+ * <p>
+ * Rejecting the request, instead of waiting for room, keeps a slow consumer from blocking the threads
+ * that accept requests; clients may retry it later.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class ServiceBusy extends RuntimeException {
+    public ServiceBusy() {
+        super("Service busy.");
+    }
+
+    public ServiceBusy(String message) {
+        super(message);
+    }
+
+    public ServiceBusy(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ServiceBusy(Throwable cause) {
+        super(cause);
+    }
+
+    public ServiceBusy(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+}
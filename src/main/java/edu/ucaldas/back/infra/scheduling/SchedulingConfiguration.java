@@ -0,0 +1,17 @@
+package edu.ucaldas.back.infra.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} methods, such as the last-seen flush of
+ * {@link edu.ucaldas.back.service.chat.ChatPresence} and the runs of
+ * {@link edu.ucaldas.back.service.image.ImageGarbageCollectionScheduler}.
+ *
+ * @author juan-manoel
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+}
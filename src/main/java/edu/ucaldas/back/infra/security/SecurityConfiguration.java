@@ -27,6 +27,12 @@ public class SecurityConfiguration {
      * - Disables CSRF protection.
      * - Allows unauthenticated access to the "/login" endpoint.
      * - Allows unauthenticated POST requests to "/user" for user registration.
+     * - Allows unauthenticated GET requests to "/images/**", so image tags and
+     * shared caches can load house pictures.
+     * - Allows the WebSocket handshake at "/ws"; the STOMP CONNECT frame carries
+     * the token and is authenticated by StompAuthenticationInterceptor.
+     * - Allows unauthenticated access to "/actuator/health" and restricts the
+     * other actuator endpoints (metrics) to users with "ROLE_ADMIN".
      * - Restricts POST requests to "/review/house" to users with "ROLE_ADMIN" or
      * "ROLE_CLIENT".
      * - Restricts POST requests to "/house/**" to users with "ROLE_ADMIN" or
@@ -56,6 +62,10 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(auth -> {
                     auth.requestMatchers("/login").permitAll();
                     auth.requestMatchers(HttpMethod.POST, "/user").permitAll();
+                    auth.requestMatchers(HttpMethod.GET, "/images/**").permitAll();
+                    auth.requestMatchers("/ws/**").permitAll();
+                    auth.requestMatchers("/actuator/health").permitAll();
+                    auth.requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN");
                     auth.requestMatchers(HttpMethod.POST, "/review/house").hasAnyAuthority("ROLE_ADMIN", "ROLE_CLIENT");
                     auth.requestMatchers(HttpMethod.POST, "/house/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_OWNER");
                     auth.requestMatchers(HttpMethod.POST, "/rent").hasAnyAuthority("ROLE_ADMIN", "ROLE_OWNER");
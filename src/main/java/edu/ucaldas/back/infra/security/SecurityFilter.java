@@ -77,7 +77,7 @@ public class SecurityFilter extends OncePerRequestFilter {
             var token = authorizationHeader.replace("Bearer ", ""); // duvidas sobre os 2 espacos
             var userEmail = tokenService.getSubject(token);
             if (userEmail != null) {
-                UserDetails user = userRepository.findByEmailAndIsActiveTrue(userEmail);
+                UserDetails user = userRepository.findActiveByEmail(userEmail).orElse(null);
                 if (user != null) {
                     var authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
                     SecurityContextHolder.getContext().setAuthentication(authentication);
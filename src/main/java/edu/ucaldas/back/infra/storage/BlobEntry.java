@@ -0,0 +1,13 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.time.Instant;
+
+/**
+ * A blob found while listing a {@link BlobStore}.
+ *
+ * @param key the key of the blob
+ * @param size the size of the blob, in bytes
+ * @param lastModified when the blob was last written or {@linkplain BlobStore#touch(String) touched}
+ */
+public record BlobEntry(String key, long size, Instant lastModified) {
+}
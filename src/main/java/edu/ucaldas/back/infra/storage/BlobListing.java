@@ -0,0 +1,12 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.util.List;
+
+/**
+ * One chunk of the keys of a {@link BlobStore}, as returned by {@link BlobStore#list(String, int)}.
+ *
+ * @param entries the blobs of the chunk, in the order of the store
+ * @param cursor the value to pass to the next call, or {@code null} when the listing is complete
+ */
+public record BlobListing(List<BlobEntry> entries, String cursor) {
+}
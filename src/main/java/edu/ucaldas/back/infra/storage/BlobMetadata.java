@@ -0,0 +1,12 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.time.Instant;
+
+/**
+ * Size and modification time of a blob of a {@link BlobStore}.
+ *
+ * @param size the size of the blob, in bytes
+ * @param lastModified when the blob was last written
+ */
+public record BlobMetadata(long size, Instant lastModified) {
+}
@@ -0,0 +1,142 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Stores the bytes of uploaded files (house images and their variants) under a flat key, e.g.
+ * {@code <sha256>.jpg}.
+ * <p>
+ * The application never touches the storage directly: uploads are staged in a local temporary file
+ * and handed over complete with {@link #put(String, Path)}, and reads go through {@link #open} or, when
+ * the implementation keeps the bytes on a local disk, {@link #localPath(String)}. Two implementations
+ * are available, selected with {@code app.images.store}:
+ * </p>
+ * <ul>
+ *   <li>{@link FileSystemBlobStore} ({@code filesystem}, the default): the {@code app.images.directory}
+ *       of the node. Only suitable for a single instance or a shared file system.</li>
+ *   <li>{@link S3BlobStore} ({@code s3}): a bucket of Amazon S3 or of any S3-compatible object store
+ *       (MinIO, Ceph, R2...), shared by every instance.</li>
+ * </ul>
+ * <p>
+ * Implementations must stream in both directions: a blob is never held whole in the heap.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public interface BlobStore {
+
+    /**
+     * Stores a complete local file under a key, replacing any previous blob with that key. The blob
+     * becomes visible to readers only when it is complete.
+     * <p>
+     * The source file may be moved by the implementation; callers delete it afterwards if it still
+     * exists.
+     * </p>
+     *
+     * @param key the key of the blob
+     * @param source the file holding the content
+     * @throws IOException if the blob cannot be stored
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Returns the size and modification time of a blob.
+     *
+     * @param key the key of the blob
+     * @return the metadata of the blob, or empty if there is no blob with that key
+     * @throws IOException if the storage cannot be reached
+     */
+    Optional<BlobMetadata> stat(String key) throws IOException;
+
+    /**
+     * Opens bytes {@code [start, end)} of a blob for reading.
+     *
+     * @param key the key of the blob
+     * @param start the first byte to read
+     * @param end the byte after the last one to read; may be larger than the size of the blob
+     * @return a stream over the requested bytes, to be closed by the caller
+     * @throws NoSuchFileException if there is no blob with that key
+     * @throws IOException if the blob cannot be read
+     */
+    InputStream open(String key, long start, long end) throws IOException;
+
+    /**
+     * Opens a whole blob for reading.
+     *
+     * @param key the key of the blob
+     * @return a stream over the content of the blob, to be closed by the caller
+     * @throws NoSuchFileException if there is no blob with that key
+     * @throws IOException if the blob cannot be read
+     */
+    default InputStream open(String key) throws IOException {
+        return open(key, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Sets the modification time of a blob to now, without changing its content. Used when an upload
+     * turns out to be a duplicate of an existing blob, so the garbage collector's grace period protects
+     * it until the new reference is saved.
+     *
+     * @param key the key of the blob
+     * @throws NoSuchFileException if there is no blob with that key
+     * @throws IOException if the blob cannot be updated
+     */
+    void touch(String key) throws IOException;
+
+    /**
+     * Lists the blobs of the store in chunks, for incremental scans. The order is stable and specific to
+     * the implementation; blobs added or removed during a scan may or may not be listed.
+     *
+     * @param cursor the cursor returned with the previous chunk, or {@code null} to start from the beginning
+     * @param limit the maximum number of blobs of the chunk
+     * @return the next blobs and the cursor to continue the scan
+     * @throws IOException if the store cannot be listed
+     */
+    BlobListing list(String cursor, int limit) throws IOException;
+
+    /**
+     * Deletes a blob. Deleting a missing blob is not an error.
+     *
+     * @param key the key of the blob
+     * @throws IOException if the blob cannot be deleted
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Deletes a blob unless it was written or {@linkplain #touch(String) touched} after a given time, so
+     * a blob listed as garbage is kept if an upload started using it since it was listed.
+     * <p>
+     * The default implementation reads the modification time again and then deletes, which leaves a
+     * short window between the two; implementations that can do better override it.
+     * </p>
+     *
+     * @param key the key of the blob
+     * @param lastModified the modification time of the blob when it was listed
+     * @return whether the blob was deleted; false if it is missing or was modified since
+     * @throws IOException if the blob cannot be deleted
+     */
+    default boolean deleteIfUnmodified(String key, Instant lastModified) throws IOException {
+        Optional<BlobMetadata> metadata = stat(key);
+        if (metadata.isEmpty() || metadata.get().lastModified().isAfter(lastModified)) {
+            return false;
+        }
+        delete(key);
+        return true;
+    }
+
+    /**
+     * Returns the local file holding a blob, so it can be sent with zero-copy transfers.
+     *
+     * @param key the key of the blob
+     * @return the path of the blob, or empty if the blob does not exist or is not on a local disk
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+}
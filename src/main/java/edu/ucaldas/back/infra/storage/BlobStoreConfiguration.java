@@ -0,0 +1,104 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+/**
+ * Creates the {@link BlobStore} selected with {@code app.images.store}.
+ * <ul>
+ *   <li>{@code filesystem} (default): {@link FileSystemBlobStore} on {@code app.images.directory}.</li>
+ *   <li>{@code s3}: {@link S3BlobStore} on {@code app.images.s3.bucket}. {@code app.images.s3.endpoint}
+ *       points it to an S3-compatible store (MinIO, Ceph...), usually together with
+ *       {@code app.images.s3.path-style-access=true}. Credentials come from
+ *       {@code app.images.s3.access-key}/{@code secret-key} when set, and otherwise from the default AWS
+ *       chain (environment, profile, instance role).</li>
+ * </ul>
+ *
+ * @author juan-manoel
+ */
+@Configuration
+public class BlobStoreConfiguration {
+
+    /**
+     * Creates the store on the local uploads directory.
+     *
+     * @param directory the uploads directory
+     * @return the file system store
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.images.store", havingValue = "filesystem", matchIfMissing = true)
+    public FileSystemBlobStore fileSystemBlobStore(@Value("${app.images.directory:uploads}") Path directory) {
+        return new FileSystemBlobStore(directory);
+    }
+
+    /**
+     * Creates the S3 client used by the S3 store.
+     *
+     * @param endpoint the endpoint of an S3-compatible store; empty for Amazon S3
+     * @param region the region of the bucket
+     * @param pathStyleAccess whether to address the bucket in the path instead of the host name
+     * @param accessKey the access key; empty to use the default AWS credentials chain
+     * @param secretKey the secret key matching {@code accessKey}
+     * @return the client
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.images.store", havingValue = "s3")
+    public S3Client s3Client(
+            @Value("${app.images.s3.endpoint:}") String endpoint,
+            @Value("${app.images.s3.region:us-east-1}") String region,
+            @Value("${app.images.s3.path-style-access:false}") boolean pathStyleAccess,
+            @Value("${app.images.s3.access-key:}") String accessKey,
+            @Value("${app.images.s3.secret-key:}") String secretKey) {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.builder().build();
+        // Checksums only where the API requires them: several S3-compatible stores reject the
+        // trailing checksums the SDK adds by default.
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .forcePathStyle(pathStyleAccess)
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the store on the S3 bucket.
+     *
+     * @param s3 the client
+     * @param bucket the name of the bucket
+     * @param multipartThreshold files larger than this are sent as multipart uploads
+     * @param partSize the size of each part of a multipart upload
+     * @return the S3 store
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.images.store", havingValue = "s3")
+    public S3BlobStore s3BlobStore(S3Client s3,
+            @Value("${app.images.s3.bucket}") String bucket,
+            @Value("${app.images.s3.multipart-threshold:16MB}") DataSize multipartThreshold,
+            @Value("${app.images.s3.part-size:8MB}") DataSize partSize) {
+        return new S3BlobStore(s3, bucket, multipartThreshold.toBytes(), partSize.toBytes());
+    }
+
+}
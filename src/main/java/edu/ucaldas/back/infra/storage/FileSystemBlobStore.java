@@ -0,0 +1,251 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on a local directory ({@code app.images.directory}).
+ * <p>
+ * Blobs are spread over two levels of subdirectories named after the hash ({@code ab/cd/<sha256>.<ext>},
+ * see {@link #shardedPath(String)}), so no directory grows to millions of entries. {@link #put} is an
+ * atomic rename, so the source file must be on the same file system (the uploads are staged in the same
+ * directory). Files stored before sharding are still found in the root of the directory until
+ * {@link edu.ucaldas.back.service.image.ImageReshardService} moves them.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+    private final Path directory;
+
+    /**
+     * Creates a store on a directory.
+     *
+     * @param directory the root of the store; created on the first write
+     */
+    public FileSystemBlobStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = shardedPath(key);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public Optional<BlobMetadata> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new BlobMetadata(attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException | InvalidPathException e) {
+            // a key the platform cannot map to a file name cannot have been stored
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(start);
+            InputStream in = Channels.newInputStream(channel);
+            return end >= channel.size() ? in : new BoundedInputStream(in, end - start);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        Files.setLastModifiedTime(resolve(key), FileTime.from(Instant.now()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Walks the shard directories in order ({@code 00/00} to {@code ff/ff}) and the files of each one by
+     * name; the cursor is the key of the last file returned. Files still in the root of the directory
+     * (stored before sharding) are not listed: run {@link edu.ucaldas.back.service.image.ImageReshardService}
+     * first.
+     * </p>
+     */
+    @Override
+    public BlobListing list(String cursor, int limit) throws IOException {
+        String cursorShard = cursor == null ? null : shardOf(shardedPath(cursor).getParent());
+        List<BlobEntry> entries = new ArrayList<>();
+        for (Path first : children(directory, true)) {
+            for (Path second : children(first, true)) {
+                String shard = shardOf(second);
+                int order = cursorShard == null ? 1 : shard.compareTo(cursorShard);
+                if (order < 0) {
+                    continue;
+                }
+                for (Path file : children(second, false)) {
+                    String key = file.getFileName().toString();
+                    if (order == 0 && key.compareTo(cursor) <= 0) {
+                        continue;
+                    }
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    entries.add(new BlobEntry(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                    if (entries.size() == limit) {
+                        return new BlobListing(entries, key);
+                    }
+                }
+            }
+        }
+        return new BlobListing(entries, null);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(shardedPath(key));
+        Files.deleteIfExists(directory.resolve(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Atomic: the file is first renamed aside ({@code <key>.gc.tmp}, never listed), so a concurrent
+     * {@link #touch(String)} either happens before the rename, and is seen in the modification time of
+     * the renamed file, which is then put back, or fails because the file is gone, and the upload stores
+     * it again.
+     * </p>
+     */
+    @Override
+    public boolean deleteIfUnmodified(String key, Instant lastModified) throws IOException {
+        Path path = resolve(key);
+        Path aside = path.resolveSibling(key + ".gc.tmp");
+        try {
+            Files.move(path, aside, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(aside).toInstant().isAfter(lastModified)) {
+            Files.move(aside, path, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.delete(aside);
+        return true;
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Returns the path of a stored file.
+     * <p>
+     * Looks in the sharded location first and then in the root of the directory. When the file is found
+     * in neither place the sharded path is returned: a file moved between the two checks is already
+     * there, since the move is an atomic rename.
+     * </p>
+     *
+     * @param key the key of the blob
+     * @return the path of the file; the sharded path when the file does not exist
+     */
+    public Path resolve(String key) {
+        Path sharded = shardedPath(key);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = directory.resolve(key);
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        return sharded;
+    }
+
+    /**
+     * Returns the sharded location of a file: {@code <directory>/ab/cd/<key>}, where {@code ab} and
+     * {@code cd} are the first four hex digits of the SHA-256 the key starts with. Keys that are not
+     * content-addressed (files stored before content addressing) are sharded by the SHA-256 of the key
+     * itself. Two levels of 256 directories keep each directory small even with millions of files.
+     *
+     * @param key the key of the blob
+     * @return the path the file is stored at in the sharded layout
+     */
+    public Path shardedPath(String key) {
+        String hash = CONTENT_ADDRESSED.matcher(key).lookingAt() ? key : sha256(key);
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * Returns the root of the store, where files stored before sharding are found.
+     *
+     * @return the root directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Lists the shard subdirectories ({@code directories}) or the stored files of a directory, sorted by name.
+     */
+    private static List<Path> children(Path parent, boolean directories) throws IOException {
+        if (!Files.isDirectory(parent)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(parent)) {
+            return children
+                    .filter(path -> directories
+                            ? Files.isDirectory(path) && SHARD.matcher(path.getFileName().toString()).matches()
+                            : Files.isRegularFile(path) && !path.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Returns the shard of a second-level directory as {@code ab/cd}.
+     */
+    private static String shardOf(Path second) {
+        return second.getParent().getFileName() + "/" + second.getFileName();
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package edu.ucaldas.back.infra.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * {@link BlobStore} on a bucket of Amazon S3 or of an S3-compatible object store, shared by every
+ * instance of the application.
+ * <p>
+ * Files are uploaded from the local staging file: with a single {@code PutObject} up to
+ * {@code multipartThreshold}, and as a multipart upload of {@code partSize} parts above it. Each part is
+ * read from the file when the request is sent (and again if it is retried), so neither path holds the
+ * content in memory. Downloads are {@code GetObject} responses read as a stream, with a {@code Range}
+ * header for partial reads. SDK errors are reported as {@link IOException}s, like disk errors.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public class S3BlobStore implements BlobStore {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final long multipartThreshold;
+    private final long partSize;
+
+    /**
+     * Creates a store on a bucket.
+     *
+     * @param s3 the client, configured with the endpoint, region and credentials
+     * @param bucket the name of the bucket; it must exist
+     * @param multipartThreshold files larger than this are sent as multipart uploads
+     * @param partSize the size of every part but the last one; at least 5 MB, the S3 minimum
+     */
+    public S3BlobStore(S3Client s3, String bucket, long multipartThreshold, long partSize) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        String contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        try {
+            if (size <= multipartThreshold) {
+                s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                        RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key + " to bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public Optional<BlobMetadata> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new BlobMetadata(head.contentLength(), head.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read metadata of " + key + " from bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read metadata of " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        String range = start == 0 && end == Long.MAX_VALUE ? null : "bytes=" + start + "-" + (end - 1);
+        try {
+            return s3.getObject(request -> request.bucket(bucket).key(key).range(range));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not download " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Copies the object onto itself with {@code x-amz-metadata-directive: REPLACE}, which S3 executes
+     * server-side without transferring the content.
+     * </p>
+     */
+    @Override
+    public void touch(String key) throws IOException {
+        String contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        try {
+            s3.copyObject(request -> request.sourceBucket(bucket).sourceKey(key)
+                    .destinationBucket(bucket).destinationKey(key)
+                    .metadataDirective(MetadataDirective.REPLACE).contentType(contentType));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Could not touch " + key + " in bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not touch " + key + " in bucket " + bucket, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Uses {@code ListObjectsV2} in key order; the cursor is the last key returned ({@code start-after}).
+     * </p>
+     */
+    @Override
+    public BlobListing list(String cursor, int limit) throws IOException {
+        try {
+            ListObjectsV2Response response = s3.listObjectsV2(request -> request.bucket(bucket)
+                    .startAfter(cursor).maxKeys(limit));
+            List<BlobEntry> entries = response.contents().stream()
+                    .map(object -> new BlobEntry(object.key(), object.size(), object.lastModified()))
+                    .toList();
+            boolean more = Boolean.TRUE.equals(response.isTruncated()) && !entries.isEmpty();
+            return new BlobListing(entries, more ? entries.get(entries.size() - 1).key() : null);
+        } catch (SdkException e) {
+            throw new IOException("Could not list bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    /**
+     * Uploads a file in parts of {@link #partSize} bytes. The upload is aborted if a part fails, so the
+     * bucket does not keep (and bill) orphaned parts.
+     */
+    private void putMultipart(String key, Path source, long size, String contentType) {
+        String uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            for (long offset = 0, number = 1; offset < size; offset += partSize, number++) {
+                long position = offset;
+                long length = Math.min(partSize, size - offset);
+                int partNumber = (int) number;
+                String etag = s3.uploadPart(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength(length),
+                        RequestBody.fromContentProvider(() -> openPart(source, position, length), length,
+                                contentType))
+                        .eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+            }
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+        } catch (RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortError) {
+                e.addSuppressed(abortError);
+            }
+            throw e;
+        }
+    }
+
+    private static InputStream openPart(Path source, long position, long length) {
+        try {
+            InputStream in = Files.newInputStream(source);
+            try {
+                in.skipNBytes(position);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            return new BoundedInputStream(in, length);
+        } catch (IOException e) {
+            throw SdkException.create("Could not read " + source, e);
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+package edu.ucaldas.back.infra.websocket;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A WebSocket session whose outgoing frames wait in a bounded queue and are written by a pool thread,
+ * so a slow client never blocks the thread that sends to it.
+ * <p>
+ * While frames wait:
+ * </p>
+ * <ul>
+ *   <li>A {@code MESSAGE} frame with a {@value OutboundSessionQueues#COALESCE_HEADER} header replaces
+ *       the waiting frame with the same header value (a newer typing event or read receipt supersedes
+ *       the older one), and a heart-beat is not queued twice.</li>
+ *   <li>When {@code capacity} frames are waiting, the {@link OutboundSessionQueues.Overflow} policy
+ *       drops the oldest {@code MESSAGE} frame or disconnects the session.</li>
+ *   <li>When the frame being written has taken longer than {@code slowTimeout}, the session is
+ *       disconnected.</li>
+ * </ul>
+ * <p>
+ * A disconnection on a new frame is a {@link SessionLimitExceededException}, on which Spring closes
+ * the session with {@link CloseStatus#SESSION_NOT_RELIABLE}. A session that receives nothing new is
+ * closed by the sweep of {@link OutboundSessionQueues} instead, and a write that fails, or that the
+ * container gives up on, closes it as well, so its pool thread is released.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+final class OutboundQueueSession extends WebSocketSessionDecorator {
+
+    /**
+     * A frame waiting to be written.
+     *
+     * @param message the frame
+     * @param coalesceKey the key of the frames it replaces, or {@code null}
+     * @param droppable whether it is a {@code MESSAGE} frame, which the overflow policy may drop
+     */
+    private record Frame(WebSocketMessage<?> message, String coalesceKey, boolean droppable) {
+    }
+
+    private static final String HEARTBEAT = "\n";
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final int capacity;
+    private final long slowTimeoutNanos;
+    private final OutboundSessionQueues.Overflow overflow;
+    private final Executor executor;
+    private final OutboundSessionQueues queues;
+    private boolean writing;
+    private boolean sending;
+    private long sendStarted;
+    private boolean closed;
+
+    OutboundQueueSession(WebSocketSession session, int capacity, long slowTimeoutNanos,
+            OutboundSessionQueues.Overflow overflow, Executor executor, OutboundSessionQueues queues) {
+        super(session);
+        this.capacity = capacity;
+        this.slowTimeoutNanos = slowTimeoutNanos;
+        this.overflow = overflow;
+        this.executor = executor;
+        this.queues = queues;
+    }
+
+    /**
+     * Queues a frame and returns without waiting for it to be written.
+     *
+     * @param message the frame
+     * @throws SessionLimitExceededException if the session is too slow and must be closed
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        Frame frame = frame(message);
+        synchronized (frames) {
+            if (stalled(System.nanoTime())) {
+                throw disconnect("writing a frame for " + sendMillis() + " ms");
+            }
+            if (frame.coalesceKey() != null && replace(frame)) {
+                queues.coalesced();
+                return;
+            }
+            if (frames.size() >= capacity) {
+                if (overflow != OutboundSessionQueues.Overflow.DROP_OLDEST || !dropOldest()) {
+                    throw disconnect(frames.size() + " frames waiting");
+                }
+                queues.dropped();
+            }
+            frames.add(frame);
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+        executor.execute(this::write);
+    }
+
+    /**
+     * Tells whether the frame being written has taken longer than {@code slowTimeout}.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return whether the session is too slow and must be closed
+     */
+    boolean stalled(long now) {
+        synchronized (frames) {
+            return sending && now - sendStarted > slowTimeoutNanos;
+        }
+    }
+
+    /**
+     * Closes the session because a write has not finished in time.
+     *
+     * @param reason what was too slow, for the log
+     */
+    void closeSlow(String reason) {
+        queues.disconnected();
+        log.info("Closing slow WebSocket session {}: {}", getId(), reason);
+        closeQuietly();
+    }
+
+    /**
+     * Returns the number of frames waiting to be written.
+     *
+     * @return the depth of the queue
+     */
+    int size() {
+        synchronized (frames) {
+            return frames.size();
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (frames) {
+            frames.clear();
+            closed = true;
+        }
+        super.close(status);
+    }
+
+    private void write() {
+        while (true) {
+            Frame frame;
+            synchronized (frames) {
+                frame = frames.poll();
+                if (frame == null) {
+                    writing = false;
+                    return;
+                }
+                sending = true;
+                sendStarted = System.nanoTime();
+            }
+            try {
+                getDelegate().sendMessage(frame.message());
+            } catch (IOException | RuntimeException e) {
+                long millis = sendMillis();
+                synchronized (frames) {
+                    frames.clear();
+                    writing = false;
+                    sending = false;
+                }
+                if (e instanceof SocketTimeoutException) {
+                    closeSlow("gave up writing a frame after " + millis + " ms");
+                } else {
+                    log.debug("Could not write to WebSocket session {}", getId(), e);
+                    closeQuietly();
+                }
+                return;
+            }
+            synchronized (frames) {
+                sending = false;
+            }
+        }
+    }
+
+    private long sendMillis() {
+        synchronized (frames) {
+            return (System.nanoTime() - sendStarted) / 1_000_000;
+        }
+    }
+
+    private void closeQuietly() {
+        synchronized (frames) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not close WebSocket session {}", getId(), e);
+        }
+    }
+
+    private boolean replace(Frame frame) {
+        for (Iterator<Frame> it = frames.iterator(); it.hasNext();) {
+            if (frame.coalesceKey().equals(it.next().coalesceKey())) {
+                it.remove();
+                frames.add(frame);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean dropOldest() {
+        for (Iterator<Frame> it = frames.iterator(); it.hasNext();) {
+            if (it.next().droppable()) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SessionLimitExceededException disconnect(String reason) {
+        queues.disconnected();
+        log.info("Closing slow WebSocket session {}: {}", getId(), reason);
+        return new SessionLimitExceededException("Slow WebSocket session " + getId() + ": " + reason,
+                CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    /**
+     * Reads the command and the coalescing header of a STOMP frame, without reading its body.
+     */
+    private static Frame frame(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return new Frame(message, null, false);
+        }
+        String payload = text.getPayload();
+        if (payload.isEmpty() || payload.equals(HEARTBEAT)) {
+            return new Frame(message, HEARTBEAT, false);
+        }
+        int end = payload.indexOf('\n');
+        if (end < 0 || !payload.startsWith("MESSAGE")) {
+            return new Frame(message, null, false);
+        }
+        String key = null;
+        String header = OutboundSessionQueues.COALESCE_HEADER + ":";
+        for (int start = end + 1; start < payload.length(); start = end + 1) {
+            end = payload.indexOf('\n', start);
+            if (end <= start) {
+                break;
+            }
+            if (payload.startsWith(header, start)) {
+                key = payload.substring(start + header.length(), end);
+                break;
+            }
+        }
+        return new Frame(message, key, true);
+    }
+
+}
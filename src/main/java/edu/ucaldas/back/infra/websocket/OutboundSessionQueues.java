@@ -0,0 +1,252 @@
+package edu.ucaldas.back.infra.websocket;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.Session;
+
+/**
+ * Gives every WebSocket session its own bounded queue of outgoing frames ({@link OutboundQueueSession}),
+ * written by a small pool of threads, so a slow client delays only itself.
+ * <p>
+ * Configured with {@code app.chat.outbound.*}: the number of frames a session may have waiting
+ * ({@code capacity}), what to do when it has that many ({@code overflow}), how long the write of one
+ * frame may take before the session is closed ({@code slow-timeout}), the number of writing threads
+ * ({@code pool-size}) and how often the sessions are checked for a write that took too long
+ * ({@code sweep-interval}).
+ * </p>
+ * <p>
+ * A client that stops reading blocks its writing thread inside the container. The container is told to
+ * give up a blocking write after {@code slow-timeout}, and the sweep closes the sessions whose write
+ * has taken longer, which makes the container release the thread. So even with every thread stuck in a
+ * stalled session, the other sessions wait at most about {@code slow-timeout} for a thread.
+ * </p>
+ * <p>
+ * Metrics: {@code chat.session.outbound.queue} (frames waiting, one gauge per session, tagged with
+ * {@code session}), {@code chat.session.outbound.queue.max} (the deepest queue),
+ * {@code chat.session.outbound.sessions}, and the counters {@code chat.session.outbound.coalesced},
+ * {@code chat.session.outbound.dropped} and {@code chat.session.outbound.disconnected}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class OutboundSessionQueues implements WebSocketHandlerDecoratorFactory {
+
+    /**
+     * The STOMP header of the {@code MESSAGE} frames that supersede each other: while a frame waits,
+     * a newer frame with the same value replaces it.
+     */
+    public static final String COALESCE_HEADER = "coalesce";
+
+    /**
+     * What to do with a new frame when a session has {@code capacity} frames waiting.
+     */
+    public enum Overflow {
+        /**
+         * Drop the oldest waiting {@code MESSAGE} frame; the client notices the gap in the sequence
+         * numbers and asks for what it missed. Closes the session if only control frames wait.
+         */
+        DROP_OLDEST,
+        /**
+         * Close the session; the client reconnects and asks for what it missed.
+         */
+        DISCONNECT
+    }
+
+    private static final String QUEUE_METRIC = "chat.session.outbound.queue";
+
+    /**
+     * The user property of a Tomcat WebSocket session that limits a blocking write, in milliseconds.
+     */
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${app.chat.outbound.capacity:256}")
+    private int capacity;
+
+    @Value("${app.chat.outbound.overflow:DROP_OLDEST}")
+    private Overflow overflow;
+
+    @Value("${app.chat.outbound.slow-timeout:10s}")
+    private Duration slowTimeout;
+
+    @Value("${app.chat.outbound.pool-size:4}")
+    private int poolSize;
+
+    @Value("${app.chat.outbound.sweep-interval:1s}")
+    private Duration sweepInterval;
+
+    private final Map<String, OutboundQueueSession> sessions = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private ExecutorService executor;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Starts the writing threads and the sweep, and registers the metrics.
+     */
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(poolSize, task -> {
+            Thread thread = new Thread(task, "ws-outbound-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ws-outbound-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval.toNanos(), sweepInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Gauge.builder(QUEUE_METRIC + ".max", this, OutboundSessionQueues::maxSize)
+                .description("Frames waiting in the deepest outbound session queue")
+                .register(registry);
+        Gauge.builder("chat.session.outbound.sessions", sessions, Map::size)
+                .description("WebSocket sessions with an outbound queue")
+                .register(registry);
+        FunctionCounter.builder("chat.session.outbound.coalesced", coalesced, LongAdder::sum)
+                .description("Waiting frames replaced by a newer frame")
+                .register(registry);
+        FunctionCounter.builder("chat.session.outbound.dropped", dropped, LongAdder::sum)
+                .description("Frames dropped because a session queue was full")
+                .register(registry);
+        FunctionCounter.builder("chat.session.outbound.disconnected", disconnected, LongAdder::sum)
+                .description("Sessions closed for being too slow")
+                .register(registry);
+    }
+
+    /**
+     * Stops the writing threads and the sweep.
+     */
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(open(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                closed(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Wraps a new session in its outbound queue.
+     *
+     * @param session the session
+     * @return the session with its queue
+     */
+    OutboundQueueSession open(WebSocketSession session) {
+        if (WebSocketSessionDecorator.unwrap(session) instanceof NativeWebSocketSession container) {
+            Session nativeSession = container.getNativeSession(Session.class);
+            if (nativeSession != null) {
+                nativeSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, slowTimeout.toMillis());
+            }
+        }
+        OutboundQueueSession queued = new OutboundQueueSession(session, capacity, slowTimeout.toNanos(),
+                overflow, executor, this);
+        sessions.put(session.getId(), queued);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder(QUEUE_METRIC, queued, OutboundQueueSession::size)
+                    .description("Frames waiting to be written to the session")
+                    .tag("session", session.getId())
+                    .register(registry);
+        }
+        return queued;
+    }
+
+    /**
+     * Forgets a closed session and its gauge.
+     *
+     * @param sessionId the ID of the session
+     */
+    void closed(String sessionId) {
+        sessions.remove(sessionId);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge gauge = registry.find(QUEUE_METRIC).tag("session", sessionId).gauge();
+            if (gauge != null) {
+                registry.remove(gauge);
+            }
+        }
+    }
+
+    /**
+     * Closes the sessions whose current write has taken longer than {@code slow-timeout}, including
+     * those that are not sent anything new.
+     */
+    void sweep() {
+        long now = System.nanoTime();
+        for (OutboundQueueSession session : sessions.values()) {
+            if (session.stalled(now)) {
+                session.closeSlow("writing a frame for more than " + slowTimeout.toMillis() + " ms");
+            }
+        }
+    }
+
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void disconnected() {
+        disconnected.increment();
+    }
+
+    private int maxSize() {
+        int max = 0;
+        for (OutboundQueueSession session : sessions.values()) {
+            max = Math.max(max, session.size());
+        }
+        return max;
+    }
+
+}
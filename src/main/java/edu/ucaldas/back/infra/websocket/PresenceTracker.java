@@ -0,0 +1,80 @@
+package edu.ucaldas.back.infra.websocket;
+
+import java.security.Principal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.service.chat.ChatPresence;
+
+/**
+ * Feeds {@link ChatPresence} from the STOMP connections: a session counts once it is connected and
+ * authenticated, until it disconnects or the broker closes it for missing heart-beats, and every
+ * frame the client sends, heart-beats included, marks its user as seen.
+ *
+ * @author juan-manoel
+ */
+@Component
+public class PresenceTracker implements ChannelInterceptor {
+
+    @Autowired
+    private ChatPresence chatPresence;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        User user = user(SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+        if (user != null) {
+            chatPresence.seen(user.getId());
+        }
+        return message;
+    }
+
+    /**
+     * Counts a new session.
+     *
+     * @param event the {@code CONNECTED} frame sent to the client
+     */
+    @EventListener
+    public void connected(SessionConnectedEvent event) {
+        User user = user(event.getUser());
+        String sessionId = sessionId(event);
+        if (user != null && sessionId != null) {
+            chatPresence.connected(user.getId(), sessionId);
+        }
+    }
+
+    /**
+     * Stops counting a session.
+     *
+     * @param event the end of the session
+     */
+    @EventListener
+    public void disconnected(SessionDisconnectEvent event) {
+        User user = user(event.getUser());
+        if (user != null) {
+            chatPresence.disconnected(user.getId(), event.getSessionId());
+        }
+    }
+
+    private static String sessionId(AbstractSubProtocolEvent event) {
+        return SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+    }
+
+    private static User user(Principal principal) {
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,84 @@
+package edu.ucaldas.back.infra.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IUserRepository;
+import edu.ucaldas.back.service.TokenService;
+
+/**
+ * Authenticates STOMP connections with the same JWT as the REST API.
+ * <p>
+ * The browser WebSocket API cannot add an {@code Authorization} header to the handshake, so the
+ * token travels in the {@code Authorization: Bearer ...} header of the {@code CONNECT} frame. It is
+ * verified and the user loaded once; the resulting principal is kept by the session and attached to
+ * every later frame, so sending a message costs neither a signature check nor a user query.
+ * </p>
+ * <p>
+ * Frames of unauthenticated sessions are rejected, as are subscriptions outside the user's own
+ * queues ({@code /user/queue/...}) and messages to destinations other than {@code /app/...}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+            return message;
+        }
+        if (command == StompCommand.DISCONNECT) {
+            return message;
+        }
+        if (accessor.getUser() == null) {
+            throw new MessageDeliveryException("Not authenticated");
+        }
+        String destination = accessor.getDestination();
+        if (command == StompCommand.SUBSCRIBE && (destination == null || !destination.startsWith("/user/queue/"))) {
+            throw new MessageDeliveryException("Cannot subscribe to " + destination);
+        }
+        if (command == StompCommand.SEND && (destination == null || !destination.startsWith("/app/"))) {
+            throw new MessageDeliveryException("Cannot send to " + destination);
+        }
+        return message;
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new MessageDeliveryException("Missing token");
+        }
+        String email;
+        try {
+            email = tokenService.getSubject(authorization.substring("Bearer ".length()));
+        } catch (RuntimeException e) {
+            throw new MessageDeliveryException("Invalid token");
+        }
+        User user = userRepository.findActiveByEmail(email)
+                .orElseThrow(() -> new MessageDeliveryException("User not found or inactive"));
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+}
@@ -0,0 +1,84 @@
+package edu.ucaldas.back.infra.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+/**
+ * Configures the STOMP over WebSocket endpoint used by the chat.
+ * <p>
+ * Clients connect to {@code /ws}, send messages to {@code /app/...} destinations (handled by
+ * {@link edu.ucaldas.back.controller.ChatSocketController}) and subscribe to their own queues under
+ * {@code /user/queue/...}. An in-process broker delivers the messages to the sessions of this instance.
+ * The token is checked once, on the {@code CONNECT} frame, by {@link StompAuthenticationInterceptor}.
+ * </p>
+ * <p>
+ * Heart-beats every {@code app.chat.heartbeat} milliseconds in both directions let the broker close
+ * connections whose client vanished without a {@code DISCONNECT}.
+ * </p>
+ * <p>
+ * Every session writes through its own bounded queue ({@link OutboundSessionQueues}), so a slow client
+ * does not hold the threads that deliver to the others.
+ * </p>
+ * <p>
+ * The frames and heart-beats of each authenticated client keep its user online
+ * ({@link PresenceTracker}).
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
+
+    @Autowired
+    private StompAuthenticationInterceptor stompAuthenticationInterceptor;
+
+    @Autowired
+    private OutboundSessionQueues outboundSessionQueues;
+
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    @Value("${app.chat.allowed-origins:http://localhost:8080,http://localhost:5173,http://localhost:5174}")
+    private String[] allowedOrigins;
+
+    @Value("${app.chat.heartbeat:10000}")
+    private long heartbeat;
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws").setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        scheduler.initialize();
+        registry.enableSimpleBroker("/queue")
+                .setHeartbeatValue(new long[] { heartbeat, heartbeat })
+                .setTaskScheduler(scheduler);
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(outboundSessionQueues);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthenticationInterceptor, presenceTracker);
+    }
+
+}
@@ -3,6 +3,8 @@ package edu.ucaldas.back.models.chat;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import edu.ucaldas.back.models.rent.House;
 import edu.ucaldas.back.models.user.User;
 import jakarta.persistence.Entity;
@@ -38,10 +40,24 @@ import lombok.Setter;
  *   <li><b>messages</b>: List of messages exchanged in this chat.</li>
  *   <li><b>dateTime</b>: The date and time when the chat was created.</li>
  *   <li><b>isActive</b>: Indicates whether the chat is currently active.</li>
+ *   <li><b>lastMessageSeq</b>, <b>lastMessageSenderId</b>, <b>lastMessagePreview</b>,
+ *       <b>lastMessageAt</b>: Copy of the last message of the chat, for the inbox. Empty for chats
+ *       without messages since it was added.</li>
+ *   <li><b>messageSeq</b>: The last sequence number taken by a message of the chat, see
+ *       {@link edu.ucaldas.back.service.chat.ChatSequences}.</li>
  * </ul>
  * </p>
  *
  * <p>
+ * The last message is copied on every send, instead of being looked up in {@code messages}
+ * (a top-1-per-chat query whose cost grows with the history), so the inbox of a user is one query
+ * over {@code chats}, served by the indexes {@code idx_chats_owner_inbox} and
+ * {@code idx_chats_interested_inbox} (see {@link edu.ucaldas.back.repository.IChatRepositoryCustom}).
+ * It is only replaced by a message with a higher sequence number, so it never goes back to an older
+ * message.
+ * </p>
+ *
+ * <p>
  * This entity is mapped to the "chats" table in the database.
  * </p>
  */
@@ -53,22 +69,35 @@ import lombok.Setter;
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id")
 public class Chat {
+
+    /**
+     * Longest text of the last message kept in the chat.
+     */
+    public static final int PREVIEW_LENGTH = 100;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "interested_id")
     private User interested;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "house_id")
     private House house;
     @OneToMany(mappedBy = "chat", fetch = FetchType.LAZY)
     private List<Message> messages;
     private LocalDateTime dateTime;
     private boolean isActive;
+    @ColumnDefault("0")
+    private long lastMessageSeq;
+    private Long lastMessageSenderId;
+    private String lastMessagePreview;
+    private LocalDateTime lastMessageAt;
+    @ColumnDefault("0")
+    private long messageSeq;
 
     public Chat(User owner, User interested, House house) {
         this.owner = owner;
@@ -78,4 +107,18 @@ public class Chat {
         this.isActive = true;
     }
 
+    /**
+     * Returns the beginning of the text of a message, as kept in {@code lastMessagePreview}.
+     *
+     * @param content the text of the message
+     * @return at most {@value #PREVIEW_LENGTH} characters of it
+     */
+    public static String preview(String content) {
+        if (content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end);
+    }
+
 }
@@ -0,0 +1,33 @@
+package edu.ucaldas.back.models.chat;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identifies a participant of a chat: the primary key of the per-participant chat state.
+ * <p>
+ * The user comes first, so the primary key index also serves the lookups of all the chats of a user
+ * (inbox badges), while the full key serves the updates of one chat.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ChatParticipantId implements Serializable {
+
+    @Column(name = "user_id")
+    private long userId;
+    @Column(name = "chat_id")
+    private long chatId;
+
+}
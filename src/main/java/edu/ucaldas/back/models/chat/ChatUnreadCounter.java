@@ -0,0 +1,40 @@
+package edu.ucaldas.back.models.chat;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of messages of a chat a participant has not read yet.
+ * <p>
+ * Maintained on every write instead of counted on every read: sending a message increments the
+ * counter of the other participant, and marking messages as read subtracts the messages that
+ * changed state. Inbox badges are then a lookup by primary key instead of a {@code COUNT} over the
+ * messages of each chat.
+ * </p>
+ *
+ * <p>
+ * This entity is mapped to the "chat_unread_counters" table in the database.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Entity
+@Table(name = "chat_unread_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ChatUnreadCounter {
+
+    @EmbeddedId
+    private ChatParticipantId id;
+    private long unread;
+
+}
@@ -2,12 +2,15 @@ package edu.ucaldas.back.models.chat;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import edu.ucaldas.back.models.user.User;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -28,6 +31,9 @@ import lombok.Setter;
  * <ul>
  *   <li>id - Unique identifier for the message.</li>
  *   <li>chat - The chat to which this message belongs.</li>
+ *   <li>seq - Position of the message in its chat, increasing with every message and unique within
+ *       the chat (see {@link edu.ucaldas.back.service.chat.ChatSequences}); negative for messages sent
+ *       before it existed.</li>
  *   <li>content - The textual content of the message.</li>
  *   <li>sender - The user who sent the message.</li>
  *   <li>dateTime - The date and time when the message was sent.</li>
@@ -36,6 +42,10 @@ import lombok.Setter;
  *   <li>isActive - Indicates if the message is active (not deleted or archived).</li>
  * </ul>
  *
+ * The index {@code (chat_id, date_time, id)} serves the history of a chat newest first, from any
+ * position, and the unique index {@code (chat_id, seq)} the messages after the last one a reconnecting
+ * client has, see {@link edu.ucaldas.back.repository.IMessageRepository}.
+ *
  * Constructors:
  * <ul>
  *   <li>No-args constructor for JPA.</li>
@@ -44,7 +54,9 @@ import lombok.Setter;
  * </ul>
  */
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_chat_date", columnList = "chat_id, dateTime, id"),
+        @Index(name = "uk_messages_chat_seq", columnList = "chat_id, seq", unique = true) })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -54,15 +66,17 @@ public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "chat_id")
     private Chat chat;
+    @ColumnDefault("0")
+    private long seq;
     private String content;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User sender;
     private LocalDateTime dateTime;
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "image_id")
     private ImageMessage imageMessage;
     private boolean isRead;
@@ -0,0 +1,39 @@
+package edu.ucaldas.back.models.chat;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Last record of a local message log whose messages are stored in the database.
+ * <p>
+ * Updated in the same transaction that inserts a batch of messages from the log, so after a crash
+ * the records up to {@code position} are known to be persisted and are not inserted again, even if
+ * the log files that hold them were not deleted yet.
+ * </p>
+ *
+ * <p>
+ * This entity is mapped to the "message_log_checkpoints" table in the database.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Entity
+@Table(name = "message_log_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "logId")
+public class MessageLogCheckpoint {
+
+    @Id
+    private String logId;
+    private long position;
+
+}
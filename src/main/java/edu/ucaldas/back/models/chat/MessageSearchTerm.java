@@ -0,0 +1,47 @@
+package edu.ucaldas.back.models.chat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entry of the inverted index used to search the messages of the chats: a message contains a word,
+ * and a user can read it.
+ * <p>
+ * Each message is indexed once for each participant of its chat, with the words of its content as
+ * {@link edu.ucaldas.back.service.chat.MessageSearchIndex} normalizes them. The entries are written in
+ * the same transaction as the message, so a search reads only this table and never scans the messages.
+ * The index {@code idx_message_search_terms_user_term} holds, for each user and word, the messages
+ * that contain it in order, and the chat, copied into the entry, narrows a search to one chat without
+ * reading the table.
+ * </p>
+ *
+ * <p>
+ * This entity is mapped to the "message_search_terms" table in the database.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Entity
+@Table(name = "message_search_terms", indexes = {
+        @Index(name = "idx_message_search_terms_user_term", columnList = "user_id, term, message_id, chat_id") })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class MessageSearchTerm {
+
+    @EmbeddedId
+    private MessageSearchTermId id;
+    @Column(name = "chat_id")
+    private long chatId;
+
+}
@@ -0,0 +1,37 @@
+package edu.ucaldas.back.models.chat;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identifies an entry of the search index of the chat: a word of a message, for one of the users who
+ * can read it.
+ * <p>
+ * Hibernate orders the columns of the primary key by size and name, not as declared here, so it starts
+ * with {@code message_id} and its index finds the entries of a message; searches use
+ * {@code idx_message_search_terms_user_term}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class MessageSearchTermId implements Serializable {
+
+    @Column(name = "user_id")
+    private long userId;
+    @Column(name = "term", length = 32)
+    private String term;
+    @Column(name = "message_id")
+    private long messageId;
+
+}
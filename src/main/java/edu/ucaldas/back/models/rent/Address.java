@@ -20,6 +20,11 @@ import lombok.Setter;
  * Lombok annotations are used to generate getters, setters, and constructors.
  * </p>
  * 
+ * <p>
+ * An embeddable has no cache region of its own: it is cached as part of the owning
+ * {@link House} entry in the second-level cache.
+ * </p>
+ * 
  * @see javax.persistence.Embeddable
  * @see lombok.Getter
  * @see lombok.Setter
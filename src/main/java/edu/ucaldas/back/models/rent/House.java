@@ -2,9 +2,13 @@ package edu.ucaldas.back.models.rent;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import edu.ucaldas.back.DTO.HouseUpdateDTO;
 import edu.ucaldas.back.models.review.HouseReview;
 import edu.ucaldas.back.models.user.User;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -14,6 +18,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -49,10 +54,17 @@ import lombok.Setter;
  * </ul>
  * </p>
  *
+ * <p>
+ * Houses are cached in a read-write second-level cache region. The embedded {@link Address}
+ * is stored inside the house entry, so it is cached and invalidated together with the house.
+ * </p>
+ *
  * @author juan-manoel
  */
 @Entity
 @Table(name = "houses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "houses")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -65,7 +77,7 @@ public class House {
     private String description;
     @Embedded
     private Address address;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User owner;
     @OneToMany(mappedBy = "houseReviewed", fetch = FetchType.LAZY)
@@ -73,6 +85,7 @@ public class House {
     private float stars;
     private boolean isAvailable;
     @OneToMany(mappedBy = "house", fetch = FetchType.LAZY)
+    @OrderBy("position ASC, id ASC")
     private List<HouseImage> images;
     private boolean isActive;
 
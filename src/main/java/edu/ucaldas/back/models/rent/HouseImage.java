@@ -1,10 +1,14 @@
 package edu.ucaldas.back.models.rent;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -27,7 +31,15 @@ import lombok.Setter;
  * <ul>
  *   <li><b>id</b>: Unique identifier for the image (primary key).</li>
  *   <li><b>house</b>: The {@link House} entity this image belongs to.</li>
- *   <li><b>imageUrl</b>: The URL or path to the image resource.</li>
+ *   <li><b>imageUrl</b>: The URL or path to the image resource (the original upload).</li>
+ *   <li><b>contentHash</b>: SHA-256 of the original upload. Identical uploads share one file, and the
+ *       rows with a given hash are the references that keep that file alive.</li>
+ *   <li><b>thumbnailUrl</b>, <b>cardUrl</b>, <b>fullUrl</b>: Resized copies of the image for list views,
+ *       cards and detail views. They are generated in the background after the upload and stay
+ *       {@code null} until then (or when the format cannot be resized), in which case clients use
+ *       {@code imageUrl}.</li>
+ *   <li><b>position</b>: Order of the image among the images of its house; new uploads go last. Ties
+ *       (concurrent uploads) are ordered by {@code id}.</li>
  *   <li><b>isActive</b>: Indicates whether the image is currently active.</li>
  * </ul>
  * </p>
@@ -37,7 +49,9 @@ import lombok.Setter;
  * </p>
  */
 @Entity
-@Table(name = "house_images")
+@Table(name = "house_images", indexes = {
+        @Index(name = "idx_house_images_content_hash", columnList = "contentHash"),
+        @Index(name = "idx_house_images_house_position", columnList = "house_id, position") })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -47,15 +61,24 @@ public class HouseImage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "house_id")
     private House house;
     private String imageUrl;
+    @Column(length = 64)
+    private String contentHash;
+    private String thumbnailUrl;
+    private String cardUrl;
+    private String fullUrl;
+    @ColumnDefault("0")
+    private int position;
     private boolean isActive;
 
-    public HouseImage(House house, String imageUrl) {
+    public HouseImage(House house, String imageUrl, String contentHash, int position) {
         this.house = house;
         this.imageUrl = imageUrl;
+        this.contentHash = contentHash;
+        this.position = position;
         this.isActive = true; // Default to active when created
     }
 
@@ -1,14 +1,20 @@
 package edu.ucaldas.back.models.user;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import edu.ucaldas.back.DTO.UserUpdateDTO;
 import edu.ucaldas.back.models.review.UserReview;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -46,16 +52,27 @@ import lombok.Setter;
  *   <li>{@code reviews} - List of reviews associated with the user.</li>
  *   <li>{@code stars} - Average star rating for the user.</li>
  *   <li>{@code isActive} - Indicates whether the user account is active.</li>
+ *   <li>{@code lastSeen} - When the user was last connected to the chat; written only by
+ *       {@link edu.ucaldas.back.service.chat.ChatPresence}, never by saving the entity.</li>
  * </ul>
  *
  * <p>
  * Provides methods for updating user information, managing star ratings, and retrieving user authorities.
  * </p>
  *
+ * <p>
+ * Users are read on almost every request and rarely change, so they are kept in the second-level
+ * cache (read-write region). The email is a mutable natural id with its own cache region, which lets
+ * lookups by email skip the database as well.
+ * </p>
+ *
  * @author juan-manoel
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -67,6 +84,7 @@ public class User implements UserDetails{
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
     private String name;
+    @NaturalId(mutable = true)
     @Column(unique = true)
     private String email;
     private String password;
@@ -76,6 +94,8 @@ public class User implements UserDetails{
     private List<UserReview> reviews;
     private float stars;
     private boolean isActive;
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastSeen;
 
     public User(UserData userData) {
         this.name = userData.name();
@@ -1,11 +1,106 @@
 package edu.ucaldas.back.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import edu.ucaldas.back.models.chat.Chat;
+import jakarta.persistence.LockModeType;
 
 @Repository
-public interface IChatRepository extends JpaRepository<Chat, Long> {
+public interface IChatRepository extends JpaRepository<Chat, Long>, IChatRepositoryCustom {
+
+    /**
+     * Retrieves an active chat together with its owner and interested user, which are needed to
+     * authorize and route every message.
+     *
+     * @param id the ID of the chat
+     * @return the chat with its participants loaded, or empty if it does not exist or is inactive
+     */
+    @EntityGraph(attributePaths = { "owner", "interested" })
+    Optional<Chat> findWithParticipantsByIdAndIsActiveTrue(Long id);
+
+    /**
+     * Retrieves the active chat of an interested user about a house, so opening a chat twice returns
+     * the same conversation.
+     *
+     * @param houseId the ID of the house
+     * @param interestedId the ID of the interested user
+     * @return the chat with its participants loaded, or empty if there is none
+     */
+    @EntityGraph(attributePaths = { "owner", "interested" })
+    Optional<Chat> findWithParticipantsByHouseIdAndInterestedIdAndIsActiveTrue(Long houseId, Long interestedId);
+
+    /**
+     * Checks that a chat is active and that a user is its owner or its interested user, without loading
+     * the chat.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the ID of the user
+     * @return whether the user can read the chat
+     */
+    @Query("SELECT COUNT(c) > 0 FROM Chat c WHERE c.id = :chatId AND c.isActive = true "
+            + "AND (c.owner.id = :userId OR c.interested.id = :userId)")
+    boolean isActiveParticipant(@Param("chatId") long chatId, @Param("userId") long userId);
+
+    /**
+     * Locks a chat until the end of the transaction ({@code SELECT ... FOR UPDATE}), to serialize the
+     * rare changes that cannot be a single atomic statement.
+     *
+     * @param id the ID of the chat
+     * @return the locked chat, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Chat c WHERE c.id = :id")
+    Optional<Chat> lockById(@Param("id") long id);
+
+    /**
+     * Moves the sequence counter of a chat past the numbers taken for new messages, locking the chat
+     * until the end of the transaction. A counter still at 0 is first seeded with the highest number
+     * of the messages of the chat.
+     *
+     * @param chatId the ID of the chat
+     * @param count how many numbers are taken
+     * @return 1, or 0 if the chat does not exist
+     */
+    @Modifying
+    @Query("UPDATE Chat c SET c.messageSeq = CASE WHEN c.messageSeq = 0 THEN "
+            + "COALESCE((SELECT MAX(m.seq) FROM Message m WHERE m.chat.id = :chatId AND m.seq > 0), 0) "
+            + "ELSE c.messageSeq END + :count WHERE c.id = :chatId")
+    int takeMessageSeq(@Param("chatId") long chatId, @Param("count") long count);
+
+    /**
+     * Returns the last sequence number taken by a message of a chat.
+     *
+     * @param chatId the ID of the chat
+     * @return the value of the counter
+     */
+    @Query("SELECT c.messageSeq FROM Chat c WHERE c.id = :chatId")
+    long findMessageSeq(@Param("chatId") long chatId);
+
+    /**
+     * Copies a message as the last message of its chat, unless the chat already has a later one.
+     *
+     * @param chatId the ID of the chat
+     * @param seq the sequence number of the message
+     * @param senderId the ID of the sender
+     * @param preview the beginning of the text, see {@link Chat#preview(String)}
+     * @param dateTime the date of the message
+     * @return 1 if the snapshot was replaced, 0 if the chat has a later message
+     */
+    @Modifying
+    @Query("UPDATE Chat c SET c.lastMessageSeq = :seq, c.lastMessageSenderId = :senderId, "
+            + "c.lastMessagePreview = :preview, c.lastMessageAt = :dateTime "
+            + "WHERE c.id = :chatId AND c.lastMessageSeq < :seq")
+    int updateLastMessage(@Param("chatId") long chatId, @Param("seq") long seq, @Param("senderId") long senderId,
+            @Param("preview") String preview, @Param("dateTime") LocalDateTime dateTime);
 
 }
@@ -0,0 +1,44 @@
+package edu.ucaldas.back.repository;
+
+import java.util.List;
+
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+
+/**
+ * Custom repository fragment for the inbox query of {@code chats}, which JPQL cannot write as ordered
+ * and limited branches of a {@code UNION ALL}, and for the indexes serving it, whose
+ * {@code NULLS LAST} ordering JPA index annotations cannot declare.
+ * <p>
+ * Implemented by {@link IChatRepositoryCustomImpl} and exposed through {@link IChatRepository}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public interface IChatRepositoryCustom {
+
+    /**
+     * Returns the inbox of a user: their active chats, the latest message first, with the other
+     * participant, the last message and the unread count of each. The other participant is reported
+     * offline, with the last-seen time stored in {@code users}; the chat presence in memory
+     * ({@link edu.ucaldas.back.service.chat.ChatPresence}) tells who is online.
+     * <p>
+     * The chats the user owns and the chats they are interested in are read by two branches of a
+     * {@code UNION ALL}, each walking its index ({@code idx_chats_owner_inbox} or
+     * {@code idx_chats_interested_inbox}) in the order of the inbox and stopping after {@code limit}
+     * rows, so neither an OR of both indexes nor a sort of all the chats of the user is needed. Only
+     * the rows kept are joined with their participant and their unread counter, both by primary key;
+     * the messages table is not read.
+     * </p>
+     *
+     * @param userId the ID of the user
+     * @param limit the maximum number of chats
+     * @return the chats, chats without messages last
+     */
+    List<ChatInboxDTO> findInbox(long userId, int limit);
+
+    /**
+     * Creates the indexes of the inbox if they do not exist yet, and drops the ones they replace.
+     */
+    void createInboxIndexes();
+
+}
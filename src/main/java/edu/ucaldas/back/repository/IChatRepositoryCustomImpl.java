@@ -0,0 +1,62 @@
+package edu.ucaldas.back.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+
+/**
+ * Implementation of {@link IChatRepositoryCustom} backed by a {@link JdbcTemplate}.
+ *
+ * @author juan-manoel
+ */
+public class IChatRepositoryCustomImpl implements IChatRepositoryCustom {
+
+    private static final String INBOX_ORDER = "last_message_at DESC NULLS LAST, id DESC";
+    private static final String INBOX_COLUMNS = "id, house_id, last_message_seq, last_message_sender_id, "
+            + "last_message_preview, last_message_at";
+    private static final String INBOX = "SELECT c.id, c.house_id, p.id AS counterpart_id, p.name, p.last_seen, "
+            + "c.last_message_seq, c.last_message_sender_id, c.last_message_preview, c.last_message_at, "
+            + "COALESCE(u.unread, 0) AS unread FROM ("
+            + "(SELECT " + INBOX_COLUMNS + ", interested_id AS counterpart_id FROM chats "
+            + "WHERE owner_id = ? AND is_active = TRUE ORDER BY " + INBOX_ORDER + " LIMIT ?) "
+            + "UNION ALL "
+            + "(SELECT " + INBOX_COLUMNS + ", owner_id AS counterpart_id FROM chats "
+            + "WHERE interested_id = ? AND owner_id <> ? AND is_active = TRUE ORDER BY " + INBOX_ORDER + " LIMIT ?)"
+            + ") c JOIN users p ON p.id = c.counterpart_id "
+            + "LEFT JOIN chat_unread_counters u ON u.user_id = ? AND u.chat_id = c.id "
+            + "ORDER BY c.last_message_at DESC NULLS LAST, c.id DESC LIMIT ?";
+    private static final List<String> INBOX_INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_chats_owner_inbox ON chats (owner_id, " + INBOX_ORDER + ")",
+            "CREATE INDEX IF NOT EXISTS idx_chats_interested_inbox ON chats (interested_id, " + INBOX_ORDER + ")",
+            "DROP INDEX IF EXISTS idx_chats_owner_last_message",
+            "DROP INDEX IF EXISTS idx_chats_interested_last_message");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChatInboxDTO> findInbox(long userId, int limit) {
+        return jdbcTemplate.query(INBOX,
+                (row, i) -> new ChatInboxDTO(row.getLong("id"), row.getLong("house_id"), row.getLong("counterpart_id"),
+                        row.getString("name"), false, row.getObject("last_seen", LocalDateTime.class),
+                        row.getLong("last_message_seq"), row.getObject("last_message_sender_id", Long.class),
+                        row.getString("last_message_preview"), row.getObject("last_message_at", LocalDateTime.class),
+                        row.getLong("unread")),
+                userId, limit, userId, userId, limit, userId, limit);
+    }
+
+    @Override
+    @Transactional
+    public void createInboxIndexes() {
+        for (String statement : INBOX_INDEXES) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+}
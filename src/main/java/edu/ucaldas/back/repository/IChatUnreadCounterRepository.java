@@ -0,0 +1,65 @@
+package edu.ucaldas.back.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import edu.ucaldas.back.DTO.UnreadCountDTO;
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.ChatUnreadCounter;
+
+/**
+ * Repository for the unread counters of the chat participants.
+ * <p>
+ * Counters are changed with single {@code UPDATE} statements that add to the stored value, so
+ * concurrent messages never overwrite each other's increments; the row lock of the update serializes
+ * them.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Repository
+public interface IChatUnreadCounterRepository extends JpaRepository<ChatUnreadCounter, ChatParticipantId> {
+
+    /**
+     * Adds to the unread counter of a participant.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the ID of the participant
+     * @param delta the number of new unread messages
+     * @return 1 if the counter exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ChatUnreadCounter c SET c.unread = c.unread + :delta "
+            + "WHERE c.id.chatId = :chatId AND c.id.userId = :userId")
+    int increment(@Param("chatId") long chatId, @Param("userId") long userId, @Param("delta") long delta);
+
+    /**
+     * Subtracts from the unread counter of a participant, never below zero.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the ID of the participant
+     * @param delta the number of messages that were just read
+     * @return 1 if the counter exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ChatUnreadCounter c SET c.unread = CASE WHEN c.unread > :delta THEN c.unread - :delta ELSE 0 END "
+            + "WHERE c.id.chatId = :chatId AND c.id.userId = :userId")
+    int decrement(@Param("chatId") long chatId, @Param("userId") long userId, @Param("delta") long delta);
+
+    /**
+     * Returns the chats of a user that have unread messages, with their counts, from the primary key
+     * index.
+     *
+     * @param userId the ID of the user
+     * @return the unread count of each chat with unread messages
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.UnreadCountDTO(c.id.chatId, c.unread) FROM ChatUnreadCounter c "
+            + "WHERE c.id.userId = :userId AND c.unread > 0")
+    List<UnreadCountDTO> findUnreadByUserId(@Param("userId") long userId);
+
+}
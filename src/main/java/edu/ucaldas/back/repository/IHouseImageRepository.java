@@ -1,11 +1,110 @@
 package edu.ucaldas.back.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import edu.ucaldas.back.DTO.HouseImageDTO;
 import edu.ucaldas.back.models.rent.HouseImage;
 
 @Repository
-public interface IHouseImageRepository extends JpaRepository<HouseImage, Long> {
+public interface IHouseImageRepository extends JpaRepository<HouseImage, Long>, IHouseImageRepositoryCustom {
+
+    /**
+     * Counts the images that reference a stored file. Identical uploads share the same file, so a
+     * file may only be deleted when this count is zero.
+     *
+     * @param contentHash the SHA-256 of the file content
+     * @return the number of image rows referencing the content
+     */
+    long countByContentHash(String contentHash);
+
+    /**
+     * Finds an image with the same content whose variants have already been generated, so a
+     * duplicate upload can reuse them instead of resizing the image again.
+     *
+     * @param contentHash the SHA-256 of the file content
+     * @return an image with the given content and its variants, or empty if there is none
+     */
+    Optional<HouseImage> findFirstByContentHashAndThumbnailUrlIsNotNull(String contentHash);
+
+    /**
+     * Finds the images with any of the given contents whose variants have already been generated, so
+     * the duplicates of a batch upload can reuse them with a single query.
+     *
+     * @param contentHashes the SHA-256 of the file contents
+     * @return the images with one of the given contents and their variants
+     */
+    List<HouseImage> findByContentHashInAndThumbnailUrlIsNotNull(Collection<String> contentHashes);
+
+    /**
+     * Returns which of the given contents are still referenced by an active image of an active house.
+     * Files whose content is not in the result belong to failed uploads, deleted images or deleted houses.
+     *
+     * @param contentHashes the SHA-256 of the file contents
+     * @return the referenced hashes among the given ones
+     */
+    @Query("SELECT DISTINCT i.contentHash FROM HouseImage i "
+            + "WHERE i.contentHash IN :contentHashes AND i.isActive = true AND i.house.isActive = true")
+    List<String> findLiveContentHashes(@Param("contentHashes") Collection<String> contentHashes);
+
+    /**
+     * Returns the file names, original or variant, of the active images of active houses that use any of
+     * the given names. Used for files stored before content addressing, which have no hash.
+     *
+     * @param fileNames the file names
+     * @return the image rows as {@code [imageUrl, thumbnailUrl, cardUrl, fullUrl]}
+     */
+    @Query("SELECT i.imageUrl, i.thumbnailUrl, i.cardUrl, i.fullUrl FROM HouseImage i "
+            + "WHERE i.isActive = true AND i.house.isActive = true AND (i.imageUrl IN :fileNames "
+            + "OR i.thumbnailUrl IN :fileNames OR i.cardUrl IN :fileNames OR i.fullUrl IN :fileNames)")
+    List<Object[]> findLiveFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    /**
+     * Returns the position after the last image of a house, where a new upload is placed.
+     *
+     * @param houseId the identifier of the house
+     * @return the next free position, {@code 0} for a house without images
+     */
+    @Query("SELECT COALESCE(MAX(i.position) + 1, 0) FROM HouseImage i WHERE i.house.id = :houseId")
+    int findNextPosition(@Param("houseId") long houseId);
+
+    /**
+     * Retrieves the active images of several houses with a single query, ordered by house and position.
+     * <p>
+     * Used to embed the images of a whole page of houses in {@link edu.ucaldas.back.DTO.HouseGetDTO}
+     * without one query per house. Only the columns of the DTO are selected, and the
+     * {@code (house_id, position)} index serves both the filter and the order.
+     * </p>
+     *
+     * @param houseIds the identifiers of the houses
+     * @return the images of the given houses
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.HouseImageDTO(i.house.id, i.imageUrl, i.thumbnailUrl, i.cardUrl, i.fullUrl) "
+            + "FROM HouseImage i WHERE i.house.id IN :houseIds AND i.isActive = true "
+            + "ORDER BY i.house.id, i.position, i.id")
+    List<HouseImageDTO> findActiveByHouseIdIn(@Param("houseIds") Collection<Long> houseIds);
+
+    /**
+     * Stores the file names of the resized variants of an image once they have been generated.
+     *
+     * @param id the identifier of the image
+     * @param thumbnailUrl the file name of the thumbnail variant
+     * @param cardUrl the file name of the card variant
+     * @param fullUrl the file name of the full-size variant
+     * @return the number of updated rows (0 if the image was deleted meanwhile)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HouseImage i SET i.thumbnailUrl = :thumbnailUrl, i.cardUrl = :cardUrl, i.fullUrl = :fullUrl WHERE i.id = :id")
+    int updateVariants(@Param("id") long id, @Param("thumbnailUrl") String thumbnailUrl,
+            @Param("cardUrl") String cardUrl, @Param("fullUrl") String fullUrl);
 
 }
@@ -0,0 +1,29 @@
+package edu.ucaldas.back.repository;
+
+import java.util.List;
+
+import edu.ucaldas.back.models.rent.HouseImage;
+
+/**
+ * Custom repository fragment for writing several {@link HouseImage} rows at once.
+ * <p>
+ * Implemented by {@link IHouseImageRepositoryCustomImpl} and exposed through {@link IHouseImageRepository}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public interface IHouseImageRepositoryCustom {
+
+    /**
+     * Inserts new images with a single JDBC batch and sets their generated identifiers.
+     * <p>
+     * {@code saveAll} cannot batch these inserts: the identifiers are {@code IDENTITY} columns, so
+     * Hibernate executes one {@code INSERT} per row to read each generated key. The rows are not added
+     * to the persistence context.
+     * </p>
+     *
+     * @param images the images to insert, not yet persisted
+     */
+    void insertAll(List<HouseImage> images);
+
+}
@@ -0,0 +1,64 @@
+package edu.ucaldas.back.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.models.rent.HouseImage;
+
+/**
+ * Implementation of {@link IHouseImageRepositoryCustom} backed by a {@link JdbcTemplate}.
+ *
+ * @author juan-manoel
+ */
+public class IHouseImageRepositoryCustomImpl implements IHouseImageRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO house_images "
+            + "(house_id, image_url, content_hash, thumbnail_url, card_url, full_url, position, is_active) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void insertAll(List<HouseImage> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        HouseImage image = images.get(i);
+                        statement.setLong(1, image.getHouse().getId());
+                        statement.setString(2, image.getImageUrl());
+                        statement.setString(3, image.getContentHash());
+                        statement.setString(4, image.getThumbnailUrl());
+                        statement.setString(5, image.getCardUrl());
+                        statement.setString(6, image.getFullUrl());
+                        statement.setInt(7, image.getPosition());
+                        statement.setBoolean(8, image.isActive());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return images.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < images.size(); i++) {
+            images.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+        }
+    }
+
+}
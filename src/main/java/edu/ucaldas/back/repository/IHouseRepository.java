@@ -4,6 +4,7 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -22,7 +23,7 @@ import edu.ucaldas.back.models.rent.House;
  * <p>
  * Custom query methods include:
  * <ul>
- *   <li>Finding active houses by ID</li>
+ *   <li>Finding active houses by ID, optionally fetching the owner in the same query</li>
  *   <li>Checking for the existence of active houses by address or owner email</li>
  *   <li>Retrieving paginated lists of available and active houses</li>
  *   <li>Finding active and unavailable houses by ID</li>
@@ -44,6 +45,28 @@ public interface IHouseRepository extends JpaRepository<House, Long> {
          */
         Optional<House> findByIdAndIsActiveTrue(Long id);
 
+        /**
+         * Retrieves an active {@link House} by its unique identifier through {@link #findById(Object)},
+         * which is served from the second-level cache when the house is cached.
+         *
+         * @param id the unique identifier of the house to retrieve
+         * @return an {@link Optional} containing the active house if found, or empty if not found or inactive
+         */
+        default Optional<House> findActiveById(Long id) {
+                return findById(id).filter(House::isActive);
+        }
+
+        /**
+         * Retrieves an active {@link House} entity by its unique identifier, fetching its owner
+         * in the same query. Use it when the owner is needed (ownership checks, DTOs with the
+         * owner's email or name) to avoid a second select for the lazy association.
+         *
+         * @param id the unique identifier of the house to retrieve
+         * @return an {@link Optional} containing the active house with its owner loaded, or empty if not found or inactive
+         */
+        @EntityGraph(attributePaths = "owner")
+        Optional<House> findWithOwnerByIdAndIsActiveTrue(Long id);
+
         /**
          * Checks if an active house exists with the specified address details.
          *
@@ -70,10 +93,12 @@ public interface IHouseRepository extends JpaRepository<House, Long> {
 
         /**
          * Retrieves a paginated list of houses that are both active and available.
+         * The owner of each house is fetched in the same query.
          *
          * @param pageable the pagination information
          * @return a page of houses that are active and available
          */
+        @EntityGraph(attributePaths = "owner")
         @Query("SELECT h FROM House h WHERE h.isActive = true AND h.isAvailable = true")
         Page<House> findAllAvailableAndActiveHouses(Pageable pageable);
 
@@ -2,6 +2,7 @@ package edu.ucaldas.back.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,11 +32,13 @@ public interface IHouseReviewRepository extends IReviewRepository{
 
     /**
      * Retrieves a paginated list of active house reviews for a specific house, ordered by review date in descending order.
+     * The writer of each review is fetched in the same query.
      *
      * @param id    the unique identifier of the house to retrieve reviews for
      * @param page  the pagination information
      * @return      a page of {@link HouseReview} entities associated with the specified house, only including active reviews
      */
+    @EntityGraph(attributePaths = "writer")
     @Query("SELECT hr FROM HouseReview hr WHERE hr.houseReviewed.id = :houseId AND hr.isActive = true ORDER BY hr.dateTime DESC")
     Page<HouseReview> findByHouseReviewedByHouseId(@Param("houseId")Long id, Pageable page);
 
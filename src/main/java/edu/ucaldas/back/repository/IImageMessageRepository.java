@@ -1,6 +1,11 @@
 package edu.ucaldas.back.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import edu.ucaldas.back.models.chat.ImageMessage;
@@ -8,4 +13,14 @@ import edu.ucaldas.back.models.chat.ImageMessage;
 @Repository
 public interface IImageMessageRepository extends JpaRepository<ImageMessage, Long>{
 
+    /**
+     * Returns which of the given file names are used by active image messages, so the image garbage
+     * collector keeps them.
+     *
+     * @param fileNames the file names
+     * @return the used names among the given ones
+     */
+    @Query("SELECT DISTINCT m.imageUrl FROM ImageMessage m WHERE m.imageUrl IN :fileNames AND m.isActive = true")
+    List<String> findLiveImageUrls(@Param("fileNames") Collection<String> fileNames);
+
 }
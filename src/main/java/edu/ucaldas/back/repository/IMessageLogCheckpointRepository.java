@@ -0,0 +1,16 @@
+package edu.ucaldas.back.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import edu.ucaldas.back.models.chat.MessageLogCheckpoint;
+
+/**
+ * Repository for the checkpoints of the local message logs of the chat.
+ *
+ * @author juan-manoel
+ */
+@Repository
+public interface IMessageLogCheckpointRepository extends JpaRepository<MessageLogCheckpoint, String> {
+
+}
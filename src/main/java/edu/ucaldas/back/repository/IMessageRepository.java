@@ -1,12 +1,145 @@
 package edu.ucaldas.back.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.DTO.MessageSearchResultDTO;
 import edu.ucaldas.back.models.chat.Message;
 
+/**
+ * Repository for the messages of the chats.
+ * <p>
+ * The history is read newest first with keyset pagination on {@code (date_time, id)}: each page starts
+ * right after the last message of the previous one, found by seeking the index
+ * {@code idx_messages_chat_date (chat_id, date_time, id)}, so every page costs the same whatever its
+ * depth, unlike {@code OFFSET}, which reads and discards every skipped row. The queries select only
+ * the columns of {@link MessageDTO}; {@code sender.id} is the foreign key column, so no table is joined
+ * and no entity is loaded.
+ * </p>
+ *
+ * @author juan-manoel
+ */
 @Repository
-public interface IMessageRepository extends JpaRepository<Message, Long> {
-    // Custom query methods can be defined here if needed
+public interface IMessageRepository extends JpaRepository<Message, Long>, IMessageRepositoryCustom {
+
+    /**
+     * Returns the latest messages of a chat, newest first.
+     *
+     * @param chatId the ID of the chat
+     * @param limit the maximum number of messages
+     * @return the messages
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.MessageDTO(m.id, m.seq, m.sender.id, m.content, m.dateTime, m.isRead) "
+            + "FROM Message m WHERE m.chat.id = :chatId AND m.isActive = true "
+            + "ORDER BY m.dateTime DESC, m.id DESC")
+    List<MessageDTO> findLatest(@Param("chatId") long chatId, Limit limit);
+
+    /**
+     * Returns the messages of a chat sent before a given one, newest first.
+     * <p>
+     * The condition is written as {@code date_time <= :dateTime AND (...)} so the bound on
+     * {@code date_time} becomes an index condition and the scan starts at the cursor.
+     * </p>
+     *
+     * @param chatId the ID of the chat
+     * @param dateTime the date of the last message of the previous page
+     * @param id the ID of the last message of the previous page, which breaks ties between messages
+     *           with the same date
+     * @param limit the maximum number of messages
+     * @return the messages
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.MessageDTO(m.id, m.seq, m.sender.id, m.content, m.dateTime, m.isRead) "
+            + "FROM Message m WHERE m.chat.id = :chatId AND m.isActive = true "
+            + "AND m.dateTime <= :dateTime AND (m.dateTime < :dateTime OR m.id < :id) "
+            + "ORDER BY m.dateTime DESC, m.id DESC")
+    List<MessageDTO> findBefore(@Param("chatId") long chatId, @Param("dateTime") LocalDateTime dateTime,
+            @Param("id") long id, Limit limit);
+
+    /**
+     * Returns the messages of a chat after a sequence number, oldest first: what a reconnecting client
+     * missed since the last message it has. One range scan of {@code uk_messages_chat_seq}.
+     *
+     * @param chatId the ID of the chat
+     * @param seq the sequence number of the last message the client has
+     * @param limit the maximum number of messages
+     * @return the messages
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.MessageDTO(m.id, m.seq, m.sender.id, m.content, m.dateTime, m.isRead) "
+            + "FROM Message m WHERE m.chat.id = :chatId AND m.seq > :seq AND m.isActive = true "
+            + "ORDER BY m.seq ASC")
+    List<MessageDTO> findAfter(@Param("chatId") long chatId, @Param("seq") long seq, Limit limit);
+
+    /**
+     * Returns the given messages, if active and in an active chat, newest first: the results of a
+     * search, found in the search index. One primary key lookup per message.
+     *
+     * @param ids the IDs of the messages
+     * @return the messages
+     */
+    @Query("SELECT new edu.ucaldas.back.DTO.MessageSearchResultDTO(m.id, m.chat.id, m.seq, m.sender.id, m.content, "
+            + "m.dateTime) FROM Message m WHERE m.id IN :ids AND m.isActive = true AND m.chat.isActive = true "
+            + "ORDER BY m.id DESC")
+    List<MessageSearchResultDTO> findSearchResults(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Gives the messages stored before the sequence numbers existed ({@code seq = 0}) distinct negative
+     * numbers, {@code -id}, so they sort before every numbered message of their chat and fit in the
+     * unique index {@code (chat_id, seq)}.
+     *
+     * @return the number of messages numbered
+     */
+    @Modifying
+    @Query("UPDATE Message m SET m.seq = -m.id WHERE m.seq = 0")
+    int numberLegacyMessages();
+
+    /**
+     * Returns the date of a message of a chat, the position used to mark messages as read up to it.
+     *
+     * @param id the ID of the message
+     * @param chatId the ID of the chat it must belong to
+     * @return the date of the message, or empty if it is not a message of that chat
+     */
+    @Query("SELECT m.dateTime FROM Message m WHERE m.id = :id AND m.chat.id = :chatId")
+    Optional<LocalDateTime> findDateTimeByIdAndChatId(@Param("id") long id, @Param("chatId") long chatId);
+
+    /**
+     * Marks as read, in one statement, the unread messages a participant received in a chat up to a
+     * given message (inclusive). The range follows the history order and is found with the same index
+     * as the history.
+     *
+     * @param chatId the ID of the chat
+     * @param readerId the ID of the participant who read them; their own messages are not touched
+     * @param dateTime the date of the last message read
+     * @param id the ID of the last message read
+     * @return the number of messages that changed from unread to read
+     */
+    @Modifying
+    @Query("UPDATE Message m SET m.isRead = true WHERE m.chat.id = :chatId AND m.sender.id <> :readerId "
+            + "AND m.isRead = false AND m.isActive = true "
+            + "AND m.dateTime <= :dateTime AND (m.dateTime < :dateTime OR m.id <= :id)")
+    int markReadUpTo(@Param("chatId") long chatId, @Param("readerId") long readerId,
+            @Param("dateTime") LocalDateTime dateTime, @Param("id") long id);
+
+    /**
+     * Counts the unread messages a participant received in a chat. Only used to create the counter of
+     * a chat that existed before the counters did.
+     *
+     * @param chatId the ID of the chat
+     * @param readerId the ID of the participant
+     * @return the number of unread messages from the other participant
+     */
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.chat.id = :chatId AND m.sender.id <> :readerId "
+            + "AND m.isRead = false AND m.isActive = true")
+    long countUnread(@Param("chatId") long chatId, @Param("readerId") long readerId);
 
 }
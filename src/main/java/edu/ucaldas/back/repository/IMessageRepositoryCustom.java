@@ -0,0 +1,45 @@
+package edu.ucaldas.back.repository;
+
+import java.util.List;
+
+import edu.ucaldas.back.models.chat.Message;
+
+/**
+ * Custom repository fragment for writing several {@link Message} rows at once, and for the schema
+ * changes of {@code messages} that the JPA schema update cannot make.
+ * <p>
+ * Implemented by {@link IMessageRepositoryCustomImpl} and exposed through {@link IMessageRepository}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public interface IMessageRepositoryCustom {
+
+    /**
+     * Inserts new messages with a single JDBC batch and sets their generated identifiers.
+     * <p>
+     * Used by the write-behind queue of the chat, which persists the messages of many senders in one
+     * transaction. As with {@code saveAll} of an {@code IDENTITY} entity, inserting them one by one would
+     * cost a round trip per message. The rows are not added to the persistence context.
+     * </p>
+     *
+     * @param messages the messages to insert, not yet persisted, with their chat and sender set
+     */
+    void insertAll(List<Message> messages);
+
+    /**
+     * Creates the unique index {@code uk_messages_chat_seq (chat_id, seq)} if it does not exist yet. On a
+     * database with messages older than the sequence numbers, the schema update fails to create it until
+     * they are numbered.
+     */
+    void createSeqIndex();
+
+    /**
+     * Tells whether the unique index {@code uk_messages_chat_seq} exists, from the metadata of the
+     * database, without reading {@code messages}.
+     *
+     * @return whether the index exists
+     */
+    boolean hasSeqIndex();
+
+}
@@ -0,0 +1,92 @@
+package edu.ucaldas.back.repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.models.chat.Message;
+
+/**
+ * Implementation of {@link IMessageRepositoryCustom} backed by a {@link JdbcTemplate}.
+ *
+ * @author juan-manoel
+ */
+public class IMessageRepositoryCustomImpl implements IMessageRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO messages "
+            + "(chat_id, seq, user_id, content, date_time, is_read, is_active) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SEQ_INDEX = "uk_messages_chat_seq";
+    private static final String CREATE_SEQ_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + SEQ_INDEX + " ON messages (chat_id, seq)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Message message = messages.get(i);
+                        statement.setLong(1, message.getChat().getId());
+                        statement.setLong(2, message.getSeq());
+                        statement.setLong(3, message.getSender().getId());
+                        statement.setString(4, message.getContent());
+                        statement.setTimestamp(5, Timestamp.valueOf(message.getDateTime()));
+                        statement.setBoolean(6, message.isRead());
+                        statement.setBoolean(7, message.isActive());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return messages.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void createSeqIndex() {
+        jdbcTemplate.execute(CREATE_SEQ_INDEX);
+    }
+
+    @Override
+    public boolean hasSeqIndex() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metadata = connection.getMetaData();
+            String table = metadata.storesUpperCaseIdentifiers() ? "MESSAGES" : "messages";
+            try (ResultSet indexes = metadata.getIndexInfo(connection.getCatalog(), connection.getSchema(), table,
+                    true, true)) {
+                while (indexes.next()) {
+                    if (SEQ_INDEX.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+
+}
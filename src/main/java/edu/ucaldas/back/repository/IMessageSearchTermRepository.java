@@ -0,0 +1,59 @@
+package edu.ucaldas.back.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import edu.ucaldas.back.models.chat.MessageSearchTerm;
+import edu.ucaldas.back.models.chat.MessageSearchTermId;
+
+/**
+ * Repository for the inverted index of the chat messages, see {@link MessageSearchTerm}.
+ * <p>
+ * The entries are inserted with JDBC batches by
+ * {@link edu.ucaldas.back.service.chat.MessageSearchIndex}; this repository only reads them.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Repository
+public interface IMessageSearchTermRepository extends JpaRepository<MessageSearchTerm, MessageSearchTermId> {
+
+    /**
+     * Returns the messages a user can read that contain all the given words, newest first.
+     * <p>
+     * Reads, from {@code idx_message_search_terms_user_term}, the entries of the user for each word below
+     * the cursor, and keeps the messages that appear once per word. The messages table is not read.
+     * </p>
+     *
+     * @param userId the ID of the user
+     * @param terms the normalized words, without repetitions
+     * @param count the number of words
+     * @param before the ID of the last message of the previous page, or {@link Long#MAX_VALUE}
+     * @param chatId the ID of the only chat to search, or {@code null} for all the chats of the user
+     * @param limit the maximum number of messages
+     * @return the IDs of the messages
+     */
+    @Query("SELECT t.id.messageId FROM MessageSearchTerm t "
+            + "WHERE t.id.userId = :userId AND t.id.term IN :terms AND t.id.messageId < :before "
+            + "AND (:chatId IS NULL OR t.chatId = :chatId) "
+            + "GROUP BY t.id.messageId HAVING COUNT(t) = :count "
+            + "ORDER BY t.id.messageId DESC")
+    List<Long> search(@Param("userId") long userId, @Param("terms") Collection<String> terms,
+            @Param("count") long count, @Param("before") long before, @Param("chatId") Long chatId, Limit limit);
+
+    /**
+     * Returns the oldest indexed message, where indexing the messages older than the index continues.
+     * One seek of the primary key, which starts with the message.
+     *
+     * @return the ID of the message, or {@code null} if the index is empty
+     */
+    @Query("SELECT MIN(t.id.messageId) FROM MessageSearchTerm t")
+    Long findMinMessageId();
+
+}
@@ -3,6 +3,7 @@ package edu.ucaldas.back.repository;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -57,20 +58,24 @@ public interface IRentRepository extends JpaRepository<Rent, Long> {
 
     /**
      * Retrieves a paginated list of active Rent entities associated with the specified locator's email.
+     * The locator is fetched in the same query.
      *
      * @param email the email address of the locator to filter rents by
      * @param pageable the pagination information
      * @return a page of active Rent entities matching the locator's email
      */
+    @EntityGraph(attributePaths = "locator")
     Page<Rent> findByLocatorEmailAndIsActiveTrue(String email, org.springframework.data.domain.Pageable pageable);
 
     /**
      * Retrieves a paginated list of active Rent entities associated with a specific house owner's email.
+     * The locator is fetched in the same query.
      *
      * @param email the email address of the house owner
      * @param pageable the pagination information
      * @return a page of active Rent entities belonging to the specified house owner
      */
+    @EntityGraph(attributePaths = "locator")
     Page<Rent> findByHouseOwnerEmailAndIsActiveTrue(String email, org.springframework.data.domain.Pageable pageable);
      /**
      * Checks if a rent entity with the specified ID exists and is marked as active.
@@ -82,9 +87,12 @@ public interface IRentRepository extends JpaRepository<Rent, Long> {
 
     /**
      * Retrieves an active {@link Rent} entity by its unique identifier.
+     * The house, its owner and the locator are fetched in the same query, since accepting
+     * and deleting a rent check all of them.
      *
      * @param id the unique identifier of the rent entity
      * @return an {@link Optional} containing the active rent entity if found, or empty if not found or inactive
      */
+    @EntityGraph(attributePaths = { "house", "house.owner", "locator" })
     Optional<Rent> findByIdAndIsActiveTrue(long id);
 }
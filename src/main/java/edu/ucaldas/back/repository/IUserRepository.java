@@ -24,12 +24,14 @@ import edu.ucaldas.back.models.user.User;
  * <p>
  * Custom queries include finding users by ID or email only if they are active,
  * retrieving user details, and checking for the existence of active users by email.
+ * Lookups by email that should be served from the second-level cache go through
+ * {@link IUserRepositoryCustom#findActiveByEmail(String)}.
  * </p>
  *
  * @author juan-manoel
  */
 @Repository
-public interface IUserRepository extends JpaRepository<User, Long> {
+public interface IUserRepository extends JpaRepository<User, Long>, IUserRepositoryCustom {
     /**
      * Retrieves an active user by their unique identifier.
      *
@@ -0,0 +1,30 @@
+package edu.ucaldas.back.repository;
+
+import java.util.Optional;
+
+import edu.ucaldas.back.models.user.User;
+
+/**
+ * Custom repository fragment for {@link User} lookups that go through Hibernate's natural-id API.
+ * <p>
+ * Implemented by {@link IUserRepositoryCustomImpl} and exposed through {@link IUserRepository}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public interface IUserRepositoryCustom {
+
+    /**
+     * Retrieves an active user by their email address using the natural-id cache.
+     * <p>
+     * Unlike a JPQL query, this resolves the email to an id through the natural-id cache region
+     * and then loads the user from the entity cache region, so repeated lookups of the same user
+     * do not reach the database.
+     * </p>
+     *
+     * @param email the email address of the user to retrieve
+     * @return an {@link Optional} containing the {@link User} if found and active, or empty if not found or inactive
+     */
+    Optional<User> findActiveByEmail(String email);
+
+}
@@ -0,0 +1,31 @@
+package edu.ucaldas.back.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.models.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link IUserRepositoryCustom} backed by the Hibernate {@link Session}.
+ *
+ * @author juan-manoel
+ */
+public class IUserRepositoryCustomImpl implements IUserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findActiveByEmail(String email) {
+        User user = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .load(email);
+        return Optional.ofNullable(user).filter(User::isActive);
+    }
+
+}
@@ -2,6 +2,7 @@ package edu.ucaldas.back.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,11 +34,13 @@ public interface IUserReviewRepository extends IReviewRepository {
 
     /**
      * Retrieves a paginated list of active {@link UserReview} entities where the reviewed user's email matches the specified value.
+     * The writer of each review is fetched in the same query.
      *
      * @param email the email address of the user who was reviewed
      * @param page the pagination information
      * @return a page of active {@link UserReview} entities for the specified user
      */
+    @EntityGraph(attributePaths = "writer")
     @Query("SELECT ur FROM UserReview ur WHERE ur.userReviewed.email = :email AND ur.isActive = true")
     Page<UserReview> findByUserReviewedEmail(@Param("email") String email, Pageable page);
     
@@ -30,7 +30,8 @@ public class AutenticationService implements UserDetailsService {
     /**
      * Loads the user details for authentication based on the provided login (email).
      * This method retrieves a user from the repository whose email matches the given login
-     * and who is marked as active.
+     * and who is marked as active. The lookup goes through the natural-id cache, so it only
+     * reaches the database when the user is not cached yet.
      *
      * @param login the email of the user to be loaded
      * @return the UserDetails of the active user with the specified email
@@ -38,7 +39,8 @@ public class AutenticationService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-        return userRepository.findByEmailAndIsActiveTrue(login);
+        return userRepository.findActiveByEmail(login)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found or inactive"));
     }
 
 }
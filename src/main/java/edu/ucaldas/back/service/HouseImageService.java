@@ -1,22 +1,38 @@
 package edu.ucaldas.back.service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import edu.ucaldas.back.DTO.HouseImageSaveDTO;
+import edu.ucaldas.back.infra.async.AsyncConfiguration;
+import edu.ucaldas.back.infra.exception.FileTooLarge;
+import edu.ucaldas.back.infra.exception.InvalidFile;
+import edu.ucaldas.back.infra.exception.MissingData;
 import edu.ucaldas.back.infra.exception.SaveFileError;
 import edu.ucaldas.back.models.rent.HouseImage;
 import edu.ucaldas.back.models.rent.HouseImageData;
 import edu.ucaldas.back.repository.IHouseImageRepository;
 import edu.ucaldas.back.repository.IHouseRepository;
+import edu.ucaldas.back.service.image.ImageGarbageCollector;
+import edu.ucaldas.back.service.image.ImageStorage;
+import edu.ucaldas.back.service.image.ImageVariantService;
+import edu.ucaldas.back.service.image.StoredImage;
 import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
 
 
 /**
@@ -32,19 +48,24 @@ import jakarta.persistence.EntityNotFoundException;
  * <ul>
  *   <li>{@link IHouseImageRepository} for persisting image entities.</li>
  *   <li>{@link IHouseRepository} for retrieving and validating house entities.</li>
+ *   <li>{@link ImageStorage} for streaming the uploaded files to the configured
+ *   {@link edu.ucaldas.back.infra.storage.BlobStore} (local disk or S3).</li>
+ *   <li>{@link ImageVariantService} for generating the resized variants in the background.</li>
  * </ul>
  * </p>
  *
  * <p>
  * Main responsibilities:
  * <ul>
- *   <li>Validates uploaded files to ensure they are images.</li>
- *   <li>Generates unique filenames and stores files in the "uploads" directory.</li>
+ *   <li>Validates that the house exists before storing anything.</li>
+ *   <li>Stores the files of a multi-image upload in parallel and inserts their rows in one batch.</li>
+ *   <li>Stores the uploaded images through {@link ImageStorage}.</li>
  *   <li>Associates images with active house entities.</li>
  *   <li>Handles exceptions related to file operations and entity persistence.</li>
  * </ul>
  * </p>
  */
+@Slf4j
 @Service
 public class HouseImageService {
 
@@ -52,46 +73,204 @@ public class HouseImageService {
     private IHouseImageRepository houseImageRepository;
     @Autowired
     private IHouseRepository houseRepository;
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private ImageVariantService imageVariantService;
+    @Autowired
+    @Qualifier(AsyncConfiguration.UPLOAD_EXECUTOR)
+    private Executor imageUploadExecutor;
+
+    @Value("${app.images.batch.max-files:20}")
+    private int maxBatchFiles;
+
+    @Value("${app.images.gc.enabled:false}")
+    private boolean garbageCollected;
 
     /**
      * Saves an image file associated with a house.
      * <p>
-     * This method validates the uploaded file to ensure it is an image, generates a unique filename,
-     * stores the file in the "uploads" directory, and creates a new {@link HouseImage} entity linked to the specified house.
+     * The house is checked first, so a request for a missing or inactive house is rejected before any
+     * byte is written. The file is then streamed by {@link ImageStorage}, which detects the format
+     * from the content, enforces the size limit while writing and hands the file to the storage only once
+     * it is complete. Files are named by the SHA-256 of their content: uploading a photo that is
+     * already stored creates a new {@link HouseImage} row pointing to the existing file and reusing its
+     * variants. If the row cannot be saved and {@link ImageGarbageCollector} is enabled
+     * ({@code app.images.gc.enabled=true}), the file is left to it, which deletes it once it is older than
+     * its grace period and still unreferenced: deleting it here could race with a concurrent upload of
+     * the same content that has stored the file but not inserted its row yet. Without the collector
+     * nothing else would reclaim the file, so it is deleted on a best-effort basis when no row
+     * references its hash.
+     * </p>
+     * <p>
+     * The resized variants are generated afterwards by {@link ImageVariantService}, on its own thread
+     * pool; the response does not wait for them. If that pool is saturated the image is kept without
+     * variants.
      * </p>
      *
      * @param file the image file to be uploaded and saved
      * @param houseImageData data containing the house ID to associate the image with
      * @return a {@link HouseImageSaveDTO} containing the house ID and the saved file name
-     * @throws IOException if an I/O error occurs during file saving
-     * @throws IllegalArgumentException if the uploaded file is not an image
+     * @throws IOException if the uploaded file cannot be read
      * @throws EntityNotFoundException if the specified house does not exist or is not active
-     * @throws SaveFileError if any other error occurs while saving the image or entity
+     * @throws InvalidFile if the uploaded file is not a JPEG, PNG, GIF or WebP image
+     * @throws FileTooLarge if the uploaded file exceeds the maximum size
+     * @throws SaveFileError if the file or the image entity cannot be saved
      */
     public HouseImageSaveDTO saveHouseImage(MultipartFile file, HouseImageData houseImageData) throws IOException {
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IllegalArgumentException("Invalid file type. Only image files are allowed.");
+        var house = houseRepository.findActiveById(houseImageData.houseId())
+                .orElseThrow(() -> new EntityNotFoundException("House not found"));
+        StoredImage image = imageStorage.store(file.getInputStream());
+        HouseImage houseImage = new HouseImage(house, image.fileName(), image.contentHash(),
+                houseImageRepository.findNextPosition(house.getId()));
+        var duplicate = houseImageRepository.findFirstByContentHashAndThumbnailUrlIsNotNull(image.contentHash());
+        duplicate.ifPresent(existing -> {
+            houseImage.setThumbnailUrl(existing.getThumbnailUrl());
+            houseImage.setCardUrl(existing.getCardUrl());
+            houseImage.setFullUrl(existing.getFullUrl());
+        });
+        try {
+            houseImageRepository.save(houseImage);
+        } catch (RuntimeException e) {
+            deleteUnreferenced(List.of(image));
+            throw new SaveFileError("Error trying to save image", e);
+        }
+        if (duplicate.isEmpty()) {
+            try {
+                imageVariantService.generateVariants(houseImage.getId(), image);
+            } catch (TaskRejectedException e) {
+                log.warn("Image queue is full, {} will be served without variants", image.fileName());
+            }
+        }
+        return new HouseImageSaveDTO(house.getId(), image.fileName());
+    }
+
+    /**
+     * Saves several image files for the same house in one request.
+     * <p>
+     * The house is looked up once. The files are then stored in parallel on the bounded
+     * {@link AsyncConfiguration#UPLOAD_EXECUTOR} pool (on the request thread when that pool is full),
+     * and all their {@link HouseImage} rows are inserted with a single JDBC batch, after the existing
+     * images of the house and in the order the files were sent. The upload is all or
+     * nothing: if any file is invalid or cannot be stored, no row is inserted and the first error is
+     * thrown; the files already stored for the request are left to {@link ImageGarbageCollector}, or
+     * deleted as in {@link #saveHouseImage(MultipartFile, HouseImageData)} when it is disabled.
+     * Duplicates reuse existing variants as in {@link #saveHouseImage(MultipartFile, HouseImageData)};
+     * the others are resized in the background.
+     * </p>
+     *
+     * @param houseId the identifier of the house the images belong to
+     * @param files the image files, in the order they were sent
+     * @return one {@link HouseImageSaveDTO} per file, in the same order
+     * @throws MissingData if no file was sent
+     * @throws InvalidFile if more than {@code app.images.batch.max-files} files were sent, or one of them
+     *         is not a JPEG, PNG, GIF or WebP image
+     * @throws EntityNotFoundException if the specified house does not exist or is not active
+     * @throws FileTooLarge if one of the files exceeds the maximum size
+     * @throws SaveFileError if a file or the image rows cannot be saved
+     */
+    public List<HouseImageSaveDTO> saveHouseImages(long houseId, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new MissingData("At least one image is required");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new InvalidFile("At most " + maxBatchFiles + " images can be uploaded at once");
+        }
+        var house = houseRepository.findActiveById(houseId)
+                .orElseThrow(() -> new EntityNotFoundException("House not found"));
+
+        List<CompletableFuture<StoredImage>> uploads = files.stream().map(this::storeAsync).toList();
+        List<StoredImage> images = new ArrayList<>();
+        RuntimeException failure = null;
+        for (CompletableFuture<StoredImage> upload : uploads) {
+            try {
+                images.add(upload.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            deleteUnreferenced(images);
+            throw failure;
+        }
+
+        Map<String, HouseImage> withVariants = new HashMap<>();
+        houseImageRepository.findByContentHashInAndThumbnailUrlIsNotNull(
+                images.stream().map(StoredImage::contentHash).distinct().toList())
+                .forEach(existing -> withVariants.putIfAbsent(existing.getContentHash(), existing));
+        int position = houseImageRepository.findNextPosition(house.getId());
+        List<HouseImage> rows = new ArrayList<>();
+        for (StoredImage image : images) {
+            HouseImage houseImage = new HouseImage(house, image.fileName(), image.contentHash(), position++);
+            HouseImage existing = withVariants.get(image.contentHash());
+            if (existing != null) {
+                houseImage.setThumbnailUrl(existing.getThumbnailUrl());
+                houseImage.setCardUrl(existing.getCardUrl());
+                houseImage.setFullUrl(existing.getFullUrl());
+            }
+            rows.add(houseImage);
         }
         try {
-            String fileName = UUID.randomUUID() + "-" + file.getOriginalFilename();
-            // Ensure the uploads directory exists
-            Path uploadsDir = Paths.get("uploads");
-            if (!Files.exists(uploadsDir)) {
-                Files.createDirectories(uploadsDir);
+            houseImageRepository.insertAll(rows);
+        } catch (RuntimeException e) {
+            deleteUnreferenced(images);
+            throw new SaveFileError("Error trying to save images", e);
+        }
+
+        List<HouseImageSaveDTO> saved = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            HouseImage row = rows.get(i);
+            StoredImage image = images.get(i);
+            if (row.getThumbnailUrl() == null) {
+                try {
+                    imageVariantService.generateVariants(row.getId(), image);
+                } catch (TaskRejectedException e) {
+                    log.warn("Image queue is full, {} will be served without variants", image.fileName());
+                }
             }
-            Path path = Paths.get("uploads/" + fileName);
-            Files.copy(file.getInputStream(), path);
+            saved.add(new HouseImageSaveDTO(house.getId(), image.fileName()));
+        }
+        return saved;
+    }
 
-            var house = houseRepository.findByIdAndIsActiveTrue(houseImageData.houseId())
-                    .orElseThrow(() -> new EntityNotFoundException("House not found"));
-            HouseImage houseImage = new HouseImage(house, fileName);
-            houseImageRepository.save(houseImage);
-            HouseImageSaveDTO houseImageSaveDTO = new HouseImageSaveDTO(house.getId(), fileName);
-            return houseImageSaveDTO;
-        } catch (Exception e) {
-            throw new SaveFileError("Error trying to save image", e);
+    /**
+     * Stores an uploaded file on the upload pool, or on the calling thread if the pool is saturated.
+     */
+    private CompletableFuture<StoredImage> storeAsync(MultipartFile file) {
+        Supplier<StoredImage> store = () -> {
+            try {
+                return imageStorage.store(file.getInputStream());
+            } catch (IOException e) {
+                throw new SaveFileError("Error trying to read uploaded image", e);
+            }
+        };
+        try {
+            return CompletableFuture.supplyAsync(store, imageUploadExecutor);
+        } catch (TaskRejectedException e) {
+            try {
+                return CompletableFuture.completedFuture(store.get());
+            } catch (RuntimeException storeError) {
+                return CompletableFuture.failedFuture(storeError);
+            }
         }
+    }
 
+    /**
+     * Deletes the stored files of a failed upload that no {@link HouseImage} row references, unless
+     * {@link ImageGarbageCollector} is enabled to reclaim them safely.
+     */
+    private void deleteUnreferenced(List<StoredImage> images) {
+        if (garbageCollected) {
+            return;
+        }
+        Map<String, String> fileNames = new HashMap<>();
+        images.forEach(image -> fileNames.putIfAbsent(image.contentHash(), image.fileName()));
+        fileNames.forEach((contentHash, fileName) -> {
+            if (houseImageRepository.countByContentHash(contentHash) == 0) {
+                imageStorage.delete(fileName);
+            }
+        });
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.ucaldas.back.DTO.ReviewDTO;
 import edu.ucaldas.back.models.review.HouseReview;
@@ -15,7 +16,6 @@ import edu.ucaldas.back.repository.IHouseRepository;
 import edu.ucaldas.back.repository.IHouseReviewRepository;
 import edu.ucaldas.back.service.validations.ValidationsHouse;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 /**
  * Service class responsible for managing house reviews.
@@ -66,6 +66,7 @@ public class HouseReviewService {
      * @return a {@link Page} of {@link ReviewDTO} objects containing review details for the specified house
      * @throws EntityNotFoundException if the house with the given ID does not exist
      */
+    @Transactional(readOnly = true)
     public Page<ReviewDTO> getReviewsHouse(Long id, Pageable page) {
         if (!validationsHouse.existsHouse(id)) {
             throw new EntityNotFoundException("Invalid house ID");
@@ -96,7 +97,7 @@ public class HouseReviewService {
         }
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User writer = (User) authentication.getPrincipal();  
-        var houseReviewed = houseRepository.findByIdAndIsActiveTrue(houseReviewData.houseId()).get();
+        var houseReviewed = houseRepository.findActiveById(houseReviewData.houseId()).get();
         HouseReview houseReview = new HouseReview(houseReviewData, writer, houseReviewed);
         houseReviewed.addStars(houseReview.getStars());
         houseReviewRepository.save(houseReview);
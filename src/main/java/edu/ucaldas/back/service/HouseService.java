@@ -1,13 +1,19 @@
 package edu.ucaldas.back.service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.ucaldas.back.DTO.HouseGetDTO;
+import edu.ucaldas.back.DTO.HouseImageDTO;
 import edu.ucaldas.back.DTO.HouseSaveDTO;
 import edu.ucaldas.back.DTO.HouseUpdateDTO;
 import edu.ucaldas.back.infra.exception.EntityAlredyExists;
@@ -17,11 +23,11 @@ import edu.ucaldas.back.models.rent.AddressData;
 import edu.ucaldas.back.models.rent.House;
 import edu.ucaldas.back.models.rent.HouseData;
 import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IHouseImageRepository;
 import edu.ucaldas.back.repository.IHouseRepository;
 import edu.ucaldas.back.service.validations.ValidationsHouse;
 import edu.ucaldas.back.service.validations.ValidationsRent;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 /**
  * Service class for managing house-related operations.
@@ -60,6 +66,8 @@ public class HouseService {
     @Autowired
     private IHouseRepository houseRepository;
     @Autowired
+    private IHouseImageRepository houseImageRepository;
+    @Autowired
     private ValidationsHouse validationsHouse;
     @Autowired
     private ValidationsRent validationsRent;
@@ -79,6 +87,7 @@ public class HouseService {
      * @throws EntityAlredyExists if a house with the given address already exists
      * @return the updated house data as a {@link HouseSaveDTO}
      */
+    @Transactional
     public HouseSaveDTO saveHouse(HouseData house) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User owner = (User) authentication.getPrincipal();
@@ -110,30 +119,53 @@ public class HouseService {
     /**
      * Retrieves a paginated list of available and active houses, mapping each house entity
      * to a {@link HouseGetDTO} object.
+     * <p>
+     * The images of every house of the page are loaded with one additional query
+     * ({@link IHouseImageRepository#findActiveByHouseIdIn}), whatever the page size.
+     * </p>
      *
      * @param page the pagination information
-     * @return a {@link Page} of {@link HouseGetDTO} containing house details
+     * @return a {@link Page} of {@link HouseGetDTO} containing house details and images
      */
+    @Transactional(readOnly = true)
     public Page<HouseGetDTO> getHouses(Pageable page) {
         var houses = houseRepository.findAllAvailableAndActiveHouses(page);
-        return houses.map(house -> new HouseGetDTO(convertToAddressData(house), house.getDescription(),
-                house.getOwner().getEmail(), house.getOwner().getName(), house.getStars(), house.getId()));
+        if (houses.isEmpty()) {
+            return houses.map(house -> toHouseGetDTO(house, List.of()));
+        }
+        Map<Long, List<HouseImageDTO>> images = houseImageRepository
+                .findActiveByHouseIdIn(houses.map(House::getId).toList()).stream()
+                .collect(Collectors.groupingBy(HouseImageDTO::houseId));
+        return houses.map(house -> toHouseGetDTO(house, images.getOrDefault(house.getId(), List.of())));
+    }
+
+    /**
+     * Builds the {@link HouseGetDTO} of a house whose owner is loaded.
+     *
+     * @param house the house
+     * @param images the active images of the house, in order
+     * @return the DTO of the house
+     */
+    private HouseGetDTO toHouseGetDTO(House house, List<HouseImageDTO> images) {
+        return new HouseGetDTO(convertToAddressData(house), house.getDescription(), house.getOwner().getEmail(),
+                house.getOwner().getName(), house.getStars(), house.getId(), images);
     }
 
     /**
      * Retrieves a house by its ID and returns its details as a HouseGetDTO.
      *
      * @param id the unique identifier of the house to retrieve
-     * @return a HouseGetDTO containing the house's address, description, owner's email and name, stars, and ID
+     * @return a HouseGetDTO containing the house's address, description, owner's email and name, stars, ID
+     *         and images
      * @throws EntityNotFoundException if the house with the given ID does not exist or is not active
      */
+    @Transactional(readOnly = true)
     public HouseGetDTO getHouse(Long id) {
         if (!validationsHouse.existsHouse(id)) {
             throw new EntityNotFoundException("Invalid house ID");
         }
-        var house = houseRepository.findByIdAndIsActiveTrue(id).get();
-        return new HouseGetDTO(convertToAddressData(house), house.getDescription(), house.getOwner().getEmail(),
-                house.getOwner().getName(), house.getStars(), house.getId());
+        var house = houseRepository.findWithOwnerByIdAndIsActiveTrue(id).get();
+        return toHouseGetDTO(house, houseImageRepository.findActiveByHouseIdIn(List.of(house.getId())));
     }
 
     /**
@@ -162,7 +194,7 @@ public class HouseService {
         if (!validationsHouse.existsHouse(id)) {
             throw new EntityNotFoundException("Invalid house ID");
         }
-        var house = houseRepository.findByIdAndIsActiveTrue(id).get();
+        var house = houseRepository.findWithOwnerByIdAndIsActiveTrue(id).get();
         if (!house.getAddress().equals(new Address(houseUpdate.addressData()))
                 && validationsHouse.existsAddress(houseUpdate.addressData())) {
             throw new EntityAlredyExists("Address already exists");
@@ -190,7 +222,7 @@ public class HouseService {
         if (!validationsHouse.existsHouse(id)) {
             throw new EntityNotFoundException("Invalid house ID");
         }
-        var house = houseRepository.findByIdAndIsActiveTrue(id).get();
+        var house = houseRepository.findWithOwnerByIdAndIsActiveTrue(id).get();
         if (!house.getOwner().getEmail().equals(user.getEmail())) {
             throw new NotPermited("You are not the owner of this house");
         }
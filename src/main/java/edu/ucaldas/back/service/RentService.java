@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.ucaldas.back.DTO.RentAcceptDTO;
 import edu.ucaldas.back.DTO.RentDTO;
@@ -20,7 +21,6 @@ import edu.ucaldas.back.service.validations.ValidationsHouse;
 import edu.ucaldas.back.service.validations.ValidationsRent;
 import edu.ucaldas.back.service.validations.ValidationsUser;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 /**
  * Service class for managing rental operations in the application.
@@ -90,16 +90,16 @@ public class RentService {
      * @throws EntityNotFoundException if the house or user does not exist
      * @throws NotPermited if the user tries to rent their own house or already has an active rent
      */
+    @Transactional
     public RentDTO createRent(RentData rentData) {
-        System.out.println(rentData);
         if(!validationsHouse.existsHouse(rentData.houseId())){
             throw new EntityNotFoundException("La casa no existe");
         }
         if(!validationsUser.existsUser(rentData.locator())){
             throw new EntityNotFoundException("El usuario no existe");
         }
-        var house = houseRepository.findByIdAndIsActiveTrue(rentData.houseId()).get();
-        var locator = userRepository.getUser(rentData.locator()).get();
+        var house = houseRepository.findWithOwnerByIdAndIsActiveTrue(rentData.houseId()).get();
+        var locator = userRepository.findActiveByEmail(rentData.locator()).get();
         if(house.getOwner().getEmail().equals(locator.getEmail())){
             throw new NotPermited("No puedes alquilar tu propia casa");
         }
@@ -121,6 +121,7 @@ public class RentService {
      * @param page the pagination information
      * @return a {@link Page} of {@link RentDTO} representing the active rents for the locator
      */
+    @Transactional(readOnly = true)
     public Page<RentDTO> getRentsLocator(Pageable page){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User user = (User) authentication.getPrincipal();
@@ -137,6 +138,7 @@ public class RentService {
      * @param page the pagination information
      * @return a {@link Page} of {@link RentDTO} representing the active rents for the house owner
      */
+    @Transactional(readOnly = true)
     public Page<RentDTO> getRentsOwener(Pageable page){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User user = (User) authentication.getPrincipal();
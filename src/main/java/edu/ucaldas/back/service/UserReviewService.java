@@ -6,6 +6,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.ucaldas.back.DTO.ReviewDTO;
 import edu.ucaldas.back.infra.exception.NotPermited;
@@ -16,7 +17,6 @@ import edu.ucaldas.back.repository.IUserRepository;
 import edu.ucaldas.back.repository.IUserReviewRepository;
 import edu.ucaldas.back.service.validations.ValidationsUser;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 /**
  * Service class for managing user reviews.
@@ -52,6 +52,7 @@ public class UserReviewService {
      * @return a {@link Page} of {@link ReviewDTO} containing the user's reviews
      * @throws EntityNotFoundException if the provided email does not correspond to an existing user
      */
+    @Transactional(readOnly = true)
     public Page<ReviewDTO> getUserReviews(String email, Pageable page) {
         if (!validationsUser.existsUser(email)) {
             throw new EntityNotFoundException("Invalid email format");
@@ -87,7 +88,7 @@ public class UserReviewService {
         if(writer.getEmail().equals(userReviewData.userReviewed())){
             throw new NotPermited("You cannot review yourself");
         }
-        var userReviewed = userRepository.getUser(userReviewData.userReviewed()).get();
+        var userReviewed = userRepository.findActiveByEmail(userReviewData.userReviewed()).get();
         var userReview = new UserReview(userReviewData, writer, userReviewed);
         userReviewed.addStars(userReview.getStars());
         userReviewRepository.save(userReview);
@@ -5,6 +5,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import edu.ucaldas.back.DTO.UserGetTDO;
 import edu.ucaldas.back.DTO.UserUpdateDTO;
@@ -18,7 +20,6 @@ import edu.ucaldas.back.service.validations.ValidationsHouse;
 import edu.ucaldas.back.service.validations.ValidationsRent;
 import edu.ucaldas.back.service.validations.ValidationsUser;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 /**
  * Service class for managing user-related operations such as registration, retrieval,
@@ -55,6 +56,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Saves a new user to the repository after validating that the email does not already exist.
      * If a user with the given email already exists, an EntityAlredyExists exception is thrown.
@@ -79,11 +83,12 @@ public class UserService {
      * @return a {@link UserGetTDO} object containing the user's name, email, stars, and user type
      * @throws EntityNotFoundException if no user exists with the provided email
      */
+    @Transactional(readOnly = true)
     public UserGetTDO getUser(String email) {
         if (!validationsUser.existsUser(email)) {
             throw new EntityNotFoundException("User not found");
         }
-        User user = userRepository.getUser(email).get();
+        User user = userRepository.findActiveByEmail(email).get();
         UserGetTDO userGetTDO = new UserGetTDO(user.getName(), user.getEmail(), user.getStars(), user.getTypeUser());
         return userGetTDO;
     }
@@ -106,10 +111,11 @@ public class UserService {
     @Transactional
     public UserUpdateDTO updateUser(UserUpdateDTO userUpdateDTO) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = (User) authentication.getPrincipal();
-        if (!user.getEmail().equals(userUpdateDTO.newEmail()) && validationsUser.existsUser(userUpdateDTO.newEmail())) {
+        User login = (User) authentication.getPrincipal();
+        if (!login.getEmail().equals(userUpdateDTO.newEmail()) && validationsUser.existsUser(userUpdateDTO.newEmail())) {
             throw new EntityAlredyExists("Email already exists");
         }
+        User user = userRepository.findById(login.getId()).get();
         user.updateUser(userUpdateDTO);
         return userUpdateDTO;
     }
@@ -121,19 +127,26 @@ public class UserService {
      * If the old password is correct, it encodes and updates the user's password with the new one.
      * If the old password does not match, an {@link EntityNotFoundException} is thrown.
      * </p>
+     * <p>
+     * Not transactional on purpose: both BCrypt operations run before a connection is taken.
+     * The new hash is then set on the user loaded by ID in a short transaction, so only the password
+     * column is written: saving the principal, loaded when the request started, would revert changes
+     * made to the user since then.
+     * </p>
      *
      * @param userUpdatePasswordDTO Data transfer object containing the old and new passwords.
      * @throws EntityNotFoundException if the old password is incorrect.
      */
-    @Transactional
     public void updateUserPassword(UserUpdatePasswordDTO userUpdatePasswordDTO) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = (User) authentication.getPrincipal();
-        if (!passwordEncoder.matches(userUpdatePasswordDTO.password(), user.getPassword())) {
+        User login = (User) authentication.getPrincipal();
+        if (!passwordEncoder.matches(userUpdatePasswordDTO.password(), login.getPassword())) {
             throw new EntityNotFoundException("Old password is incorrect");
         }
-        user.setPassword(passwordEncoder.encode(userUpdatePasswordDTO.newPassword()));
-        userRepository.save(user);
+        String password = passwordEncoder.encode(userUpdatePasswordDTO.newPassword());
+        transactionTemplate.executeWithoutResult(status -> userRepository.findById(login.getId())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"))
+                .setPassword(password));
     }
 
     /**
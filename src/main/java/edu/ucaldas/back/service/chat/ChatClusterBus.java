@@ -0,0 +1,403 @@
+package edu.ucaldas.back.service.chat;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carries the chat events (messages, read receipts, typing) between the instances of the application,
+ * enabled with {@code app.chat.cluster.enabled=true}.
+ * <p>
+ * {@link ChatNotifier} pushes an event to the sessions of this instance and hands it to this bus,
+ * which publishes it with {@code NOTIFY} on the {@value #CHANNEL} channel of the PostgreSQL database
+ * of {@code spring.datasource.*}. Every instance {@code LISTEN}s on that channel and pushes the
+ * events published by the others to the recipients connected to it; users without a session on
+ * the instance are skipped. The same channel carries the presence of the users of each instance
+ * ({@link ChatPresence}), so every instance knows who is online on the others.
+ * </p>
+ * <p>
+ * Publishing is done by a background thread: the events are batched ({@code batch-size} events
+ * or {@code flush-interval} after the first one), packed in as few notifications as fit the payload
+ * limit of PostgreSQL, and sent with a single statement. The queue holds at most {@code capacity}
+ * events; when it is full, or the database is unreachable, events reach only the sessions of
+ * their own instance, and the clients of the others get them by asking for what they missed
+ * ({@code GET /chat/{id}/messages?after=}).
+ * </p>
+ * <p>
+ * Both the listening and the publishing connections are opened directly, outside the connection
+ * pool, since they are held for the life of the application.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.chat.cluster.enabled", havingValue = "true")
+public class ChatClusterBus {
+
+    /**
+     * The PostgreSQL channel of the chat events.
+     */
+    static final String CHANNEL = "chat_messages";
+
+    /**
+     * The largest notification payload sent, in bytes; PostgreSQL rejects payloads of 8000 bytes.
+     */
+    static final int MAX_PAYLOAD = 7900;
+
+    /**
+     * The destination of the events that carry a {@link ChatPresence.Report} instead of something to
+     * push: they are handed to {@link ChatPresence}.
+     */
+    static final String PRESENCE = "presence";
+
+    private static final long POLL_MILLIS = 500;
+
+    /**
+     * An event and where it is pushed.
+     *
+     * @param recipients the emails of the users
+     * @param destination the queue, relative to {@code /user}
+     * @param coalesceKey the key of the events it supersedes, or {@code null}
+     * @param payload the event
+     */
+    record Event(List<String> recipients, String destination, String coalesceKey, JsonNode payload) {
+    }
+
+    /**
+     * The payload of a notification: events published by one instance.
+     */
+    record Batch(String node, List<Event> events) {
+    }
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SimpUserRegistry userRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<ChatPresence> chatPresence;
+
+    @Value("${app.chat.cluster.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.chat.cluster.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.chat.cluster.flush-interval:10ms}")
+    private Duration flushInterval;
+
+    @Value("${app.chat.cluster.retry-delay:1s}")
+    private Duration retryDelay;
+
+    private final String node = UUID.randomUUID().toString();
+    private ArrayBlockingQueue<Event> queue;
+    private Connection listenConnection;
+    private Thread publisher;
+    private Thread listener;
+    private volatile boolean running;
+
+    /**
+     * Starts listening on the channel and starts the publishing thread.
+     *
+     * @throws SQLException if the database cannot be reached
+     */
+    @PostConstruct
+    void start() throws SQLException {
+        queue = new ArrayBlockingQueue<>(capacity);
+        listenConnection = listen();
+        running = true;
+        publisher = new Thread(this::publishLoop, "chat-cluster-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+        listener = new Thread(this::listenLoop, "chat-cluster-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Publishes an event to the other instances. Does not wait: the event is queued, or dropped with a
+     * warning when the queue is full.
+     *
+     * @param recipients the emails of the users, i.e. the names of their principals
+     * @param destination the queue, relative to {@code /user}
+     * @param payload the event
+     * @param coalesceKey the key of the events it supersedes, or {@code null}
+     */
+    public void publish(Collection<String> recipients, String destination, Object payload, String coalesceKey) {
+        Event event = new Event(List.copyOf(recipients), destination, coalesceKey, objectMapper.valueToTree(payload));
+        if (!queue.offer(event)) {
+            log.warn("Chat cluster queue is full, event for {} is only pushed by this instance", destination);
+        }
+    }
+
+    /**
+     * Publishes a change of presence of the users of this instance to the others, the same way as
+     * {@link #publish(Collection, String, Object, String)}.
+     *
+     * @param report the users that came online or went offline
+     */
+    public void publishPresence(ChatPresence.Report report) {
+        publish(List.of(), PRESENCE, report, null);
+    }
+
+    /**
+     * Stops listening, publishes the events in the queue and closes the connections.
+     *
+     * @throws InterruptedException if interrupted while waiting for the background threads
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        publisher.join(Math.max(5_000, retryDelay.toMillis() * 2));
+        publisher.interrupt();
+        publisher.join();
+        listener.join();
+    }
+
+    /**
+     * Packs events in notification payloads of at most {@value #MAX_PAYLOAD} bytes, in order. An event
+     * too large for a payload on its own is dropped with a warning.
+     *
+     * @param events the events
+     * @return the payloads
+     */
+    List<String> payloads(List<Event> events) {
+        String prefix = "{\"node\":\"" + node + "\",\"events\":[";
+        String suffix = "]}";
+        int empty = prefix.length() + suffix.length();
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(MAX_PAYLOAD).append(prefix);
+        int size = empty;
+        int count = 0;
+        for (Event event : events) {
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                log.error("Could not write event for {} for the chat cluster channel", event.destination(), e);
+                continue;
+            }
+            int length = json.getBytes(StandardCharsets.UTF_8).length;
+            if (empty + length > MAX_PAYLOAD) {
+                log.warn("Event for {} is too large for the chat cluster channel, only pushed by this instance",
+                        event.destination());
+                continue;
+            }
+            if (count > 0 && size + 1 + length > MAX_PAYLOAD) {
+                payloads.add(payload.append(suffix).toString());
+                payload.setLength(0);
+                payload.append(prefix);
+                size = empty;
+                count = 0;
+            }
+            if (count > 0) {
+                payload.append(',');
+                size++;
+            }
+            payload.append(json);
+            size += length;
+            count++;
+        }
+        if (count > 0) {
+            payloads.add(payload.append(suffix).toString());
+        }
+        return payloads;
+    }
+
+    /**
+     * Pushes the events of a notification to the recipients connected to this instance, and hands the
+     * changes of presence to {@link ChatPresence}, unless it was published by this instance.
+     *
+     * @param payload the payload of the notification
+     */
+    void receive(String payload) {
+        Batch batch;
+        try {
+            batch = objectMapper.readValue(payload, Batch.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable notification on {}", CHANNEL, e);
+            return;
+        }
+        if (node.equals(batch.node())) {
+            return;
+        }
+        for (Event event : batch.events()) {
+            if (PRESENCE.equals(event.destination())) {
+                presence(batch.node(), event.payload());
+                continue;
+            }
+            List<String> connected = event.recipients().stream()
+                    .filter(recipient -> userRegistry.getUser(recipient) != null)
+                    .toList();
+            ChatNotifier.deliver(messagingTemplate, connected, event.destination(), event.payload(),
+                    event.coalesceKey());
+        }
+    }
+
+    private void presence(String node, JsonNode payload) {
+        ChatPresence presence = chatPresence.getIfAvailable();
+        if (presence == null) {
+            return;
+        }
+        try {
+            presence.report(node, objectMapper.treeToValue(payload, ChatPresence.Report.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable presence report on {}", CHANNEL, e);
+        }
+    }
+
+    private void listenLoop() {
+        Connection connection = listenConnection;
+        try {
+            while (running) {
+                try {
+                    if (connection == null) {
+                        connection = listen();
+                    }
+                    PGNotification[] notifications = connection.unwrap(PGConnection.class)
+                            .getNotifications((int) POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                } catch (SQLException e) {
+                    close(connection);
+                    connection = null;
+                    log.warn("Lost the chat cluster channel, listening again in {}; events published "
+                            + "meanwhile are not pushed by this instance", retryDelay, e);
+                    Thread.sleep(retryDelay.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(connection);
+        }
+    }
+
+    private void publishLoop() {
+        Connection connection = null;
+        List<Event> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Event first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Event next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                List<String> payloads = payloads(batch);
+                while (!payloads.isEmpty()) {
+                    try {
+                        if (connection == null) {
+                            connection = connect();
+                        }
+                        notify(connection, payloads);
+                        break;
+                    } catch (SQLException e) {
+                        close(connection);
+                        connection = null;
+                        if (!running) {
+                            log.warn("Could not publish {} chat events to the cluster", batch.size(), e);
+                            break;
+                        }
+                        log.warn("Could not publish {} chat events to the cluster, retrying in {}",
+                                batch.size(), retryDelay, e);
+                        Thread.sleep(retryDelay.toMillis());
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(connection);
+        }
+    }
+
+    private void notify(Connection connection, List<String> payloads) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload")) {
+            statement.setString(1, CHANNEL);
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+            statement.execute();
+        }
+    }
+
+    private Connection listen() throws SQLException {
+        Connection connection = connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        } catch (SQLException e) {
+            close(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not close chat cluster connection", e);
+        }
+    }
+
+}
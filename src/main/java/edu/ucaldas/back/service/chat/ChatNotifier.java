@@ -0,0 +1,144 @@
+package edu.ucaldas.back.service.chat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ucaldas.back.DTO.ChatMessageDTO;
+import edu.ucaldas.back.DTO.ChatReadReceiptDTO;
+import edu.ucaldas.back.DTO.ChatTypingDTO;
+import edu.ucaldas.back.infra.websocket.OutboundSessionQueues;
+
+/**
+ * Pushes chat events to the WebSocket sessions of their participants.
+ * <p>
+ * Every session of a user receives the messages of all their chats on {@code /user/queue/messages}
+ * (one subscription per connection, not one per chat), the read receipts of the other participants
+ * on {@code /user/queue/read} and their typing events on {@code /user/queue/typing}. Events are pushed
+ * after the transaction that saved them commits, so a client never receives a message that is then
+ * rolled back, and a client that reloads the history right after the push finds it.
+ * </p>
+ * <p>
+ * Read receipts and typing events carry a {@value OutboundSessionQueues#COALESCE_HEADER} header: a
+ * slow session that has not received one yet gets only the newest of each chat and user.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class ChatNotifier {
+
+    /**
+     * The queue, relative to {@code /user}, where the messages of every chat are delivered.
+     */
+    public static final String MESSAGES_QUEUE = "/queue/messages";
+
+    /**
+     * The queue, relative to {@code /user}, where the read receipts of every chat are delivered.
+     */
+    public static final String READ_QUEUE = "/queue/read";
+
+    /**
+     * The queue, relative to {@code /user}, where the typing events of every chat are delivered.
+     */
+    public static final String TYPING_QUEUE = "/queue/typing";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired(required = false)
+    private ChatClusterBus clusterBus;
+
+    /**
+     * Delivers a message to the given users, once the current transaction commits (or right away
+     * when there is none). With {@link ChatClusterBus}, the sessions on the other instances receive it
+     * too.
+     *
+     * @param recipients the emails of the users, i.e. the names of their principals
+     * @param message the message to deliver
+     */
+    public void messageSent(Collection<String> recipients, ChatMessageDTO message) {
+        afterCommit(() -> push(recipients, MESSAGES_QUEUE, message, null));
+    }
+
+    /**
+     * Tells the other participant of a chat that the messages up to a given one were read, once the
+     * current transaction commits.
+     *
+     * @param recipient the email of the other participant
+     * @param receipt the chat, the reader and the last message read
+     */
+    public void messagesRead(String recipient, ChatReadReceiptDTO receipt) {
+        afterCommit(() -> push(List.of(recipient), READ_QUEUE, receipt,
+                "read-" + receipt.chatId() + "-" + receipt.readerId()));
+    }
+
+    /**
+     * Tells the other participant of a chat that a user is typing.
+     *
+     * @param recipient the email of the other participant
+     * @param typing the chat and the user who is typing
+     */
+    public void typing(String recipient, ChatTypingDTO typing) {
+        afterCommit(() -> push(List.of(recipient), TYPING_QUEUE, typing,
+                "typing-" + typing.chatId() + "-" + typing.userId()));
+    }
+
+    /**
+     * Sends an event to the sessions of the given users on this instance and, with
+     * {@link ChatClusterBus}, on the others.
+     *
+     * @param recipients the emails of the users
+     * @param destination the queue, relative to {@code /user}
+     * @param payload the event
+     * @param coalesceKey the key of the events it supersedes, or {@code null}
+     */
+    void push(Collection<String> recipients, String destination, Object payload, String coalesceKey) {
+        deliver(messagingTemplate, recipients, destination, payload, coalesceKey);
+        if (clusterBus != null) {
+            clusterBus.publish(recipients, destination, payload, coalesceKey);
+        }
+    }
+
+    /**
+     * Sends an event to the sessions of the given users on this instance.
+     *
+     * @param messagingTemplate the template of the in-process broker
+     * @param recipients the emails of the users
+     * @param destination the queue, relative to {@code /user}
+     * @param payload the event
+     * @param coalesceKey the key of the events it supersedes, or {@code null}
+     */
+    static void deliver(SimpMessagingTemplate messagingTemplate, Collection<String> recipients,
+            String destination, Object payload, String coalesceKey) {
+        Map<String, Object> headers = coalesceKey == null ? null
+                : Map.of(OutboundSessionQueues.COALESCE_HEADER, coalesceKey);
+        for (String recipient : recipients) {
+            if (headers == null) {
+                messagingTemplate.convertAndSendToUser(recipient, destination, payload);
+            } else {
+                messagingTemplate.convertAndSendToUser(recipient, destination, payload, headers);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,356 @@
+package edu.ucaldas.back.service.chat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.DTO.UserPresenceDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Knows which users are connected to the chat of this instance and when each was last seen.
+ * <p>
+ * The state lives in memory, split in stripes by user, each with its own lock: opening or closing a
+ * WebSocket session, and every frame or heart-beat the client sends, only touch the stripe of its
+ * user. A user is online while they have at least one session.
+ * </p>
+ * <p>
+ * Only the transitions (first session opened, last session closed) are written to
+ * {@code users.last_seen}, and not right away: they are collected, the newest per user, and written
+ * every {@code app.chat.presence.flush-interval} in one JDBC batch. Heart-beats never reach the
+ * database. Once its offline transition is written, a user is forgotten, and their last-seen time is
+ * read from {@code users} again. Users still online when the application stops are written as seen at
+ * that moment; after a crash, their last-seen time is when they connected.
+ * </p>
+ * <p>
+ * With {@link ChatClusterBus} enabled, the instances tell each other about their users: every first
+ * session opened and last session closed is published as it happens, and every
+ * {@code app.chat.presence.cluster-interval} each instance publishes all the users online on it. What
+ * the others report is kept apart from the local sessions; a user stays online on another instance
+ * until it reports them offline or stops reporting them for three intervals (it stopped, crashed, or
+ * its report was lost), so a user is online while any instance has a session of theirs.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+public class ChatPresence {
+
+    private static final int STRIPES = 64;
+
+    /**
+     * The most users in one report, so that it fits a notification of {@link ChatClusterBus}.
+     */
+    private static final int REPORT_SIZE = 300;
+
+    /**
+     * A change of presence published to the other instances.
+     *
+     * @param online the users that have a session on the publishing instance
+     * @param offline the users whose last session on the publishing instance closed
+     * @param at when the publishing instance last saw them
+     */
+    record Report(List<Long> online, List<Long> offline, LocalDateTime at) {
+    }
+
+    /**
+     * The sessions of a user and when they were last seen.
+     */
+    private static final class Presence {
+        private final Set<String> sessions = new HashSet<>(2);
+        private LocalDateTime lastSeen;
+    }
+
+    /**
+     * What the other instances reported about a user.
+     *
+     * @param nodes the instances where the user is online, with when each last reported it
+     *        ({@link System#nanoTime()})
+     * @param lastSeen the latest time an instance saw the user
+     * @param reported when the last report about the user arrived ({@link System#nanoTime()})
+     */
+    private record Remote(Map<String, Long> nodes, LocalDateTime lastSeen, long reported) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectProvider<ChatClusterBus> clusterBus;
+
+    @Value("${app.chat.presence.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.chat.presence.cluster-interval:PT10S}")
+    private Duration clusterInterval;
+
+    @SuppressWarnings("unchecked")
+    private final Map<Long, Presence>[] stripes = new Map[STRIPES];
+    private final Map<Long, LocalDateTime> transitions = new ConcurrentHashMap<>();
+    private final Map<Long, Remote> remote = new ConcurrentHashMap<>();
+
+    public ChatPresence() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Records a new session of a user. Does nothing if the session is already known.
+     *
+     * @param userId the ID of the user
+     * @param sessionId the ID of the WebSocket session
+     */
+    public void connected(long userId, String sessionId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Presence> stripe = stripe(userId);
+        synchronized (stripe) {
+            Presence presence = stripe.computeIfAbsent(userId, id -> new Presence());
+            presence.lastSeen = now;
+            if (!presence.sessions.add(sessionId) || presence.sessions.size() > 1) {
+                return;
+            }
+            transitions.put(userId, now);
+        }
+        publish(new Report(List.of(userId), List.of(), now));
+    }
+
+    /**
+     * Records the end of a session of a user. Does nothing if the session is not known, since Spring
+     * may report the same disconnection twice.
+     *
+     * @param userId the ID of the user
+     * @param sessionId the ID of the WebSocket session
+     */
+    public void disconnected(long userId, String sessionId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Presence> stripe = stripe(userId);
+        synchronized (stripe) {
+            Presence presence = stripe.get(userId);
+            if (presence == null || !presence.sessions.remove(sessionId)) {
+                return;
+            }
+            presence.lastSeen = now;
+            if (!presence.sessions.isEmpty()) {
+                return;
+            }
+            transitions.put(userId, now);
+        }
+        publish(new Report(List.of(), List.of(userId), now));
+    }
+
+    /**
+     * Records that a connected user sent something (a frame or a heart-beat).
+     *
+     * @param userId the ID of the user
+     */
+    public void seen(long userId) {
+        Map<Long, Presence> stripe = stripe(userId);
+        synchronized (stripe) {
+            Presence presence = stripe.get(userId);
+            if (presence != null && !presence.sessions.isEmpty()) {
+                presence.lastSeen = LocalDateTime.now();
+            }
+        }
+    }
+
+    /**
+     * Returns the presence of the given users that this instance knows: those online here or on
+     * another instance, and those gone offline whose last-seen time may not be written yet. Reads only
+     * memory.
+     *
+     * @param userIds the IDs of the users
+     * @return the presence of the known users, by ID
+     */
+    public Map<Long, UserPresenceDTO> find(Collection<Long> userIds) {
+        Map<Long, UserPresenceDTO> found = new HashMap<>();
+        for (Long userId : userIds) {
+            boolean online = false;
+            LocalDateTime lastSeen = null;
+            Map<Long, Presence> stripe = stripe(userId);
+            synchronized (stripe) {
+                Presence presence = stripe.get(userId);
+                if (presence != null) {
+                    online = !presence.sessions.isEmpty();
+                    lastSeen = presence.lastSeen;
+                }
+            }
+            Remote other = remote.get(userId);
+            if (other != null) {
+                online |= !other.nodes().isEmpty();
+                lastSeen = latest(lastSeen, other.lastSeen());
+            }
+            if (lastSeen != null) {
+                found.put(userId, new UserPresenceDTO(userId, online, lastSeen));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Records what another instance reported about its users.
+     *
+     * @param node the identifier of the instance
+     * @param report the users that came online or went offline on it
+     */
+    void report(String node, Report report) {
+        long now = System.nanoTime();
+        report.online().forEach(userId -> remote.compute(userId,
+                (id, known) -> reported(known, node, true, report.at(), now)));
+        report.offline().forEach(userId -> remote.compute(userId,
+                (id, known) -> reported(known, node, false, report.at(), now)));
+    }
+
+    /**
+     * Publishes the users online on this instance to the others, and forgets what the others have not
+     * confirmed for three intervals. Does nothing without {@link ChatClusterBus}.
+     */
+    @Scheduled(initialDelayString = "${app.chat.presence.cluster-interval:PT10S}",
+            fixedDelayString = "${app.chat.presence.cluster-interval:PT10S}")
+    public void announce() {
+        if (clusterBus.getIfAvailable() == null) {
+            return;
+        }
+        List<Long> online = online();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < online.size(); from += REPORT_SIZE) {
+            publish(new Report(online.subList(from, Math.min(from + REPORT_SIZE, online.size())), List.of(), now));
+        }
+        expire(System.nanoTime());
+    }
+
+    /**
+     * Forgets the instances that have not reported a user for three intervals, and the users no
+     * instance has reported for that long.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    void expire(long now) {
+        long timeout = clusterInterval.toNanos() * 3;
+        for (Long userId : remote.keySet()) {
+            remote.computeIfPresent(userId, (id, known) -> {
+                Map<String, Long> nodes = new HashMap<>(known.nodes());
+                nodes.values().removeIf(reported -> now - reported > timeout);
+                if (nodes.isEmpty() && now - known.reported() > timeout) {
+                    return null;
+                }
+                return new Remote(Map.copyOf(nodes), known.lastSeen(), known.reported());
+            });
+        }
+    }
+
+    /**
+     * Writes the transitions collected since the last call to {@code users.last_seen} in one batch,
+     * and forgets the users whose offline transition was written. On failure the transitions are kept
+     * for the next call.
+     */
+    @Scheduled(initialDelayString = "${app.chat.presence.flush-interval:PT5S}",
+            fixedDelayString = "${app.chat.presence.flush-interval:PT5S}")
+    public void flush() {
+        if (transitions.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(transitions.size());
+        for (Long userId : transitions.keySet()) {
+            LocalDateTime lastSeen = transitions.remove(userId);
+            if (lastSeen != null) {
+                batch.add(Map.entry(userId, lastSeen));
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE users SET last_seen = ? WHERE id = ? AND (last_seen IS NULL OR last_seen < ?)",
+                    batch, batchSize, (statement, transition) -> {
+                        statement.setObject(1, transition.getValue());
+                        statement.setLong(2, transition.getKey());
+                        statement.setObject(3, transition.getValue());
+                    });
+        } catch (DataAccessException e) {
+            log.warn("Could not write the last-seen time of {} users, retrying later", batch.size(), e);
+            batch.forEach(transition -> transitions.merge(transition.getKey(), transition.getValue(),
+                    (a, b) -> a.isAfter(b) ? a : b));
+            return;
+        }
+        for (Map.Entry<Long, LocalDateTime> transition : batch) {
+            Map<Long, Presence> stripe = stripe(transition.getKey());
+            synchronized (stripe) {
+                Presence presence = stripe.get(transition.getKey());
+                if (presence != null && presence.sessions.isEmpty()
+                        && presence.lastSeen.equals(transition.getValue())) {
+                    stripe.remove(transition.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the users still online as seen now, and tells the other instances they went offline here.
+     */
+    @PreDestroy
+    void stop() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> online = online();
+        online.forEach(userId -> transitions.put(userId, now));
+        flush();
+        for (int from = 0; from < online.size(); from += REPORT_SIZE) {
+            publish(new Report(List.of(), online.subList(from, Math.min(from + REPORT_SIZE, online.size())), now));
+        }
+    }
+
+    private List<Long> online() {
+        List<Long> online = new ArrayList<>();
+        for (Map<Long, Presence> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach((userId, presence) -> {
+                    if (!presence.sessions.isEmpty()) {
+                        online.add(userId);
+                    }
+                });
+            }
+        }
+        return online;
+    }
+
+    private void publish(Report report) {
+        ChatClusterBus bus = clusterBus.getIfAvailable();
+        if (bus != null) {
+            bus.publishPresence(report);
+        }
+    }
+
+    private static Remote reported(Remote known, String node, boolean online, LocalDateTime at, long now) {
+        Map<String, Long> nodes = known == null ? new HashMap<>(2) : new HashMap<>(known.nodes());
+        if (online) {
+            nodes.put(node, now);
+        } else {
+            nodes.remove(node);
+        }
+        return new Remote(Map.copyOf(nodes), latest(known == null ? null : known.lastSeen(), at), now);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    private Map<Long, Presence> stripe(long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), STRIPES)];
+    }
+
+}
@@ -0,0 +1,75 @@
+package edu.ucaldas.back.service.chat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Assigns the sequence numbers of the messages of each chat: 1, 2, 3... in the order they are stored.
+ * <p>
+ * The last number taken is kept in the chat itself ({@code chats.message_seq}) and moved with a single
+ * {@code UPDATE} in the transaction that stores the messages. The row lock of that update is held until
+ * the commit, so every instance sharing the database takes different numbers, a chat's messages are
+ * committed in the order of their numbers, and a rolled back message gives its number back. The
+ * counter of a chat whose messages are older than the counter is seeded with their {@code MAX(seq)},
+ * one seek of the unique index {@code uk_messages_chat_seq (chat_id, seq)}, on its first message.
+ * </p>
+ * <p>
+ * Messages stored before the sequence numbers existed have {@code seq = 0}. On the first start after
+ * the upgrade they are given distinct negative numbers ({@code -id}), below every real one, so the
+ * unique index can be built. Once the index exists the numbering is skipped, so later starts do not
+ * scan {@code messages}, which has no index leading with {@code seq}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+public class ChatSequences {
+
+    @Autowired
+    private IChatRepository chatRepository;
+
+    @Autowired
+    private IMessageRepository messageRepository;
+
+    /**
+     * Takes consecutive sequence numbers of a chat. The chat stays locked until the calling transaction
+     * ends, so the messages must be stored in that same transaction.
+     *
+     * @param chatId the ID of the chat
+     * @param count how many numbers to take
+     * @return the first number taken; the others follow it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long take(long chatId, int count) {
+        chatRepository.takeMessageSeq(chatId, count);
+        return chatRepository.findMessageSeq(chatId) - count + 1;
+    }
+
+    /**
+     * Numbers the messages stored before the sequence numbers existed and creates the unique index of
+     * the numbers, when the schema update could not create it because of them. Does nothing when the
+     * index already exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void numberLegacyMessages() {
+        if (messageRepository.hasSeqIndex()) {
+            return;
+        }
+        int numbered = messageRepository.numberLegacyMessages();
+        if (numbered > 0) {
+            log.info("Numbered {} messages without a sequence number", numbered);
+        }
+        messageRepository.createSeqIndex();
+    }
+
+}
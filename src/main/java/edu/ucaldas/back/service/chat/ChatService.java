@@ -0,0 +1,426 @@
+package edu.ucaldas.back.service.chat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucaldas.back.DTO.ChatDTO;
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+import edu.ucaldas.back.DTO.ChatMessageDTO;
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+import edu.ucaldas.back.DTO.ChatReadReceiptDTO;
+import edu.ucaldas.back.DTO.ChatTypingDTO;
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.DTO.MessagePageDTO;
+import edu.ucaldas.back.DTO.MessageSearchPageDTO;
+import edu.ucaldas.back.DTO.UnreadCountDTO;
+import edu.ucaldas.back.DTO.UserPresenceDTO;
+import edu.ucaldas.back.infra.exception.MissingData;
+import edu.ucaldas.back.infra.exception.NotPermited;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.ChatUnreadCounter;
+import edu.ucaldas.back.models.chat.Message;
+import edu.ucaldas.back.models.chat.MessageData;
+import edu.ucaldas.back.models.rent.House;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IChatUnreadCounterRepository;
+import edu.ucaldas.back.repository.IHouseRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+import edu.ucaldas.back.repository.IMessageSearchTermRepository;
+import edu.ucaldas.back.repository.IUserRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Service for the chats between the owner of a house and the users interested in it.
+ * <p>
+ * Chats are opened over REST ({@link edu.ucaldas.back.controller.ChatController}); messages are sent
+ * over the STOMP connection ({@link edu.ucaldas.back.controller.ChatSocketController}) and pushed to
+ * both participants by {@link ChatNotifier}. Only the owner and the interested user of a chat can
+ * write in it.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Service
+public class ChatService {
+
+    /**
+     * The largest page of history a client can request.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * The most words of a search that are looked up; the rest are ignored.
+     */
+    public static final int MAX_SEARCH_TERMS = 8;
+
+    @Autowired
+    private IChatRepository chatRepository;
+
+    @Autowired
+    private IMessageRepository messageRepository;
+
+    @Autowired
+    private IHouseRepository houseRepository;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private IChatUnreadCounterRepository unreadCounterRepository;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
+    @Autowired
+    private ChatSequences chatSequences;
+
+    @Autowired
+    private ChatNotifier chatNotifier;
+
+    @Autowired
+    private ChatPresence chatPresence;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private IMessageSearchTermRepository searchTermRepository;
+
+    @Autowired(required = false)
+    private MessageWriteBehind writeBehind;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Opens a chat between the authenticated user and the owner of a house, or returns the chat they
+     * already have about it.
+     *
+     * @param houseId the ID of the house
+     * @return the chat
+     * @throws EntityNotFoundException if the house does not exist or is inactive
+     * @throws NotPermited if the authenticated user owns the house
+     */
+    @Transactional
+    public ChatDTO openChat(long houseId) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        House house = houseRepository.findWithOwnerByIdAndIsActiveTrue(houseId)
+                .orElseThrow(() -> new EntityNotFoundException("La casa no existe"));
+        if (house.getOwner().getId() == user.getId()) {
+            throw new NotPermited("No puedes abrir un chat sobre tu propia casa");
+        }
+        Chat chat = chatRepository.findWithParticipantsByHouseIdAndInterestedIdAndIsActiveTrue(houseId, user.getId())
+                .orElseGet(() -> {
+                    Chat created = chatRepository.save(
+                            new Chat(house.getOwner(), userRepository.getReferenceById(user.getId()), house));
+                    unreadCounterRepository.saveAll(List.of(
+                            new ChatUnreadCounter(new ChatParticipantId(house.getOwner().getId(), created.getId()), 0),
+                            new ChatUnreadCounter(new ChatParticipantId(user.getId(), created.getId()), 0)));
+                    return created;
+                });
+        return new ChatDTO(chat.getId(), houseId, house.getOwner().getEmail(), user.getEmail(), chat.getDateTime());
+    }
+
+    /**
+     * Saves a message with the next sequence number of its chat, copies it as the last message of the
+     * chat, adds its words to the search index, counts it as unread for the other participant and pushes
+     * it to both participants of its chat once committed.
+     * <p>
+     * With the write-behind queue enabled ({@link MessageWriteBehind}), the message is only queued here
+     * and stored later in a batch, which numbers it; it is pushed, with its ID and sequence number, once
+     * stored, and the returned message has neither yet ({@code 0}). The chat is loaded in its own short
+     * transaction and the message is queued after it ends, so no connection is held while the log is
+     * forced to disk.
+     * </p>
+     *
+     * @param senderEmail the email of the authenticated sender
+     * @param data the chat and the text of the message
+     * @return the saved message
+     * @throws EntityNotFoundException if the chat does not exist or is inactive
+     * @throws NotPermited if the sender is not a participant of the chat
+     * @throws edu.ucaldas.back.infra.exception.ServiceBusy if the write-behind queue is full
+     */
+    public ChatMessageDTO sendMessage(String senderEmail, ChatMessageSendDTO data) {
+        Chat chat = chatRepository.findWithParticipantsByIdAndIsActiveTrue(data.chatId())
+                .orElseThrow(() -> new EntityNotFoundException("El chat no existe"));
+        User sender = participant(chat, senderEmail);
+        User recipient = sender == chat.getOwner() ? chat.getInterested() : chat.getOwner();
+        if (writeBehind != null) {
+            QueuedMessage queued = new QueuedMessage(chat.getId(), 0, sender.getId(), senderEmail,
+                    recipient.getId(), recipient.getEmail(), data.content(), LocalDateTime.now());
+            writeBehind.enqueue(queued);
+            return new ChatMessageDTO(0, chat.getId(), 0, sender.getId(), senderEmail, queued.content(),
+                    queued.dateTime(), false);
+        }
+        return transactionTemplate.execute(status -> store(chat, sender, recipient, data.content()));
+    }
+
+    /**
+     * Tells the other participant of a chat that a user is typing. Nothing is stored.
+     *
+     * @param senderEmail the email of the authenticated user
+     * @param chatId the ID of the chat
+     * @throws EntityNotFoundException if the chat does not exist or is inactive
+     * @throws NotPermited if the user is not a participant of the chat
+     */
+    @Transactional(readOnly = true)
+    public void typing(String senderEmail, long chatId) {
+        Chat chat = chatRepository.findWithParticipantsByIdAndIsActiveTrue(chatId)
+                .orElseThrow(() -> new EntityNotFoundException("El chat no existe"));
+        User sender = participant(chat, senderEmail);
+        User recipient = sender == chat.getOwner() ? chat.getInterested() : chat.getOwner();
+        chatNotifier.typing(recipient.getEmail(), new ChatTypingDTO(chatId, sender.getId()));
+    }
+
+    /**
+     * Marks as read the messages the authenticated user received in a chat, up to a given message
+     * (inclusive), updates their unread counter and, if any message changed, sends a read receipt to
+     * the other participant.
+     * <p>
+     * The messages are changed with a single range {@code UPDATE} over the history index, whatever
+     * their number, and the counter is decreased by the number of rows it changed: messages that
+     * arrive after the given one stay unread and counted.
+     * </p>
+     *
+     * @param chatId the ID of the chat
+     * @param messageId the ID of the last message the user has seen
+     * @return the remaining unread count of the chat
+     * @throws EntityNotFoundException if the chat or the message does not exist, or the user is not a
+     *                                 participant
+     */
+    @Transactional
+    public UnreadCountDTO markRead(long chatId, long messageId) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!chatRepository.isActiveParticipant(chatId, user.getId())) {
+            throw new EntityNotFoundException("El chat no existe");
+        }
+        LocalDateTime dateTime = messageRepository.findDateTimeByIdAndChatId(messageId, chatId)
+                .orElseThrow(() -> new EntityNotFoundException("El mensaje no existe"));
+        int read = messageRepository.markReadUpTo(chatId, user.getId(), dateTime, messageId);
+        if (read > 0) {
+            unreadCounters.subtract(chatId, user.getId(), read);
+            chatRepository.findWithParticipantsByIdAndIsActiveTrue(chatId).ifPresent(chat -> {
+                User other = chat.getOwner().getId() == user.getId() ? chat.getInterested() : chat.getOwner();
+                chatNotifier.messagesRead(other.getEmail(), new ChatReadReceiptDTO(chatId, user.getId(), messageId));
+            });
+        }
+        long unread = unreadCounterRepository.findById(new ChatParticipantId(user.getId(), chatId))
+                .map(ChatUnreadCounter::getUnread)
+                .orElse(0L);
+        return new UnreadCountDTO(chatId, unread);
+    }
+
+    /**
+     * Returns the inbox of the authenticated user: their chats, the most recent conversation first, each
+     * with the other participant and whether they are online, its last message and its unread count.
+     * <p>
+     * Served by one query over {@code chats} (see {@link IChatRepository#findInbox(long, int)}), which
+     * reads the copy of the last message kept in each chat instead of searching the messages. Who is
+     * online, and the last-seen time of users not written yet, come from memory ({@link ChatPresence}).
+     * </p>
+     *
+     * @param limit the maximum number of chats, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the chats
+     */
+    @Transactional(readOnly = true)
+    public List<ChatInboxDTO> getInbox(int limit) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<ChatInboxDTO> inbox = chatRepository.findInbox(user.getId(), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        Map<Long, UserPresenceDTO> presence = chatPresence.find(
+                inbox.stream().map(ChatInboxDTO::counterpartId).toList());
+        return inbox.stream().map(chat -> withPresence(chat, presence.get(chat.counterpartId()))).toList();
+    }
+
+    /**
+     * Creates the indexes of the inbox ({@link IChatRepository#createInboxIndexes()}) once the schema is
+     * up to date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createInboxIndexes() {
+        chatRepository.createInboxIndexes();
+    }
+
+    /**
+     * Returns the unread count of every chat of the authenticated user that has unread messages.
+     *
+     * @return the chats with unread messages
+     */
+    @Transactional(readOnly = true)
+    public List<UnreadCountDTO> getUnreadCounts() {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return unreadCounterRepository.findUnreadByUserId(user.getId());
+    }
+
+    /**
+     * Returns a page of the history of a chat, newest first.
+     * <p>
+     * The cursor is opaque to clients: the {@code nextCursor} of a page is passed as {@code before} to
+     * get the older messages, and is {@code null} on the last page. It holds the date and ID of the last
+     * message returned, so the next page is an index seek instead of an {@code OFFSET} and messages
+     * arriving meanwhile do not shift the pages.
+     * </p>
+     *
+     * @param chatId the ID of the chat
+     * @param before the cursor of the previous page, or {@code null} for the latest messages
+     * @param limit the maximum number of messages, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the messages and the cursor of the next page
+     * @throws EntityNotFoundException if the chat does not exist, is inactive, or the authenticated user
+     *                                 is not a participant
+     * @throws MissingData if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDTO getMessages(long chatId, String before, int limit) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!chatRepository.isActiveParticipant(chatId, user.getId())) {
+            throw new EntityNotFoundException("El chat no existe");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<MessageDTO> messages;
+        if (before == null || before.isEmpty()) {
+            messages = messageRepository.findLatest(chatId, Limit.of(size));
+        } else {
+            MessageCursor cursor = MessageCursor.decode(before);
+            messages = messageRepository.findBefore(chatId, cursor.dateTime(), cursor.id(), Limit.of(size));
+        }
+        String next = null;
+        if (messages.size() == size) {
+            MessageDTO last = messages.get(size - 1);
+            next = new MessageCursor(last.dateTime(), last.id()).encode();
+        }
+        return new MessagePageDTO(messages, next);
+    }
+
+    /**
+     * Returns the messages of a chat after a sequence number, oldest first, for a client that reconnects
+     * and already has the messages up to it.
+     * <p>
+     * The messages are read with one range scan of {@code (chat_id, seq)}, so a reconnect costs what the
+     * client missed, not the whole history. When a full page is returned, the client asks again after
+     * the last sequence number of the page.
+     * </p>
+     *
+     * @param chatId the ID of the chat
+     * @param seq the sequence number of the last message the client has
+     * @param limit the maximum number of messages, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the messages, oldest first
+     * @throws EntityNotFoundException if the chat does not exist, is inactive, or the authenticated user
+     *                                 is not a participant
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getMessagesAfter(long chatId, long seq, int limit) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!chatRepository.isActiveParticipant(chatId, user.getId())) {
+            throw new EntityNotFoundException("El chat no existe");
+        }
+        return messageRepository.findAfter(chatId, seq, Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    /**
+     * Searches the messages of the chats of the authenticated user that contain all the words of a
+     * query, newest first.
+     * <p>
+     * The words are normalized as when the messages were indexed ({@link MessageSearchIndex#terms}),
+     * so case and accents do not matter, and each must match a whole word. The matching messages are
+     * found in the entries of the user in the search index
+     * ({@link IMessageSearchTermRepository#search}), which only holds the messages of their chats; only
+     * the messages of the page are then read, by primary key. The cursor is the ID of the last message
+     * found, passed as {@code before} to get the older ones, and is {@code null} on the last page.
+     * </p>
+     *
+     * @param query the words to search
+     * @param chatId the ID of the only chat to search, or {@code null} for all the chats of the user
+     * @param before the cursor of the previous page, or {@code null} for the newest messages
+     * @param limit the maximum number of messages, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the messages and the cursor of the next page
+     * @throws MissingData if the query has no words or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public MessageSearchPageDTO searchMessages(String query, Long chatId, String before, int limit) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<String> terms = MessageSearchIndex.terms(query).stream().limit(MAX_SEARCH_TERMS).toList();
+        if (terms.isEmpty()) {
+            throw new MissingData("La busqueda no tiene palabras");
+        }
+        long cursor = Long.MAX_VALUE;
+        if (before != null && !before.isEmpty()) {
+            try {
+                cursor = Long.parseLong(before);
+            } catch (NumberFormatException e) {
+                throw new MissingData("Cursor invalido");
+            }
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Long> ids = searchTermRepository.search(user.getId(), terms, terms.size(), cursor, chatId,
+                Limit.of(size));
+        if (ids.isEmpty()) {
+            return new MessageSearchPageDTO(List.of(), null);
+        }
+        String next = ids.size() == size ? Long.toString(ids.get(size - 1)) : null;
+        return new MessageSearchPageDTO(messageRepository.findSearchResults(ids), next);
+    }
+
+    /**
+     * Returns an inbox entry with the presence of its other participant, if this instance knows it. The
+     * later of the last-seen times in memory and in {@code users} is kept.
+     */
+    private static ChatInboxDTO withPresence(ChatInboxDTO chat, UserPresenceDTO presence) {
+        if (presence == null) {
+            return chat;
+        }
+        LocalDateTime lastSeen = chat.counterpartLastSeen() != null
+                && chat.counterpartLastSeen().isAfter(presence.lastSeen()) ? chat.counterpartLastSeen()
+                        : presence.lastSeen();
+        return new ChatInboxDTO(chat.chatId(), chat.houseId(), chat.counterpartId(), chat.counterpartName(),
+                presence.online(), lastSeen, chat.lastMessageSeq(), chat.lastMessageSenderId(),
+                chat.lastMessagePreview(), chat.lastMessageAt(), chat.unread());
+    }
+
+    /**
+     * Stores a message sent through the synchronous path with the next sequence number of its chat,
+     * together with the last message of the chat, its search terms and the unread count of the
+     * recipient, and pushes it to both participants once committed. Runs in the caller's transaction.
+     */
+    private ChatMessageDTO store(Chat chat, User sender, User recipient, String content) {
+        long seq = chatSequences.take(chat.getId(), 1);
+        Message message = new Message(new MessageData(chat.getId(), content, sender.getEmail()), chat, sender);
+        message.setSeq(seq);
+        messageRepository.save(message);
+        chatRepository.updateLastMessage(chat.getId(), seq, sender.getId(), Chat.preview(message.getContent()),
+                message.getDateTime());
+        searchIndex.add(List.of(new MessageSearchIndex.Document(message.getId(), chat.getId(),
+                List.of(sender.getId(), recipient.getId()), message.getContent())));
+        unreadCounters.add(chat.getId(), recipient.getId(), 1);
+        ChatMessageDTO dto = new ChatMessageDTO(message.getId(), chat.getId(), seq, sender.getId(),
+                sender.getEmail(), message.getContent(), message.getDateTime(), message.isRead());
+        chatNotifier.messageSent(List.of(chat.getOwner().getEmail(), chat.getInterested().getEmail()), dto);
+        return dto;
+    }
+
+    /**
+     * Returns the participant of a chat with the given email.
+     *
+     * @throws NotPermited if the user is not a participant
+     */
+    private User participant(Chat chat, String email) {
+        if (chat.getOwner().getEmail().equals(email)) {
+            return chat.getOwner();
+        }
+        if (chat.getInterested().getEmail().equals(email)) {
+            return chat.getInterested();
+        }
+        throw new NotPermited("No participas en este chat");
+    }
+
+}
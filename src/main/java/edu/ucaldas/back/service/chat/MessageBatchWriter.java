@@ -0,0 +1,115 @@
+package edu.ucaldas.back.service.chat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.DTO.ChatMessageDTO;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.Message;
+import edu.ucaldas.back.models.chat.MessageData;
+import edu.ucaldas.back.models.chat.MessageLogCheckpoint;
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IMessageLogCheckpointRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+import edu.ucaldas.back.repository.IUserRepository;
+
+/**
+ * Stores a batch of messages of {@link MessageWriteBehind} in one transaction.
+ * <p>
+ * The messages of each chat are numbered in log order with one update of its sequence counter
+ * ({@link ChatSequences}), they are inserted with a single JDBC batch, the last message of each chat
+ * of the batch is copied to the chat, their words are added to the search index, the unread counters
+ * are increased once per recipient and chat of the batch, and the checkpoint of the log is moved to
+ * the last message, all in the same transaction: either the whole batch is stored and known to be
+ * stored, or none of it is. The messages are pushed to the participants after the commit.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class MessageBatchWriter {
+
+    @Autowired
+    private IMessageRepository messageRepository;
+
+    @Autowired
+    private IChatRepository chatRepository;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
+    @Autowired
+    private ChatSequences chatSequences;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private IMessageLogCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ChatNotifier chatNotifier;
+
+    /**
+     * Stores a batch of messages read from a log.
+     *
+     * @param logId the identifier of the log
+     * @param position the position of the last message of the batch in the log
+     * @param batch the messages, in log order; may be empty to only move the checkpoint
+     */
+    @Transactional
+    public void write(String logId, long position, List<QueuedMessage> batch) {
+        Map<Long, Long> next = new TreeMap<>();
+        for (QueuedMessage queued : batch) {
+            next.merge(queued.chatId(), 1L, Long::sum);
+        }
+        // Chats are locked in ID order, so two writers never wait for each other's chats
+        next.replaceAll((chatId, count) -> chatSequences.take(chatId, count.intValue()));
+        List<Message> messages = new ArrayList<>(batch.size());
+        Map<ChatParticipantId, Long> unread = new LinkedHashMap<>();
+        Map<Long, Message> last = new LinkedHashMap<>();
+        for (QueuedMessage queued : batch) {
+            Message message = new Message(
+                    new MessageData(queued.chatId(), queued.content(), queued.senderEmail()),
+                    chatRepository.getReferenceById(queued.chatId()),
+                    userRepository.getReferenceById(queued.senderId()));
+            message.setSeq(next.merge(queued.chatId(), 1L, Long::sum) - 1);
+            message.setDateTime(queued.dateTime());
+            messages.add(message);
+            unread.merge(new ChatParticipantId(queued.recipientId(), queued.chatId()), 1L, Long::sum);
+            last.put(queued.chatId(), message);
+        }
+        messageRepository.insertAll(messages);
+        last.forEach((chatId, message) -> chatRepository.updateLastMessage(chatId, message.getSeq(),
+                message.getSender().getId(), Chat.preview(message.getContent()), message.getDateTime()));
+        List<MessageSearchIndex.Document> documents = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            QueuedMessage queued = batch.get(i);
+            documents.add(new MessageSearchIndex.Document(messages.get(i).getId(), queued.chatId(),
+                    List.of(queued.senderId(), queued.recipientId()), queued.content()));
+        }
+        searchIndex.add(documents);
+        unread.forEach((participant, count) ->
+                unreadCounters.add(participant.getChatId(), participant.getUserId(), count));
+        checkpointRepository.save(new MessageLogCheckpoint(logId, position));
+        for (int i = 0; i < batch.size(); i++) {
+            QueuedMessage queued = batch.get(i);
+            Message message = messages.get(i);
+            chatNotifier.messageSent(List.of(queued.senderEmail(), queued.recipientEmail()),
+                    new ChatMessageDTO(message.getId(), queued.chatId(), message.getSeq(), queued.senderId(),
+                            queued.senderEmail(), queued.content(), queued.dateTime(), false));
+        }
+    }
+
+}
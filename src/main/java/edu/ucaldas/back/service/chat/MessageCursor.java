@@ -0,0 +1,50 @@
+package edu.ucaldas.back.service.chat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import edu.ucaldas.back.infra.exception.MissingData;
+
+/**
+ * Position in the history of a chat: the date and ID of the last message of a page.
+ * <p>
+ * Encoded as URL-safe Base64 so clients treat it as an opaque token.
+ * </p>
+ *
+ * @param dateTime the date of the message
+ * @param id the ID of the message
+ * @author juan-manoel
+ */
+record MessageCursor(LocalDateTime dateTime, long id) {
+
+    /**
+     * Encodes the cursor for a response.
+     *
+     * @return the opaque cursor
+     */
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((dateTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor received from a client.
+     *
+     * @param cursor the opaque cursor
+     * @return the position it holds
+     * @throws MissingData if the cursor was not produced by {@link #encode()}
+     */
+    static MessageCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new MessageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new MissingData("Cursor invalido");
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+package edu.ucaldas.back.service.chat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only log of the messages accepted by {@link MessageWriteBehind} and not yet stored in
+ * the database.
+ * <p>
+ * Records are numbered by a position that grows by one per record and are written to segment files
+ * named after the position of their first record ({@code segment-<position>.log}). A new segment is
+ * started once the current one reaches the configured size, and on every start, so a record torn by a
+ * crash is always at the end of a segment that is no longer written. Segments whose records are all
+ * stored in the database are deleted with {@link #truncate(long)}.
+ * </p>
+ * <p>
+ * Each record is {@code length (int), position (long), CRC-32 of the payload (int), payload}. Reading
+ * a segment stops at the first record that is incomplete or whose checksum does not match.
+ * </p>
+ * <p>
+ * {@link #sync(long)} makes the records durable with a group commit: callers that wait for the disk at
+ * the same time share a single {@link FileChannel#force(boolean)}, which covers every record appended
+ * before it started.
+ * </p>
+ * <p>
+ * The directory also holds a random identifier of the log ({@code log.id}), the key of its checkpoint
+ * in the database. A new directory is a new log, so positions never clash with an older checkpoint.
+ * The directory itself is forced to disk after every file created in it, so neither the identifier
+ * nor a new segment can be lost by a crash once a sync has returned.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+final class MessageLog implements Closeable {
+
+    /**
+     * A record read back from the log.
+     *
+     * @param position the position of the record
+     * @param payload the bytes appended
+     */
+    record Entry(long position, byte[] payload) {
+    }
+
+    private static final String ID_FILE = "log.id";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final String id;
+    private final Object syncLock = new Object();
+
+    /** Segments by the position of their first record; the last one is being written. Guarded by this. */
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel channel;
+    private long segmentBytes;
+    private long position;
+
+    /** Position of the last record known to be on disk. Guarded by syncLock. */
+    private long synced;
+
+    /**
+     * Opens the log of a directory, creating it if needed, and starts a new segment after its last
+     * valid record.
+     *
+     * @param directory the directory of the log
+     * @param segmentSize the size from which a new segment is started
+     * @throws IOException if the directory cannot be read or written
+     */
+    MessageLog(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            forceDirectory(directory.toAbsolutePath().getParent());
+        }
+        this.id = readId();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.put(firstPosition(file), file);
+            }
+        }
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            List<Entry> entries = read(last.getValue());
+            position = entries.isEmpty() ? last.getKey() - 1 : entries.get(entries.size() - 1).position();
+        }
+        synced = position;
+        openSegment();
+    }
+
+    /**
+     * Returns the identifier of the log.
+     *
+     * @return the identifier stored in the directory
+     */
+    String id() {
+        return id;
+    }
+
+    /**
+     * Appends a record. It is not durable until {@link #sync(long)} returns for its position.
+     *
+     * @param payload the bytes of the record
+     * @return the position of the record
+     * @throws IOException if the record cannot be written
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        if (segmentBytes >= segmentSize) {
+            channel.force(false);
+            channel.close();
+            openSegment();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putLong(position + 1).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        segmentBytes += HEADER_SIZE + payload.length;
+        return ++position;
+    }
+
+    /**
+     * Waits until the record at a position, and every record before it, is on disk.
+     *
+     * @param upTo the position of the record
+     * @throws IOException if the log cannot be forced to disk
+     */
+    void sync(long upTo) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= upTo) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = position;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // The segment was completed meanwhile, and forced before being closed
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Reads the records after a position, in order.
+     *
+     * @param after the position of the last record already stored in the database
+     * @return the records after it
+     * @throws IOException if a segment cannot be read
+     */
+    synchronized List<Entry> readAfter(long after) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : segments.values()) {
+            for (Entry entry : read(segment)) {
+                if (entry.position() > after) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the completed segments whose records are all at or before a position.
+     *
+     * @param upTo the position of the last record stored in the database
+     * @throws IOException if a segment cannot be deleted
+     */
+    synchronized void truncate(long upTo) throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> first = segments.firstEntry();
+            if (segments.higherKey(first.getKey()) - 1 > upTo) {
+                return;
+            }
+            Files.deleteIfExists(first.getValue());
+            segments.remove(first.getKey());
+        }
+    }
+
+    /**
+     * Forces the current segment to disk and closes it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void openSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, position + 1, SEGMENT_SUFFIX));
+        // A segment with this name can only be one without any complete record
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // The entry of the new file must be on disk before any sync of its records returns
+        forceDirectory(directory);
+        segments.put(position + 1, file);
+        segmentBytes = 0;
+    }
+
+    private String readId() throws IOException {
+        Path file = directory.resolve(ID_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file, StandardCharsets.UTF_8).trim();
+        }
+        String created = UUID.randomUUID().toString();
+        Files.writeString(file, created, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        forceDirectory(directory);
+        return created;
+    }
+
+    /**
+     * Forces the entries of a directory to disk, so the files created in it survive a crash.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel entries = FileChannel.open(directory, StandardOpenOption.READ)) {
+            entries.force(true);
+        }
+    }
+
+    private static List<Entry> read(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Entry> entries = new ArrayList<>();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int length = buffer.getInt();
+            long position = buffer.getLong();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            entries.add(new Entry(position, payload));
+        }
+        return entries;
+    }
+
+    private static long firstPosition(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+}
@@ -0,0 +1,82 @@
+package edu.ucaldas.back.service.chat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.repository.IMessageSearchTermRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Indexes for search the messages stored before the search index existed.
+ * <p>
+ * New messages are indexed as they are stored, so the messages left to index are the ones older than
+ * the oldest indexed message. Once the application is ready, a background thread indexes them, newest
+ * first, {@code app.chat.search.backfill-batch-size} messages per transaction
+ * ({@link MessageSearchIndex#indexBefore(long, int)}). No progress is stored: after a restart it
+ * continues from the oldest indexed message, and once every message is indexed a start costs one
+ * query.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+public class MessageSearchBackfill {
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private IMessageSearchTermRepository searchTermRepository;
+
+    @Value("${app.chat.search.backfill-batch-size:500}")
+    private int batchSize;
+
+    private volatile boolean stopped;
+
+    /**
+     * Starts the background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "chat-search-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Indexes the messages older than the oldest indexed one until there are none left or the
+     * application stops.
+     */
+    void run() {
+        try {
+            Long oldest = searchTermRepository.findMinMessageId();
+            long before = oldest != null ? oldest : Long.MAX_VALUE;
+            int batches = 0;
+            while (!stopped) {
+                long next = searchIndex.indexBefore(before, batchSize);
+                if (next == 0) {
+                    break;
+                }
+                before = next;
+                batches++;
+            }
+            if (batches > 0) {
+                log.info("Indexed for search {} batches of older chat messages, down to message {}", batches, before);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not index the older chat messages for search, continuing on the next start", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+    }
+
+}
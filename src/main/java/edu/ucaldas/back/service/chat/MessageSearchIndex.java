@@ -0,0 +1,125 @@
+package edu.ucaldas.back.service.chat;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the inverted index used to search the messages of the chats ({@code message_search_terms},
+ * see {@link edu.ucaldas.back.models.chat.MessageSearchTerm}).
+ * <p>
+ * A message is indexed by the code that stores it, in the same transaction: {@link ChatService} for a
+ * message saved right away, {@link MessageBatchWriter} for a batch of the write-behind queue. Its words
+ * are normalized with {@link #terms(String)} and written with one JDBC batch, one entry per word and
+ * participant. The messages stored before the index existed are indexed in the background by
+ * {@link MessageSearchBackfill}.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class MessageSearchIndex {
+
+    /**
+     * The length, in characters, words are cut to.
+     */
+    public static final int MAX_TERM_LENGTH = 32;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final String INSERT = "INSERT INTO message_search_terms (user_id, term, message_id, chat_id) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private static final String UNINDEXED = "SELECT m.id, m.chat_id, m.content, c.owner_id, c.interested_id "
+            + "FROM messages m JOIN chats c ON c.id = m.chat_id "
+            + "WHERE m.id < ? AND m.is_active = true "
+            + "AND NOT EXISTS (SELECT 1 FROM message_search_terms t WHERE t.message_id = m.id) "
+            + "ORDER BY m.id DESC LIMIT ?";
+
+    /**
+     * A message to index and the users who can read it.
+     *
+     * @param messageId the ID of the stored message
+     * @param chatId the ID of its chat
+     * @param readerIds the IDs of the participants of the chat
+     * @param content the text of the message
+     */
+    public record Document(long messageId, long chatId, Collection<Long> readerIds, String content) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Indexes stored messages, in the current transaction.
+     *
+     * @param documents the messages
+     */
+    public void add(List<Document> documents) {
+        List<Object[]> entries = new ArrayList<>();
+        for (Document document : documents) {
+            for (String term : terms(document.content())) {
+                for (Long readerId : document.readerIds()) {
+                    entries.add(new Object[] { readerId, term, document.messageId(), document.chatId() });
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, entries);
+        }
+    }
+
+    /**
+     * Indexes, in one transaction, the newest active messages older than a given one that are not
+     * indexed yet.
+     *
+     * @param before the ID the messages must be below
+     * @param limit the maximum number of messages
+     * @return the ID of the oldest message read, to continue from, or 0 if there were none
+     */
+    @Transactional
+    public long indexBefore(long before, int limit) {
+        List<Document> documents = jdbcTemplate.query(UNINDEXED,
+                (row, i) -> new Document(row.getLong("id"), row.getLong("chat_id"),
+                        List.of(row.getLong("owner_id"), row.getLong("interested_id")), row.getString("content")),
+                before, limit);
+        add(documents);
+        return documents.isEmpty() ? 0 : documents.get(documents.size() - 1).messageId();
+    }
+
+    /**
+     * Splits a text in the words that are indexed and searched: runs of letters and digits, in lower
+     * case, without accents ({@code "Canción"} is {@code "cancion"}), of at least two characters and cut
+     * to {@value #MAX_TERM_LENGTH}, each once, in order of appearance.
+     *
+     * @param text the text, may be {@code null}
+     * @return the words
+     */
+    public static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String word : SEPARATORS.split(plain.toLowerCase(Locale.ROOT))) {
+            int length = word.codePointCount(0, word.length());
+            if (length < 2) {
+                continue;
+            }
+            terms.add(length > MAX_TERM_LENGTH ? word.substring(0, word.offsetByCodePoints(0, MAX_TERM_LENGTH)) : word);
+        }
+        return terms;
+    }
+
+}
@@ -0,0 +1,236 @@
+package edu.ucaldas.back.service.chat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import edu.ucaldas.back.infra.exception.SaveFileError;
+import edu.ucaldas.back.infra.exception.ServiceBusy;
+import edu.ucaldas.back.models.chat.MessageLogCheckpoint;
+import edu.ucaldas.back.repository.IMessageLogCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind queue of the chat messages, enabled with {@code app.chat.write-behind.enabled=true}.
+ * <p>
+ * A message is accepted once it is appended to a local {@link MessageLog} and the log is forced to
+ * disk, which concurrent senders share (group commit), and is then stored by a single background
+ * thread, together with the messages accepted meanwhile: a batch is written when it reaches
+ * {@code batch-size} messages or {@code flush-interval} after its first message, in one transaction
+ * ({@link MessageBatchWriter}). Senders no longer wait for a database commit each, and the database
+ * commits once per batch.
+ * </p>
+ * <p>
+ * The queue holds at most {@code capacity} messages; when it is full, new messages are rejected with
+ * {@link ServiceBusy} instead of blocking the sender. If the database is unavailable the batch is
+ * retried until it is stored, so the queue fills up and the chat rejects messages until it recovers.
+ * </p>
+ * <p>
+ * On start, the messages of the log after its checkpoint in the database (accepted, but not stored when
+ * the application stopped or crashed) are stored before new messages are accepted. The checkpoint is
+ * moved in the same transaction as each batch, so no message is stored twice. The log directory must be
+ * on a persistent disk and belong to one instance.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.chat.write-behind.enabled", havingValue = "true")
+public class MessageWriteBehind {
+
+    /**
+     * A message in the queue and its position in the log.
+     */
+    private record Pending(long position, QueuedMessage message) {
+    }
+
+    @Autowired
+    private MessageBatchWriter batchWriter;
+
+    @Autowired
+    private IMessageLogCheckpointRepository checkpointRepository;
+
+    @Value("${app.chat.write-behind.directory:chat-log}")
+    private Path directory;
+
+    @Value("${app.chat.write-behind.segment-size:16MB}")
+    private DataSize segmentSize;
+
+    @Value("${app.chat.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.chat.write-behind.flush-interval:20ms}")
+    private Duration flushInterval;
+
+    @Value("${app.chat.write-behind.retry-delay:1s}")
+    private Duration retryDelay;
+
+    private MessageLog messageLog;
+    private ArrayBlockingQueue<Pending> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    /**
+     * Opens the log, stores the messages left in it and starts the background thread.
+     *
+     * @throws IOException if the log cannot be read
+     * @throws InterruptedException if interrupted while retrying a batch
+     */
+    @PostConstruct
+    void start() throws IOException, InterruptedException {
+        messageLog = new MessageLog(directory, segmentSize.toBytes());
+        queue = new ArrayBlockingQueue<>(capacity);
+        long checkpoint = checkpointRepository.findById(messageLog.id())
+                .map(MessageLogCheckpoint::getPosition)
+                .orElse(0L);
+        List<MessageLog.Entry> left = messageLog.readAfter(checkpoint);
+        if (!left.isEmpty()) {
+            log.info("Storing {} chat messages left in {}", left.size(), directory);
+        }
+        for (int from = 0; from < left.size(); from += batchSize) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            for (MessageLog.Entry entry : left.subList(from, Math.min(from + batchSize, left.size()))) {
+                batch.add(new Pending(entry.position(), QueuedMessage.decode(entry.payload())));
+            }
+            flush(batch);
+        }
+        messageLog.truncate(left.isEmpty() ? checkpoint : left.get(left.size() - 1).position());
+        running = true;
+        flusher = new Thread(this::run, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Accepts a message: returns once it is on disk in the log, before it is stored in the database.
+     *
+     * @param message the message
+     * @throws ServiceBusy if the queue is full
+     * @throws SaveFileError if the log cannot be written
+     */
+    public void enqueue(QueuedMessage message) {
+        byte[] record = message.encode();
+        long position;
+        try {
+            // The queue must follow the order of the log, so the checkpoint never skips a message
+            synchronized (this) {
+                if (!running || queue.remainingCapacity() == 0) {
+                    throw new ServiceBusy("El chat esta saturado, intenta de nuevo");
+                }
+                position = messageLog.append(record);
+                queue.add(new Pending(position, message));
+            }
+            messageLog.sync(position);
+        } catch (IOException e) {
+            throw new SaveFileError("Error trying to save message", e);
+        }
+    }
+
+    /**
+     * Returns the number of messages accepted and not stored yet.
+     *
+     * @return the size of the queue
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting messages, stores those in the queue and closes the log. If the database does not
+     * take them in time, they stay in the log and are stored on the next start.
+     *
+     * @throws IOException if the log cannot be closed
+     * @throws InterruptedException if interrupted while waiting for the background thread
+     */
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        synchronized (this) {
+            running = false;
+        }
+        flusher.join(Math.max(10_000, retryDelay.toMillis() * 2));
+        flusher.interrupt();
+        flusher.join();
+        messageLog.close();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores a batch, retrying until the database accepts it. A batch rejected by a constraint is
+     * stored one message at a time, and a message the database rejects on its own is dropped, since it
+     * would be rejected forever.
+     */
+    private void flush(List<Pending> batch) throws InterruptedException {
+        long position = batch.get(batch.size() - 1).position();
+        List<QueuedMessage> messages = batch.stream().map(Pending::message).toList();
+        while (true) {
+            try {
+                batchWriter.write(messageLog.id(), position, messages);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (messages.size() > 1) {
+                    for (Pending pending : batch) {
+                        flush(List.of(pending));
+                    }
+                    return;
+                }
+                log.error("Dropping chat message {} of chat {}, rejected by the database", position,
+                        batch.get(0).message().chatId(), e);
+                messages = List.of();
+            } catch (RuntimeException e) {
+                log.warn("Could not store {} chat messages, retrying in {}", batch.size(), retryDelay, e);
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+        try {
+            messageLog.truncate(position);
+        } catch (IOException e) {
+            log.warn("Could not delete stored segments of {}", directory, e);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package edu.ucaldas.back.service.chat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * A message accepted by {@link MessageWriteBehind} and waiting to be stored, with everything needed
+ * to insert it, count it as unread and push it once stored.
+ * <p>
+ * Encoded as a record of {@link MessageLog}.
+ * </p>
+ *
+ * @param chatId the ID of the chat
+ * @param seq always 0: the message is numbered when stored ({@link ChatSequences}); kept so records of
+ *        older logs can still be read
+ * @param senderId the ID of the sender
+ * @param senderEmail the email of the sender
+ * @param recipientId the ID of the other participant
+ * @param recipientEmail the email of the other participant
+ * @param content the text of the message
+ * @param dateTime when the message was accepted
+ * @author juan-manoel
+ */
+record QueuedMessage(long chatId, long seq, long senderId, String senderEmail, long recipientId,
+        String recipientEmail, String content, LocalDateTime dateTime) {
+
+    /**
+     * Encodes the message as a log record.
+     *
+     * @return the bytes of the record
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + content.length() * 3);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(chatId);
+            out.writeLong(seq);
+            out.writeLong(senderId);
+            out.writeUTF(senderEmail);
+            out.writeLong(recipientId);
+            out.writeUTF(recipientEmail);
+            out.writeUTF(content);
+            out.writeUTF(dateTime.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a log record written by {@link #encode()}.
+     *
+     * @param record the bytes of the record
+     * @return the message
+     */
+    static QueuedMessage decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            return new QueuedMessage(in.readLong(), in.readLong(), in.readLong(), in.readUTF(), in.readLong(),
+                    in.readUTF(), in.readUTF(), LocalDateTime.parse(in.readUTF()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package edu.ucaldas.back.service.chat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.ChatUnreadCounter;
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IChatUnreadCounterRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+
+/**
+ * Changes the unread counters of the chat participants, for both the synchronous and the write-behind
+ * paths of {@link ChatService}.
+ * <p>
+ * A change is one atomic {@code UPDATE}. Chats opened before the counters existed have no counter
+ * rows: the first change that finds none locks the chat, so concurrent messages of the chat do not
+ * both create the row, and creates it from a {@code COUNT} of the unread messages. Callers must run
+ * in a transaction that already holds the messages written or marked as read.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Component
+public class UnreadCounters {
+
+    @Autowired
+    private IChatUnreadCounterRepository unreadCounterRepository;
+
+    @Autowired
+    private IMessageRepository messageRepository;
+
+    @Autowired
+    private IChatRepository chatRepository;
+
+    /**
+     * Adds new messages to the unread counter of a participant.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the ID of the participant who received them
+     * @param delta the number of messages
+     */
+    public void add(long chatId, long userId, long delta) {
+        if (unreadCounterRepository.increment(chatId, userId, delta) == 0) {
+            chatRepository.lockById(chatId);
+            if (unreadCounterRepository.increment(chatId, userId, delta) == 0) {
+                create(chatId, userId);
+            }
+        }
+    }
+
+    /**
+     * Subtracts messages marked as read from the unread counter of a participant.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the ID of the participant who read them
+     * @param delta the number of messages
+     */
+    public void subtract(long chatId, long userId, long delta) {
+        if (unreadCounterRepository.decrement(chatId, userId, delta) == 0) {
+            chatRepository.lockById(chatId);
+            if (unreadCounterRepository.decrement(chatId, userId, delta) == 0) {
+                create(chatId, userId);
+            }
+        }
+    }
+
+    private void create(long chatId, long userId) {
+        unreadCounterRepository.save(new ChatUnreadCounter(new ChatParticipantId(userId, chatId),
+                messageRepository.countUnread(chatId, userId)));
+    }
+
+}
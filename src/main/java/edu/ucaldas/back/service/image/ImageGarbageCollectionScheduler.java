@@ -0,0 +1,77 @@
+package edu.ucaldas.back.service.image;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.service.image.ImageGarbageCollector.GcReport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs {@link ImageGarbageCollector} periodically when {@code app.images.gc.enabled=true}.
+ * <p>
+ * Each run collects {@code app.images.gc.chunks-per-run} chunks, pausing between them, and remembers
+ * where it stopped; the next run continues the scan from there. When a scan reaches the end of the store
+ * its totals are logged (the dry-run report when {@code app.images.gc.dry-run=true}) and the next run
+ * starts over. With several instances only one should have the collector enabled.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.images.gc.enabled", havingValue = "true")
+public class ImageGarbageCollectionScheduler {
+
+    @Autowired
+    private ImageGarbageCollector imageGarbageCollector;
+
+    @Value("${app.images.gc.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.images.gc.chunks-per-run:10}")
+    private int chunksPerRun;
+
+    @Value("${app.images.gc.chunk-pause:1s}")
+    private Duration chunkPause;
+
+    @Value("${app.images.gc.dry-run:false}")
+    private boolean dryRun;
+
+    private String cursor;
+    private GcReport pass = GcReport.EMPTY;
+
+    /**
+     * Collects the next chunks of the current scan.
+     */
+    @Scheduled(initialDelayString = "${app.images.gc.interval:PT10M}", fixedDelayString = "${app.images.gc.interval:PT10M}")
+    public void run() {
+        try {
+            for (int i = 0; i < chunksPerRun; i++) {
+                if (i > 0) {
+                    Thread.sleep(chunkPause.toMillis());
+                }
+                GcReport chunk = imageGarbageCollector.collectChunk(cursor, chunkSize, dryRun);
+                pass = pass.plus(chunk);
+                cursor = chunk.cursor();
+                if (cursor == null) {
+                    log.info("Image GC {}pass finished: {} files scanned, {} live, {} too recent, {} garbage "
+                            + "({} bytes), {} deleted", dryRun ? "dry-run " : "", pass.scanned(), pass.live(),
+                            pass.recent(), pass.garbage(), pass.garbageBytes(), pass.deleted());
+                    pass = GcReport.EMPTY;
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Image GC run failed, it will resume from the same chunk", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package edu.ucaldas.back.service.image;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.ucaldas.back.infra.storage.BlobEntry;
+import edu.ucaldas.back.infra.storage.BlobListing;
+import edu.ucaldas.back.infra.storage.BlobStore;
+import edu.ucaldas.back.repository.IHouseImageRepository;
+import edu.ucaldas.back.repository.IImageMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes the stored images that nothing references anymore.
+ * <p>
+ * A file is live while an active {@link edu.ucaldas.back.models.rent.HouseImage} of an active house, or
+ * an active {@link edu.ucaldas.back.models.chat.ImageMessage}, refers to it. Content-addressed files
+ * (originals and variants, {@code <sha256>[-variant].<ext>}) are matched by hash, with the indexed
+ * {@code content_hash} column; older files by name. Everything else is garbage: files of failed uploads,
+ * of deactivated images and of deleted houses.
+ * </p>
+ * <p>
+ * The store is scanned in chunks ({@link BlobStore#list(String, int)}), with two or three queries per
+ * chunk, so a scan can be spread over many runs and never holds the whole listing. Files younger than
+ * {@code app.images.gc.grace-period} are skipped, because an upload stores its file before inserting
+ * its row (and a duplicate upload {@linkplain BlobStore#touch(String) touches} the existing file). Deletes
+ * are paced to {@code app.images.gc.max-deletes-per-second} to leave disk and network bandwidth to
+ * requests, so they may run long after the chunk was listed: each one is a compare-and-delete
+ * ({@link BlobStore#deleteIfUnmodified(String, Instant)}) that keeps the file if a duplicate upload
+ * touched it in the meantime.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Service
+public class ImageGarbageCollector {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}[-.].*");
+
+    @Autowired
+    private BlobStore blobStore;
+    @Autowired
+    private IHouseImageRepository houseImageRepository;
+    @Autowired
+    private IImageMessageRepository imageMessageRepository;
+
+    @Value("${app.images.gc.grace-period:1h}")
+    private Duration gracePeriod;
+
+    @Value("${app.images.gc.max-deletes-per-second:20}")
+    private int maxDeletesPerSecond;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Result of collecting one or more chunks.
+     *
+     * @param scanned files listed
+     * @param live files still referenced
+     * @param recent unreferenced files skipped because they are younger than the grace period
+     * @param garbage unreferenced files old enough to be deleted
+     * @param deleted garbage files actually deleted (0 in a dry run; files modified since they were listed are kept)
+     * @param garbageBytes total size of the garbage files
+     * @param cursor where the next chunk starts, or {@code null} when the scan reached the end of the store
+     */
+    public record GcReport(long scanned, long live, long recent, long garbage, long deleted, long garbageBytes,
+            String cursor) {
+
+        /**
+         * An empty report, to accumulate a scan.
+         */
+        public static final GcReport EMPTY = new GcReport(0, 0, 0, 0, 0, 0, null);
+
+        /**
+         * Adds the counts of a later chunk to this report.
+         *
+         * @param next the report of the next chunk
+         * @return the combined report, with the cursor of {@code next}
+         */
+        public GcReport plus(GcReport next) {
+            return new GcReport(scanned + next.scanned, live + next.live, recent + next.recent,
+                    garbage + next.garbage, deleted + next.deleted, garbageBytes + next.garbageBytes, next.cursor);
+        }
+    }
+
+    /**
+     * Collects one chunk of the store.
+     *
+     * @param cursor the cursor of the previous chunk, or {@code null} to start a new scan
+     * @param chunkSize the maximum number of files listed
+     * @param dryRun when true, garbage is only counted, never deleted
+     * @return what was found (and deleted) in the chunk, and where the next chunk starts
+     * @throws IOException if the store cannot be listed
+     */
+    public GcReport collectChunk(String cursor, int chunkSize, boolean dryRun) throws IOException {
+        BlobListing listing = blobStore.list(cursor, chunkSize);
+        List<BlobEntry> entries = listing.entries();
+        Instant cutoff = clock.instant().minus(gracePeriod);
+        Set<String> live = liveKeys(entries.stream().map(BlobEntry::key).toList());
+
+        long recent = 0;
+        List<BlobEntry> garbage = new ArrayList<>();
+        for (BlobEntry entry : entries) {
+            if (live.contains(entry.key())) {
+                continue;
+            }
+            if (entry.lastModified().isAfter(cutoff)) {
+                recent++;
+            } else {
+                garbage.add(entry);
+            }
+        }
+
+        long deleted = 0;
+        long garbageBytes = 0;
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+        long nextDelete = System.nanoTime();
+        for (BlobEntry entry : garbage) {
+            garbageBytes += entry.size();
+            if (dryRun) {
+                log.info("Image GC dry run: would delete {} ({} bytes, modified {})", entry.key(), entry.size(),
+                        entry.lastModified());
+                continue;
+            }
+            nextDelete = pace(nextDelete, interval);
+            try {
+                if (blobStore.deleteIfUnmodified(entry.key(), entry.lastModified())) {
+                    deleted++;
+                } else {
+                    log.debug("Kept unreferenced image {}: modified since it was listed", entry.key());
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete unreferenced image {}", entry.key(), e);
+            }
+        }
+        return new GcReport(entries.size(), live.size(), recent, garbage.size(), deleted, garbageBytes,
+                listing.cursor());
+    }
+
+    /**
+     * Returns the keys among the given ones that are still referenced.
+     */
+    private Set<String> liveKeys(List<String> keys) {
+        Set<String> live = new HashSet<>();
+        if (keys.isEmpty()) {
+            return live;
+        }
+        List<String> hashes = new ArrayList<>();
+        List<String> legacy = new ArrayList<>();
+        for (String key : keys) {
+            if (CONTENT_ADDRESSED.matcher(key).matches()) {
+                hashes.add(key.substring(0, 64));
+            } else {
+                legacy.add(key);
+            }
+        }
+        if (!hashes.isEmpty()) {
+            Set<String> liveHashes = new HashSet<>(houseImageRepository.findLiveContentHashes(hashes));
+            keys.stream()
+                    .filter(key -> CONTENT_ADDRESSED.matcher(key).matches() && liveHashes.contains(key.substring(0, 64)))
+                    .forEach(live::add);
+        }
+        if (!legacy.isEmpty()) {
+            Set<String> referenced = new HashSet<>();
+            for (Object[] row : houseImageRepository.findLiveFileNames(legacy)) {
+                for (Object fileName : row) {
+                    if (fileName != null) {
+                        referenced.add((String) fileName);
+                    }
+                }
+            }
+            legacy.stream().filter(referenced::contains).forEach(live::add);
+        }
+        live.addAll(imageMessageRepository.findLiveImageUrls(keys));
+        live.removeIf(key -> !keys.contains(key));
+        return live;
+    }
+
+    /**
+     * Waits until the next delete slot and returns the one after it.
+     */
+    private long pace(long nextDelete, long interval) {
+        long wait = nextDelete - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Math.max(nextDelete, System.nanoTime()) + interval;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+}
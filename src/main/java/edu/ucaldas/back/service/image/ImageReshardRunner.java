@@ -0,0 +1,74 @@
+package edu.ucaldas.back.service.image;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import edu.ucaldas.back.service.image.ImageReshardService.ReshardReport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts {@link ImageReshardService} when the application is launched with
+ * {@code app.images.reshard.enabled=true} and the images are on the local file system
+ * ({@code app.images.store=filesystem}, the only store the migration applies to).
+ * <p>
+ * The migration runs on its own thread, so a web instance keeps answering requests (and reports itself
+ * ready) while files are moved. It can also be run as a one-off process next to the running instances,
+ * with {@code app.images.reshard.exit-on-finish=true} (and a free {@code server.port}): that process is
+ * closed with {@link SpringApplication#exit} when the migration ends, since the web server and the
+ * scheduled tasks would otherwise keep it alive, and exits with status 1 if any file could not be moved.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${app.images.reshard.enabled:false} and '${app.images.store:filesystem}' == 'filesystem'")
+public class ImageReshardRunner implements ApplicationRunner {
+
+    @Autowired
+    private ImageReshardService imageReshardService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${app.images.reshard.threads:4}")
+    private int threads;
+
+    @Value("${app.images.reshard.exit-on-finish:false}")
+    private boolean exitOnFinish;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(() -> {
+            int status = reshard();
+            if (exitOnFinish) {
+                System.exit(SpringApplication.exit(context, () -> status));
+            }
+        }, "image-reshard");
+        thread.start();
+    }
+
+    /**
+     * Runs the migration.
+     *
+     * @return the exit status of a one-off process: 0 if every file was migrated, 1 otherwise
+     */
+    private int reshard() {
+        try {
+            ReshardReport report = imageReshardService.reshard(threads);
+            return report.failed() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            log.error("Image reshard failed", e);
+            return 1;
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package edu.ucaldas.back.service.image;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves the images stored in the flat uploads directory into the sharded layout of
+ * {@link FileSystemBlobStore}. Only available with {@code app.images.store=filesystem}.
+ * <p>
+ * The migration can run while the application is serving traffic: every move is an atomic rename
+ * inside the same file system, and {@link FileSystemBlobStore#resolve(String)} finds a file at either location,
+ * so a request never sees a missing image. The directory is read as a stream, so millions of entries
+ * are never held in memory, and the moves are spread over a fixed number of threads with a bounded
+ * queue. Running it again is harmless: files already in the sharded layout are not in the flat
+ * directory anymore.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.images.store", havingValue = "filesystem", matchIfMissing = true)
+public class ImageReshardService {
+
+    private static final int QUEUE_PER_THREAD = 256;
+
+    @Autowired
+    private FileSystemBlobStore blobStore;
+
+    /**
+     * Result of a migration run.
+     *
+     * @param moved files moved into the sharded layout
+     * @param duplicates files that already existed in the sharded layout; the flat copy was removed
+     * @param failed files that could not be moved and were left in place
+     */
+    public record ReshardReport(long moved, long duplicates, long failed) {
+    }
+
+    /**
+     * Moves every image of the flat uploads directory to its sharded location.
+     *
+     * @param threads number of files moved in parallel
+     * @return how many files were moved, deduplicated or left in place
+     * @throws IOException if the uploads directory cannot be listed
+     */
+    public ReshardReport reshard(int threads) throws IOException {
+        Path directory = blobStore.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return new ReshardReport(0, 0, 0);
+        }
+        AtomicLong moved = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                path -> Files.isRegularFile(path) && !path.getFileName().toString().endsWith(".tmp"))) {
+            for (Path file : files) {
+                executor.execute(() -> {
+                    try {
+                        if (move(file)) {
+                            moved.incrementAndGet();
+                        } else {
+                            duplicates.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                        log.warn("Could not move {} to the sharded layout", file, e);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+        ReshardReport report = new ReshardReport(moved.get(), duplicates.get(), failed.get());
+        log.info("Image reshard finished: {}", report);
+        return report;
+    }
+
+    /**
+     * Moves one file to its sharded location.
+     *
+     * @return true if the file was moved, false if the sharded location already had it
+     */
+    private boolean move(Path file) throws IOException {
+        Path target = blobStore.shardedPath(file.getFileName().toString());
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(file);
+            return false;
+        }
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(file);
+            return false;
+        }
+    }
+
+    private void awaitTermination(ThreadPoolExecutor executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Image reshard in progress, {} files pending", executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
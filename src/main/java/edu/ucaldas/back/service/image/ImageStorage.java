@@ -0,0 +1,192 @@
+package edu.ucaldas.back.service.image;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.ThrowingConsumer;
+import org.springframework.util.unit.DataSize;
+
+import edu.ucaldas.back.infra.exception.FileTooLarge;
+import edu.ucaldas.back.infra.exception.InvalidFile;
+import edu.ucaldas.back.infra.exception.SaveFileError;
+import edu.ucaldas.back.infra.storage.BlobStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes uploaded images to the {@link BlobStore} with bounded memory.
+ * <p>
+ * The upload is read in fixed-size chunks and written through a {@link FileChannel} to a temporary
+ * file in the local uploads directory. The format is detected from the first bytes before anything is
+ * written, and the size limit ({@code app.images.max-size}) is checked after every chunk, so an invalid
+ * or oversized upload is rejected without storing it. Only a complete file is handed to the
+ * {@link BlobStore} (a rename on the local file system, an upload to S3), so {@code /images/} never
+ * serves a partially written file.
+ * </p>
+ *
+ * <p>
+ * Storage is content-addressed: the SHA-256 of the content is computed while it is written and the
+ * file is named {@code <sha256>.<extension>}. The same photo uploaded for several houses is stored
+ * once (the second temporary file is simply discarded and the stored one is
+ * {@linkplain BlobStore#touch(String) touched}), and since a name always refers to the same
+ * bytes, the URL of an image never changes content and can be cached indefinitely. Several
+ * {@link edu.ucaldas.back.models.rent.HouseImage} rows may point to the same file, so a file must only
+ * be deleted when no row references its hash anymore.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Component
+public class ImageStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.images.directory:uploads}")
+    private Path directory;
+
+    @Value("${app.images.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    /**
+     * Stores an uploaded image.
+     *
+     * @param input the content of the upload; it is always closed
+     * @return the stored image, with its final file name and content hash
+     * @throws InvalidFile if the content is not a JPEG, PNG, GIF or WebP image
+     * @throws FileTooLarge if the content is larger than {@code app.images.max-size}
+     * @throws SaveFileError if the file cannot be written
+     */
+    public StoredImage store(InputStream input) {
+        Path temp = null;
+        try (InputStream in = input) {
+            Files.createDirectories(directory);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int headerLength = in.readNBytes(buffer.array(), 0, ImageFormat.HEADER_LENGTH);
+            ImageFormat format = ImageFormat.detect(buffer.array(), headerLength)
+                    .orElseThrow(() -> new InvalidFile("Invalid file type. Only JPEG, PNG, GIF and WebP images are allowed."));
+
+            temp = Files.createTempFile(directory, "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read = headerLength;
+                while (read != -1) {
+                    size += read;
+                    if (size > maxSize.toBytes()) {
+                        throw new FileTooLarge("Image exceeds the maximum size of " + maxSize.toMegabytes() + "MB");
+                    }
+                    digest.update(buffer.array(), 0, read);
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    read = in.read(buffer.array());
+                }
+                channel.force(false);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String fileName = contentHash + "." + format.getExtension();
+            if (!refresh(fileName)) {
+                blobStore.put(fileName, temp);
+            }
+            return new StoredImage(fileName, contentHash, format, size);
+        } catch (IOException e) {
+            throw new SaveFileError("Error trying to save image", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Writes a file generated by the application (e.g. a resized variant) with the same guarantees as
+     * {@link #store(InputStream)}: the content goes to a temporary file that is handed to the
+     * {@link BlobStore} only when complete.
+     *
+     * @param fileName the final name of the file
+     * @param writer writes the content of the file to the given stream
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String fileName, ThrowingConsumer<OutputStream> writer) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "variant-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+                writer.acceptWithException(out);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            blobStore.put(fileName, temp);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Deletes a stored image. Callers must first check that no other row references the same content.
+     *
+     * @param fileName the name returned by {@link #store(InputStream)}
+     */
+    public void delete(String fileName) {
+        try {
+            blobStore.delete(fileName);
+        } catch (IOException e) {
+            // A leftover file only wastes space: it is not referenced by any HouseImage row.
+            log.warn("Could not delete image {}", fileName, e);
+        }
+    }
+
+    /**
+     * Marks an existing file as just written, so the garbage collector's grace period covers the row
+     * that is about to reference it.
+     *
+     * @return false if there is no such file yet
+     */
+    private boolean refresh(String fileName) throws IOException {
+        try {
+            blobStore.touch(fileName);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // A leftover temporary file only wastes disk space.
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package edu.ucaldas.back.service.image;
+
+/**
+ * Resized copies generated for every uploaded house image.
+ * <p>
+ * Each variant is at most {@link #getMaxWidth()} pixels wide and keeps the aspect ratio of the
+ * original; images narrower than that are re-encoded without being enlarged.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 160),
+    CARD("card", 480),
+    FULL("full", 1280);
+
+    private final String suffix;
+    private final int maxWidth;
+
+    ImageVariant(String suffix, int maxWidth) {
+        this.suffix = suffix;
+        this.maxWidth = maxWidth;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Builds the file name of this variant from the file name of the original image.
+     *
+     * @param originalFileName the file name of the uploaded image, e.g. {@code 1f2e.png}
+     * @param format the format the variant is encoded in
+     * @return the file name of the variant, e.g. {@code 1f2e-thumb.jpg}
+     */
+    public String fileName(String originalFileName, ImageFormat format) {
+        int dot = originalFileName.lastIndexOf('.');
+        String base = dot == -1 ? originalFileName : originalFileName.substring(0, dot);
+        return base + "-" + suffix + "." + format.getExtension();
+    }
+
+}
@@ -0,0 +1,158 @@
+package edu.ucaldas.back.service.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import edu.ucaldas.back.infra.async.AsyncConfiguration;
+import edu.ucaldas.back.infra.storage.BlobStore;
+import edu.ucaldas.back.repository.IHouseImageRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the resized variants ({@link ImageVariant}) of uploaded house images in the background.
+ * <p>
+ * Runs on the bounded {@link AsyncConfiguration#IMAGE_EXECUTOR} pool, after the upload request has
+ * already returned. Images with transparency are re-encoded as PNG, all others as JPEG. When the
+ * original is much wider than the largest variant it is decoded with subsampling, so a 6000px photo
+ * is never fully expanded in memory. WebP uploads are kept as they are: the JDK has no WebP decoder.
+ * </p>
+ *
+ * @author juan-manoel
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private BlobStore blobStore;
+    @Autowired
+    private IHouseImageRepository houseImageRepository;
+
+    /**
+     * Generates and stores every variant of an image, then records their file names on the
+     * {@link edu.ucaldas.back.models.rent.HouseImage} row. Failures are logged and leave the
+     * variants empty; clients then fall back to the original image.
+     *
+     * @param houseImageId the identifier of the image row
+     * @param image the stored original
+     */
+    @Async(AsyncConfiguration.IMAGE_EXECUTOR)
+    public void generateVariants(long houseImageId, StoredImage image) {
+        if (image.format() == ImageFormat.WEBP) {
+            return;
+        }
+        try {
+            BufferedImage source = read(image.fileName(), ImageVariant.FULL.getMaxWidth());
+            ImageFormat format = source.getColorModel().hasAlpha() ? ImageFormat.PNG : ImageFormat.JPEG;
+            Map<ImageVariant, String> fileNames = new EnumMap<>(ImageVariant.class);
+            for (ImageVariant variant : ImageVariant.values()) {
+                String fileName = variant.fileName(image.fileName(), format);
+                BufferedImage resized = resize(source, variant.getMaxWidth(), format);
+                imageStorage.write(fileName, out -> encode(resized, format, out));
+                fileNames.put(variant, fileName);
+            }
+            houseImageRepository.updateVariants(houseImageId, fileNames.get(ImageVariant.THUMBNAIL),
+                    fileNames.get(ImageVariant.CARD), fileNames.get(ImageVariant.FULL));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate variants for image {} ({})", houseImageId, image.fileName(), e);
+        }
+    }
+
+    /**
+     * Decodes a stored image, skipping pixels when it is more than twice as wide as needed. The content
+     * is streamed from the {@link BlobStore}; ImageIO caches what it has read in a temporary file, not
+     * in the heap.
+     */
+    private BufferedImage read(String fileName, int targetWidth) throws IOException {
+        try (InputStream content = blobStore.open(fileName);
+                ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No decoder for " + fileName);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, reader.getWidth(0) / (2 * targetWidth));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down to at most {@code maxWidth} pixels, halving it repeatedly first so that
+     * bilinear interpolation keeps its quality on large reductions.
+     */
+    private BufferedImage resize(BufferedImage source, int maxWidth, ImageFormat format) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth()));
+        int type = format == ImageFormat.PNG ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2), type);
+        }
+        return draw(current, width, height, type);
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (type == BufferedImage.TYPE_INT_RGB) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void encode(BufferedImage image, ImageFormat format, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format.getExtension()).next();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format == ImageFormat.JPEG) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+}
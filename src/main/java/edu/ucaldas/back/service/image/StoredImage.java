@@ -0,0 +1,18 @@
+package edu.ucaldas.back.service.image;
+
+/**
+ * An image file that has been completely written to the uploads directory.
+ *
+ * @param fileName the name of the file inside the uploads directory, also the path under {@code /images/}
+ * @param contentHash the hex-encoded SHA-256 of the content, which the file name is derived from
+ * @param format the format detected from the content of the file
+ * @param size the size of the file in bytes
+ */
+public record StoredImage(
+    String fileName,
+    String contentHash,
+    ImageFormat format,
+    long size
+) {
+
+}
@@ -69,7 +69,7 @@ public class ValidationsRent {
      * @throws EntityNotFoundException if the house with the given ID does not exist or is not active
      */
     public boolean houseHasRent(Long idHouse) {
-        if (!houseRepository.findByIdAndIsActiveTrue(idHouse).isPresent()) {
+        if (!houseRepository.findActiveById(idHouse).isPresent()) {
             throw new EntityNotFoundException("House not found");
         }
         return rentRepository.existsActiveRentByHouseId(idHouse);
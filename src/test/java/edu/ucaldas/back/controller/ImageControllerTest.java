@@ -0,0 +1,173 @@
+package edu.ucaldas.back.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import edu.ucaldas.back.infra.cache.OffHeapByteCache;
+import edu.ucaldas.back.infra.erros.ErrorHandle;
+import edu.ucaldas.back.infra.storage.BlobStore;
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+
+class ImageControllerTest {
+
+	private static final String HASH = "a".repeat(64);
+
+	@TempDir
+	Path directory;
+
+	private ImageController controller;
+	private MockMvc mvc;
+	private byte[] content;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		controller = new ImageController();
+		ReflectionTestUtils.setField(controller, "blobStore", new FileSystemBlobStore(directory));
+		mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new ErrorHandle()).build();
+
+		content = new byte[1000];
+		Arrays.fill(content, (byte) 'x');
+		content[0] = 'a';
+		content[999] = 'z';
+		Files.write(directory.resolve(HASH + ".jpg"), content);
+		Files.write(directory.resolve("legacy-photo.png"), content);
+	}
+
+	@Test
+	void servesContentAddressedImageAsImmutable() throws Exception {
+		mvc.perform(get("/images/" + HASH + ".jpg"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"" + HASH + "\""))
+				.andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+				.andExpect(header().string("Content-Type", "image/jpeg"))
+				.andExpect(header().longValue("Content-Length", 1000))
+				.andExpect(content().bytes(content));
+	}
+
+	@Test
+	void legacyNamesAreRevalidated() throws Exception {
+		mvc.perform(get("/images/legacy-photo.png"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "public, max-age=3600"))
+				.andExpect(header().exists("ETag"));
+	}
+
+	@Test
+	void servesLegacyNamesWithSpacesAndParentheses() throws Exception {
+		String name = "0f8b3c1e-5d2a-4e6f-9a7b-1c2d3e4f5a6b-Casa frente (1).jpg";
+		Files.write(directory.resolve(name), content);
+
+		mvc.perform(get("/images/{fileName}", name))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "public, max-age=3600"))
+				.andExpect(content().bytes(content));
+	}
+
+	@Test
+	void leavesAccentedLegacyNamesToTheStore() throws Exception {
+		BlobStore store = mock(BlobStore.class);
+		when(store.stat(anyString())).thenReturn(Optional.empty());
+		ReflectionTestUtils.setField(controller, "blobStore", store);
+		String name = "0f8b3c1e-5d2a-4e6f-9a7b-1c2d3e4f5a6b-Casa señorial.jpg";
+
+		mvc.perform(get("/images/{fileName}", name)).andExpect(status().isNotFound());
+
+		verify(store).stat(name);
+	}
+
+	@Test
+	void answersNotModifiedForMatchingEtag() throws Exception {
+		mvc.perform(get("/images/" + HASH + ".jpg").header("If-None-Match", "\"other\", \"" + HASH + "\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void servesSingleByteRange() throws Exception {
+		mvc.perform(get("/images/" + HASH + ".jpg").header("Range", "bytes=990-"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string("Content-Range", "bytes 990-999/1000"))
+				.andExpect(header().longValue("Content-Length", 10))
+				.andExpect(content().bytes(Arrays.copyOfRange(content, 990, 1000)));
+
+		mvc.perform(get("/images/" + HASH + ".jpg").header("Range", "bytes=-1"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().bytes(new byte[] { 'z' }));
+	}
+
+	@Test
+	void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+		mvc.perform(get("/images/" + HASH + ".jpg").header("Range", "bytes=0-9").header("If-Range", "\"stale\""))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(content));
+	}
+
+	@Test
+	void rejectsRangeOutsideFile() throws Exception {
+		mvc.perform(get("/images/" + HASH + ".jpg").header("Range", "bytes=1000-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string("Content-Range", "bytes */1000"));
+	}
+
+	@Test
+	void servesSmallImagesFromCacheAfterFirstRead() throws Exception {
+		OffHeapByteCache cache = new OffHeapByteCache("images", 64 * 1024, 16 * 1024, 1024, 4 * 1024);
+		ReflectionTestUtils.setField(controller, "imageCache", cache);
+		mvc.perform(get("/images/" + HASH + ".jpg")).andExpect(content().bytes(content));
+		Files.delete(directory.resolve(HASH + ".jpg"));
+
+		mvc.perform(get("/images/" + HASH + ".jpg"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"" + HASH + "\""))
+				.andExpect(header().longValue("Content-Length", 1000))
+				.andExpect(content().bytes(content));
+		mvc.perform(get("/images/" + HASH + ".jpg").header("Range", "bytes=990-"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().bytes(Arrays.copyOfRange(content, 990, 1000)));
+
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void releasesCachedImageOnceItIsSent() throws Exception {
+		OffHeapByteCache cache = new OffHeapByteCache("images", 1024, 1024, 1024, 1024);
+		ReflectionTestUtils.setField(controller, "imageCache", cache);
+		mvc.perform(get("/images/" + HASH + ".jpg"));
+		mvc.perform(get("/images/" + HASH + ".jpg")).andExpect(content().bytes(content));
+
+		assertTrue(cache.put("other", new byte[1024]));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void answersNotFoundForMissingOrInvalidNames() throws Exception {
+		mvc.perform(get("/images/" + "b".repeat(64) + ".jpg")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/..%2Fsecret.txt")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/..")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/{fileName}", "uploads\\secret.txt")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/{fileName}", "photo\u0000.jpg")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/{fileName}", "missing (1).jpg")).andExpect(status().isNotFound());
+	}
+
+}
@@ -0,0 +1,132 @@
+package edu.ucaldas.back.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Requests per second served by {@link ImageController} versus the static resource handler it replaced,
+ * mounted again under {@code /images/legacy/} for the comparison, with 8 concurrent clients in the same
+ * process. Run with {@code -Dimages.benchmark=true} to measure.
+ */
+@EnabledIfSystemProperty(named = "images.benchmark", matches = "true")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = "app.images.directory=" + ImageHandlerBenchmarkTest.DIRECTORY)
+class ImageHandlerBenchmarkTest {
+
+	static final String DIRECTORY = "target/image-benchmark";
+
+	private static final int CLIENTS = 8;
+	private static final long SCENARIO_MILLIS = 5000;
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	/**
+	 * The handler removed by {@link ImageController}: {@code /images/**} mapped to the uploads directory.
+	 */
+	@TestConfiguration
+	static class LegacyImageHandler implements WebMvcConfigurer {
+
+		@Override
+		public void addResourceHandlers(ResourceHandlerRegistry registry) {
+			registry.addResourceHandler("/images/legacy/**").addResourceLocations("file:" + DIRECTORY + "/");
+		}
+
+	}
+
+	@Test
+	void measuresRequestsPerSecond() throws Exception {
+		String full = write(256 * 1024, "");
+		String thumb = write(3 * 1024, "-thumb");
+
+		for (int round = 1; round <= 2; round++) {
+			System.out.printf("Round %d%n", round);
+			report("full (256 KB)", measure(get("/images/legacy/" + full).build()), measure(get("/images/" + full).build()));
+			report("thumb (3 KB)", measure(get("/images/legacy/" + thumb).build()), measure(get("/images/" + thumb).build()));
+			HttpResponse<Void> legacy = send(get("/images/legacy/" + full).build());
+			HttpResponse<Void> current = send(get("/images/" + full).build());
+			report("revalidation (304)",
+					measure(get("/images/legacy/" + full)
+							.header("If-Modified-Since", legacy.headers().firstValue("Last-Modified").orElseThrow()).build()),
+					measure(get("/images/" + full)
+							.header("If-None-Match", current.headers().firstValue("ETag").orElseThrow()).build()));
+		}
+	}
+
+	private double measure(HttpRequest request) throws Exception {
+		int expected = send(request).statusCode();
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		AtomicBoolean running = new AtomicBoolean(true);
+		try {
+			List<Future<Long>> counts = new ArrayList<>();
+			long start = System.nanoTime();
+			for (int i = 0; i < CLIENTS; i++) {
+				counts.add(clients.submit(() -> {
+					long served = 0;
+					while (running.get()) {
+						assertEquals(expected, send(request).statusCode());
+						served++;
+					}
+					return served;
+				}));
+			}
+			Thread.sleep(SCENARIO_MILLIS);
+			running.set(false);
+			long served = 0;
+			for (Future<Long> count : counts) {
+				served += count.get();
+			}
+			return served * 1e9 / (System.nanoTime() - start);
+		} finally {
+			clients.shutdown();
+		}
+	}
+
+	private HttpRequest.Builder get(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+	}
+
+	private HttpResponse<Void> send(HttpRequest request) throws Exception {
+		return client.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+
+	private static String write(int size, String variant) throws Exception {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		String name = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)) + variant + ".jpg";
+		Files.createDirectories(Path.of(DIRECTORY));
+		Files.write(Path.of(DIRECTORY, name), content);
+		return name;
+	}
+
+	private static void report(String scenario, double legacy, double current) {
+		System.out.printf("%s: static handler %.0f req/s, ImageController %.0f req/s%n", scenario, legacy, current);
+	}
+
+}
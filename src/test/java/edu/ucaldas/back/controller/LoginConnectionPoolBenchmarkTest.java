@@ -0,0 +1,114 @@
+package edu.ucaldas.back.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@code POST /login} throughput and connection pool use with open-in-view on and off: 8 concurrent
+ * clients against a pool of 2 connections, so a login that holds its connection during BCrypt is capped
+ * by the pool. Run with {@code -Dlogin.benchmark=true} against the database to measure.
+ */
+@EnabledIfSystemProperty(named = "login.benchmark", matches = "true")
+class LoginConnectionPoolBenchmarkTest {
+
+	private static final int CLIENTS = 8;
+	private static final int WARMUP = 40;
+	private static final int LOGINS = 200;
+	private static final String PASSWORD = "Bench1234";
+
+	@Nested
+	@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+			"spring.jpa.open-in-view=true",
+			"spring.datasource.hikari.maximum-pool-size=2",
+			"spring.datasource.hikari.minimum-idle=2" })
+	class OpenInView {
+
+		@Test
+		void measuresLogins(@LocalServerPort int port, @Autowired JdbcTemplate jdbcTemplate,
+				@Autowired PasswordEncoder passwordEncoder, @Autowired MeterRegistry meterRegistry) throws Exception {
+			measure("open-in-view=true", "osiv@bench.com", port, jdbcTemplate, passwordEncoder, meterRegistry);
+		}
+
+	}
+
+	@Nested
+	@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+			"spring.jpa.open-in-view=false",
+			"spring.datasource.hikari.maximum-pool-size=2",
+			"spring.datasource.hikari.minimum-idle=2" })
+	class WithoutOpenInView {
+
+		@Test
+		void measuresLogins(@LocalServerPort int port, @Autowired JdbcTemplate jdbcTemplate,
+				@Autowired PasswordEncoder passwordEncoder, @Autowired MeterRegistry meterRegistry) throws Exception {
+			measure("open-in-view=false", "no-osiv@bench.com", port, jdbcTemplate, passwordEncoder, meterRegistry);
+		}
+
+	}
+
+	private static void measure(String mode, String email, int port, JdbcTemplate jdbcTemplate,
+			PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) throws Exception {
+		jdbcTemplate.update("INSERT INTO users (name, email, password, type_user, stars, is_active) "
+				+ "VALUES ('Bench', ?, ?, 'CLIENT', 0, true)", email, passwordEncoder.encode(PASSWORD));
+		HttpClient client = HttpClient.newHttpClient();
+		HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(
+						"{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+				.build();
+
+		send(client, login, WARMUP);
+		Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+		Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+		double usageBefore = usage.totalTime(TimeUnit.MILLISECONDS);
+		double acquireBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		send(client, login, LOGINS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double held = (usage.totalTime(TimeUnit.MILLISECONDS) - usageBefore) / LOGINS;
+		double waited = (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireBefore) / LOGINS;
+
+		System.out.printf("%s: %.1f logins/s, connection held %.1f ms and awaited %.1f ms per login, "
+				+ "pool ceiling %.1f logins/s%n", mode, LOGINS / seconds, held, waited,
+				held == 0 ? Double.POSITIVE_INFINITY : 2 * 1000 / held);
+	}
+
+	private static void send(HttpClient client, HttpRequest login, int logins) throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		try {
+			List<Future<Integer>> statuses = new ArrayList<>();
+			for (int i = 0; i < logins; i++) {
+				statuses.add(clients.submit(() -> client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode()));
+			}
+			for (Future<Integer> status : statuses) {
+				assertEquals(200, status.get());
+			}
+		} finally {
+			clients.shutdown();
+		}
+	}
+
+}
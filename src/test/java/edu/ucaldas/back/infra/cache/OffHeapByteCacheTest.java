@@ -0,0 +1,147 @@
+package edu.ucaldas.back.infra.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OffHeapByteCacheTest {
+
+	private static final int PAGE = 1024;
+
+	@Test
+	void storesValuesAcrossPagesAndSlabs() {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 8 * PAGE, 4 * PAGE, PAGE, 6 * PAGE);
+		byte[] large = value(5 * PAGE + 17, 1);
+		byte[] small = value(10, 2);
+
+		assertTrue(cache.put("large", large));
+		assertTrue(cache.put("small", small));
+
+		assertArrayEquals(large, read(cache, "large"));
+		assertArrayEquals(small, read(cache, "small"));
+		assertEquals(2, cache.size());
+		assertEquals(large.length + small.length, cache.usedBytes());
+		assertEquals(8 * PAGE, cache.allocatedBytes());
+	}
+
+	@Test
+	void rejectsValuesLargerThanMaxEntrySize() {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 8 * PAGE, 4 * PAGE, PAGE, 2 * PAGE);
+
+		assertFalse(cache.put("large", value(2 * PAGE + 1, 1)));
+		assertNull(read(cache, "large"));
+		assertEquals(0, cache.allocatedBytes());
+	}
+
+	@Test
+	void evictsRarelyReadEntriesFirst() {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 4 * PAGE, 4 * PAGE, PAGE, 4 * PAGE);
+		cache.put("popular", value(PAGE, 1));
+		cache.put("cold", value(PAGE, 2));
+		cache.put("warm", value(PAGE, 3));
+		cache.put("other", value(PAGE, 4));
+		for (int i = 0; i < 5; i++) {
+			read(cache, "popular");
+		}
+		read(cache, "warm");
+
+		cache.put("new", value(2 * PAGE, 5));
+
+		assertNotNull(read(cache, "popular"));
+		assertNotNull(read(cache, "warm"));
+		assertNotNull(read(cache, "new"));
+		assertNull(read(cache, "cold"));
+		assertNull(read(cache, "other"));
+	}
+
+	@Test
+	void evictsLargeEntriesBeforeSmallOnesWithTheSameHits() {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 4 * PAGE, 4 * PAGE, PAGE, 4 * PAGE);
+		cache.put("large", value(2 * PAGE, 1));
+		cache.put("small", value(PAGE, 2));
+		read(cache, "large");
+		read(cache, "small");
+
+		cache.put("new", value(2 * PAGE, 3));
+
+		assertNull(read(cache, "large"));
+		assertNotNull(read(cache, "small"));
+	}
+
+	@Test
+	void publishesHitRatioAndServedBytes() {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 4 * PAGE, 4 * PAGE, PAGE, 4 * PAGE);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		cache.bindTo(registry);
+		cache.put("a", value(100, 1));
+
+		read(cache, "a");
+		read(cache, "a");
+		read(cache, "b");
+		cache.recordServed(200);
+
+		assertEquals(2.0 / 3, registry.get("offheap.cache.hit.ratio").tag("cache", "test").gauge().value(), 1e-9);
+		assertEquals(200, registry.get("offheap.cache.served").functionCounter().count());
+		assertEquals(1, registry.get("offheap.cache.gets").tag("result", "miss").functionCounter().count());
+		assertEquals(1, registry.get("offheap.cache.entries").gauge().value());
+	}
+
+	@Test
+	void keepsPinnedEntriesUntilTheirValueIsClosed() throws Exception {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 4 * PAGE, 4 * PAGE, PAGE, 4 * PAGE);
+		byte[] pinned = value(2 * PAGE, 1);
+		cache.put("pinned", pinned);
+		cache.put("other", value(2 * PAGE, 2));
+
+		try (OffHeapByteCache.Value value = cache.get("pinned")) {
+			assertFalse(cache.put("too-large", value(3 * PAGE, 3)));
+			assertTrue(cache.put("new", value(2 * PAGE, 4)));
+			assertNull(read(cache, "other"));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			value.writeTo(Channels.newChannel(out), 0, pinned.length);
+			assertArrayEquals(pinned, out.toByteArray());
+		}
+		assertTrue(cache.put("too-large", value(3 * PAGE, 3)));
+		assertNull(read(cache, "pinned"));
+	}
+
+	@Test
+	void writesRangesThatCrossPages() throws Exception {
+		OffHeapByteCache cache = new OffHeapByteCache("test", 8 * PAGE, 4 * PAGE, PAGE, 6 * PAGE);
+		byte[] content = value(3 * PAGE + 100, 1);
+		cache.put("a", content);
+
+		try (OffHeapByteCache.Value value = cache.get("a")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			value.writeTo(Channels.newChannel(out), PAGE - 10, 3 * PAGE + 50);
+			assertArrayEquals(Arrays.copyOfRange(content, PAGE - 10, 3 * PAGE + 50), out.toByteArray());
+			assertEquals(content.length, value.length());
+		}
+	}
+
+	private static byte[] read(OffHeapByteCache cache, String key) {
+		try (OffHeapByteCache.Value value = cache.get(key)) {
+			return value == null ? null : value.toByteArray();
+		}
+	}
+
+	private static byte[] value(int size, int seed) {
+		byte[] value = new byte[size];
+		for (int i = 0; i < size; i++) {
+			value[i] = (byte) (i * 31 + seed);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,151 @@
+package edu.ucaldas.back.infra.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicaRoutingDataSourceTest {
+
+	private final MutableClock clock = new MutableClock();
+	private JdbcTemplate jdbc;
+	private TransactionTemplate readOnly;
+	private TransactionTemplate readWrite;
+
+	@BeforeEach
+	void setUp() {
+		DataSource primary = database("primary");
+		DataSource replica1 = database("replica1");
+		DataSource replica2 = database("replica2");
+		var tracker = new ReadYourWritesTracker(Duration.ofSeconds(5), clock);
+
+		var dataSource = new LazyConnectionDataSourceProxy(primary);
+		dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), tracker));
+
+		var transactionManager = new DataSourceTransactionManager(dataSource);
+		transactionManager.addListener(new WriteTrackingTransactionListener(tracker));
+		jdbc = new JdbcTemplate(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void readWriteTransactionsUsePrimary() {
+		assertEquals("primary", readWrite.execute(status -> serverName()));
+	}
+
+	@Test
+	void readOnlyTransactionsAlternateBetweenReplicas() {
+		assertEquals("replica1", readOnly.execute(status -> serverName()));
+		assertEquals("replica2", readOnly.execute(status -> serverName()));
+		assertEquals("replica1", readOnly.execute(status -> serverName()));
+	}
+
+	@Test
+	void userReadsFromPrimaryWithinWindowAfterWriting() {
+		authenticate("writer@mail.com");
+		readWrite.executeWithoutResult(status -> jdbc.update("UPDATE server SET writes = writes + 1"));
+
+		clock.advance(Duration.ofSeconds(4));
+		assertEquals("primary", readOnly.execute(status -> serverName()));
+
+		authenticate("other@mail.com");
+		assertEquals("replica1", readOnly.execute(status -> serverName()));
+	}
+
+	@Test
+	void userReadsFromReplicaAgainOnceWindowHasPassed() {
+		authenticate("writer@mail.com");
+		readWrite.executeWithoutResult(status -> jdbc.update("UPDATE server SET writes = writes + 1"));
+
+		clock.advance(Duration.ofSeconds(5));
+		assertEquals("replica1", readOnly.execute(status -> serverName()));
+	}
+
+	@Test
+	void rolledBackWritesDoNotPinUserToPrimary() {
+		authenticate("writer@mail.com");
+		readWrite.executeWithoutResult(status -> {
+			jdbc.update("UPDATE server SET writes = writes + 1");
+			status.setRollbackOnly();
+		});
+
+		assertEquals("replica1", readOnly.execute(status -> serverName()));
+	}
+
+	@Test
+	void readOnlyTransactionsDoNotPinUserToPrimary() {
+		authenticate("reader@mail.com");
+		readOnly.execute(status -> serverName());
+
+		assertEquals("replica2", readOnly.execute(status -> serverName()));
+	}
+
+	private String serverName() {
+		return jdbc.queryForObject("SELECT name FROM server", String.class);
+	}
+
+	private static DataSource database(String name) {
+		var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		var jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("DROP TABLE IF EXISTS server");
+		jdbc.execute("CREATE TABLE server (name VARCHAR(20), writes INT)");
+		jdbc.update("INSERT INTO server VALUES (?, 0)", name);
+		return dataSource;
+	}
+
+	private static void authenticate(String email) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.NO_AUTHORITIES));
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
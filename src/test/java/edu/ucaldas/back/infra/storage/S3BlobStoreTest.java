@@ -0,0 +1,429 @@
+package edu.ucaldas.back.infra.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.ucaldas.back.service.image.ImageStorage;
+import edu.ucaldas.back.service.image.StoredImage;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Runs {@link S3BlobStore} against a minimal S3 stand-in served from the test itself.
+ */
+class S3BlobStoreTest {
+
+	private static final String BUCKET = "images";
+
+	@TempDir
+	Path directory;
+
+	private FakeS3 fakeS3;
+	private S3Client s3;
+	private S3BlobStore store;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		fakeS3 = new FakeS3();
+		s3 = S3Client.builder()
+				.endpointOverride(URI.create("http://localhost:" + fakeS3.port()))
+				.region(Region.US_EAST_1)
+				.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+				.forcePathStyle(true)
+				.requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+				.responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED)
+				.build();
+		store = new S3BlobStore(s3, BUCKET, 100 * 1024, 64 * 1024);
+	}
+
+	@AfterEach
+	void tearDown() {
+		s3.close();
+		fakeS3.stop();
+	}
+
+	@Test
+	void putsSmallFileInOneRequestAndReadsItBack() throws IOException {
+		byte[] content = content(40 * 1024);
+
+		store.put("photo.jpg", file(content));
+
+		assertArrayEquals(content, fakeS3.objects.get("photo.jpg"));
+		assertEquals("image/jpeg", fakeS3.contentTypes.get("photo.jpg"));
+		assertEquals(0, fakeS3.uploadedParts.get());
+		assertEquals(content.length, store.stat("photo.jpg").orElseThrow().size());
+		try (InputStream in = store.open("photo.jpg")) {
+			assertArrayEquals(content, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void putsLargeFileAsMultipartUpload() throws IOException {
+		byte[] content = content(200 * 1024 + 7);
+
+		store.put("large.png", file(content));
+
+		assertEquals(4, fakeS3.uploadedParts.get());
+		assertArrayEquals(content, fakeS3.objects.get("large.png"));
+		assertTrue(fakeS3.uploads.isEmpty());
+	}
+
+	@Test
+	void readsByteRanges() throws IOException {
+		byte[] content = content(10 * 1024);
+		store.put("photo.jpg", file(content));
+
+		try (InputStream in = store.open("photo.jpg", 1000, 1010)) {
+			assertArrayEquals(Arrays.copyOfRange(content, 1000, 1010), in.readAllBytes());
+		}
+	}
+
+	@Test
+	void reportsMissingBlobs() throws IOException {
+		assertTrue(store.stat("missing.jpg").isEmpty());
+		assertThrows(NoSuchFileException.class, () -> store.open("missing.jpg").close());
+	}
+
+	@Test
+	void deletesBlobs() throws IOException {
+		store.put("photo.jpg", file(content(1024)));
+
+		store.delete("photo.jpg");
+		store.delete("photo.jpg");
+
+		assertFalse(fakeS3.objects.containsKey("photo.jpg"));
+	}
+
+	@Test
+	void touchesBlobsWithServerSideCopy() throws IOException {
+		byte[] content = content(1024);
+		store.put("photo.jpg", file(content));
+		Instant old = Instant.now().minus(Duration.ofDays(2));
+		fakeS3.modified.put("photo.jpg", old);
+
+		store.touch("photo.jpg");
+
+		assertTrue(fakeS3.modified.get("photo.jpg").isAfter(old));
+		assertArrayEquals(content, fakeS3.objects.get("photo.jpg"));
+		assertEquals("image/jpeg", fakeS3.contentTypes.get("photo.jpg"));
+		assertThrows(NoSuchFileException.class, () -> store.touch("missing.jpg"));
+	}
+
+	@Test
+	void deletesBlobOnlyIfNotModifiedSinceListed() throws IOException {
+		store.put("photo.jpg", file(content(100)));
+		Instant listed = Instant.now().minus(Duration.ofDays(2)).truncatedTo(ChronoUnit.SECONDS);
+		fakeS3.modified.put("photo.jpg", listed);
+		store.touch("photo.jpg");
+
+		assertFalse(store.deleteIfUnmodified("photo.jpg", listed));
+		assertTrue(fakeS3.objects.containsKey("photo.jpg"));
+
+		fakeS3.modified.put("photo.jpg", listed);
+		assertTrue(store.deleteIfUnmodified("photo.jpg", listed));
+		assertFalse(fakeS3.objects.containsKey("photo.jpg"));
+		assertFalse(store.deleteIfUnmodified("photo.jpg", listed));
+	}
+
+	@Test
+	void listsBlobsInChunks() throws IOException {
+		for (String key : List.of("c.jpg", "a.jpg", "d.jpg", "b.jpg", "e.jpg")) {
+			store.put(key, file(content(100)));
+		}
+
+		BlobListing first = store.list(null, 2);
+		BlobListing second = store.list(first.cursor(), 2);
+		BlobListing third = store.list(second.cursor(), 2);
+
+		assertEquals(List.of("a.jpg", "b.jpg"), first.entries().stream().map(BlobEntry::key).toList());
+		assertEquals(List.of("c.jpg", "d.jpg"), second.entries().stream().map(BlobEntry::key).toList());
+		assertEquals(List.of("e.jpg"), third.entries().stream().map(BlobEntry::key).toList());
+		assertEquals(100, third.entries().get(0).size());
+		assertNull(third.cursor());
+	}
+
+	@Test
+	void imageStorageUploadsToBucketWithoutKeepingLocalFiles() throws IOException {
+		ImageStorage storage = new ImageStorage();
+		ReflectionTestUtils.setField(storage, "directory", directory);
+		ReflectionTestUtils.setField(storage, "maxSize", DataSize.ofKilobytes(200));
+		ReflectionTestUtils.setField(storage, "blobStore", store);
+		byte[] png = content(20 * 1024);
+		System.arraycopy(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' }, 0, png, 0, 8);
+
+		StoredImage image = storage.store(new ByteArrayInputStream(png));
+		storage.store(new ByteArrayInputStream(png));
+
+		assertArrayEquals(png, fakeS3.objects.get(image.fileName()));
+		assertEquals(1, fakeS3.objects.size());
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	private Path file(byte[] content) throws IOException {
+		return Files.write(Files.createTempFile(directory, "blob-", ".tmp"), content);
+	}
+
+	private static byte[] content(int size) {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) (i * 31 + i / 251);
+		}
+		return content;
+	}
+
+	/**
+	 * The subset of the S3 REST API used by {@link S3BlobStore}, on one bucket, kept in memory.
+	 */
+	private static class FakeS3 {
+
+		final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+		final Map<String, Instant> modified = new ConcurrentHashMap<>();
+		final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+		final AtomicInteger uploadedParts = new AtomicInteger();
+		private final HttpServer server;
+
+		FakeS3() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/" + BUCKET, exchange -> {
+				try (exchange) {
+					handle(exchange);
+				}
+			});
+			server.start();
+		}
+
+		int port() {
+			return server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : "";
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			String method = exchange.getRequestMethod();
+			String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+			if (method.equals("GET") && query.containsKey("list-type")) {
+				list(exchange, query);
+			} else if (method.equals("PUT") && copySource != null) {
+				body(exchange);
+				String source = copySource.substring(copySource.indexOf(BUCKET + "/") + BUCKET.length() + 1);
+				byte[] content = objects.get(source);
+				if (content == null) {
+					xml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message>"
+							+ "<Key>" + source + "</Key></Error>");
+					return;
+				}
+				objects.put(key, content);
+				contentTypes.put(key, exchange.getRequestHeaders().getFirst("Content-Type"));
+				modified.put(key, Instant.now());
+				xml(exchange, 200, "<CopyObjectResult><ETag>" + etag(content) + "</ETag><LastModified>"
+						+ modified.get(key) + "</LastModified></CopyObjectResult>");
+			} else if (method.equals("POST") && query.containsKey("uploads")) {
+				String uploadId = UUID.randomUUID().toString();
+				uploads.put(uploadId, new TreeMap<>());
+				contentTypes.put(key, exchange.getRequestHeaders().getFirst("Content-Type"));
+				xml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+						+ "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+			} else if (method.equals("PUT") && query.containsKey("partNumber")) {
+				byte[] part = body(exchange);
+				uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), part);
+				uploadedParts.incrementAndGet();
+				exchange.getResponseHeaders().set("ETag", etag(part));
+				exchange.sendResponseHeaders(200, -1);
+			} else if (method.equals("POST") && query.containsKey("uploadId")) {
+				body(exchange);
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				for (byte[] part : uploads.remove(query.get("uploadId")).values()) {
+					content.writeBytes(part);
+				}
+				objects.put(key, content.toByteArray());
+				modified.put(key, Instant.now());
+				xml(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+						+ "</Key><ETag>" + etag(content.toByteArray()) + "</ETag></CompleteMultipartUploadResult>");
+			} else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+				uploads.remove(query.get("uploadId"));
+				exchange.sendResponseHeaders(204, -1);
+			} else if (method.equals("PUT")) {
+				objects.put(key, body(exchange));
+				modified.put(key, Instant.now());
+				contentTypes.put(key, exchange.getRequestHeaders().getFirst("Content-Type"));
+				exchange.getResponseHeaders().set("ETag", etag(objects.get(key)));
+				exchange.sendResponseHeaders(200, -1);
+			} else if (method.equals("DELETE")) {
+				objects.remove(key);
+				modified.remove(key);
+				exchange.sendResponseHeaders(204, -1);
+			} else if (method.equals("HEAD") || method.equals("GET")) {
+				get(exchange, key, method.equals("HEAD"));
+			} else {
+				exchange.sendResponseHeaders(405, -1);
+			}
+		}
+
+		private void get(HttpExchange exchange, String key, boolean head) throws IOException {
+			byte[] content = objects.get(key);
+			if (content == null) {
+				if (head) {
+					exchange.sendResponseHeaders(404, -1);
+				} else {
+					xml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message>"
+							+ "<Key>" + key + "</Key></Error>");
+				}
+				return;
+			}
+			int start = 0;
+			int end = content.length;
+			String range = exchange.getRequestHeaders().getFirst("Range");
+			if (range != null) {
+				String[] bounds = range.substring("bytes=".length()).split("-");
+				start = Integer.parseInt(bounds[0]);
+				end = Math.min(content.length, Integer.parseInt(bounds[1]) + 1);
+				exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + content.length);
+			}
+			exchange.getResponseHeaders().set("ETag", etag(content));
+			exchange.getResponseHeaders().set("Last-Modified",
+					DateTimeFormatter.RFC_1123_DATE_TIME.format(modified.get(key).atZone(ZoneOffset.UTC)));
+			exchange.getResponseHeaders().set("Content-Type", contentTypes.getOrDefault(key, "application/octet-stream"));
+			if (head) {
+				exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(range == null ? 200 : 206, end - start);
+			exchange.getResponseBody().write(content, start, end - start);
+		}
+
+		private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+			String startAfter = query.getOrDefault("start-after", "");
+			int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+			List<String> keys = new TreeMap<>(objects).keySet().stream()
+					.filter(key -> key.compareTo(startAfter) > 0)
+					.toList();
+			StringBuilder body = new StringBuilder("<ListBucketResult><Name>" + BUCKET + "</Name><KeyCount>"
+					+ Math.min(maxKeys, keys.size()) + "</KeyCount><MaxKeys>" + maxKeys + "</MaxKeys><IsTruncated>"
+					+ (keys.size() > maxKeys) + "</IsTruncated>");
+			for (String key : keys.subList(0, Math.min(maxKeys, keys.size()))) {
+				body.append("<Contents><Key>").append(key).append("</Key><LastModified>").append(modified.get(key))
+						.append("</LastModified><Size>").append(objects.get(key).length).append("</Size></Contents>");
+			}
+			xml(exchange, 200, body.append("</ListBucketResult>").toString());
+		}
+
+		/**
+		 * Reads a request body, decoding the {@code aws-chunked} encoding the SDK uses for signed
+		 * streaming uploads over plain HTTP.
+		 */
+		private byte[] body(HttpExchange exchange) throws IOException {
+			byte[] raw = exchange.getRequestBody().readAllBytes();
+			String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+			String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+			boolean chunked = (sha256 != null && sha256.startsWith("STREAMING-"))
+					|| (encoding != null && encoding.contains("aws-chunked"));
+			if (!chunked) {
+				return raw;
+			}
+			ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+			int position = 0;
+			while (true) {
+				int lineEnd = indexOfCrlf(raw, position);
+				String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+				int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+				position = lineEnd + 2;
+				if (size == 0) {
+					return decoded.toByteArray();
+				}
+				decoded.write(raw, position, size);
+				position += size + 2;
+			}
+		}
+
+		private static int indexOfCrlf(byte[] data, int from) {
+			for (int i = from; i < data.length - 1; i++) {
+				if (data[i] == '\r' && data[i + 1] == '\n') {
+					return i;
+				}
+			}
+			throw new IllegalArgumentException("Malformed aws-chunked body");
+		}
+
+		private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+			byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/xml");
+			exchange.sendResponseHeaders(status, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		}
+
+		private static Map<String, String> query(String rawQuery) {
+			Map<String, String> query = new TreeMap<>();
+			if (rawQuery != null) {
+				for (String parameter : rawQuery.split("&")) {
+					int equals = parameter.indexOf('=');
+					query.put(equals == -1 ? parameter : parameter.substring(0, equals),
+							equals == -1 ? "" : parameter.substring(equals + 1));
+				}
+			}
+			return query;
+		}
+
+		private static String etag(byte[] content) {
+			try {
+				return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}
+
+}
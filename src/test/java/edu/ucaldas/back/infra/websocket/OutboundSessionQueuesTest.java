@@ -0,0 +1,238 @@
+package edu.ucaldas.back.infra.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.Session;
+
+class OutboundSessionQueuesTest {
+
+	private MeterRegistry registry;
+	private OutboundSessionQueues queues;
+	private CountDownLatch writing;
+	private CountDownLatch slow;
+	private List<String> written;
+	private WebSocketSession session;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new SimpleMeterRegistry();
+		queues = new OutboundSessionQueues();
+		ReflectionTestUtils.setField(queues, "meterRegistry",
+				new StaticListableBeanFactory(Map.of("registry", registry)).getBeanProvider(MeterRegistry.class));
+		ReflectionTestUtils.setField(queues, "capacity", 2);
+		ReflectionTestUtils.setField(queues, "overflow", OutboundSessionQueues.Overflow.DROP_OLDEST);
+		ReflectionTestUtils.setField(queues, "slowTimeout", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(queues, "poolSize", 1);
+		ReflectionTestUtils.setField(queues, "sweepInterval", Duration.ofMillis(20));
+		writing = new CountDownLatch(1);
+		slow = new CountDownLatch(1);
+		written = new CopyOnWriteArrayList<>();
+		session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("s1");
+		doAnswer(invocation -> {
+			writing.countDown();
+			slow.await(5, TimeUnit.SECONDS);
+			written.add(((TextMessage) invocation.getArgument(0)).getPayload());
+			return null;
+		}).when(session).sendMessage(any(WebSocketMessage.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		slow.countDown();
+		queues.stop();
+	}
+
+	@Test
+	void replacesWaitingFrameWithSameCoalesceKey() throws Exception {
+		queues.start();
+		OutboundQueueSession queued = queues.open(session);
+
+		queued.sendMessage(frame("primero", null));
+		writing.await(5, TimeUnit.SECONDS);
+		queued.sendMessage(frame("escribiendo 1", "typing-10-2"));
+		queued.sendMessage(frame("escribiendo 2", "typing-10-2"));
+		queued.sendMessage(frame("mensaje", null));
+
+		assertEquals(2.0, registry.get("chat.session.outbound.queue").tag("session", "s1").gauge().value());
+		slow.countDown();
+		awaitWritten(3);
+		assertEquals(List.of(frame("primero", null).getPayload(), frame("escribiendo 2", "typing-10-2").getPayload(),
+				frame("mensaje", null).getPayload()), written);
+		assertEquals(1.0, registry.get("chat.session.outbound.coalesced").functionCounter().count());
+	}
+
+	@Test
+	void dropsOldestMessageWhenQueueIsFull() throws Exception {
+		queues.start();
+		OutboundQueueSession queued = queues.open(session);
+
+		queued.sendMessage(frame("primero", null));
+		writing.await(5, TimeUnit.SECONDS);
+		queued.sendMessage(frame("uno", null));
+		queued.sendMessage(frame("dos", null));
+		queued.sendMessage(frame("tres", null));
+
+		slow.countDown();
+		awaitWritten(3);
+		assertEquals(List.of(frame("primero", null).getPayload(), frame("dos", null).getPayload(),
+				frame("tres", null).getPayload()), written);
+		assertEquals(1.0, registry.get("chat.session.outbound.dropped").functionCounter().count());
+	}
+
+	@Test
+	void disconnectsWhenQueueIsFullWithDisconnectPolicy() throws Exception {
+		ReflectionTestUtils.setField(queues, "overflow", OutboundSessionQueues.Overflow.DISCONNECT);
+		queues.start();
+		OutboundQueueSession queued = queues.open(session);
+
+		queued.sendMessage(frame("primero", null));
+		writing.await(5, TimeUnit.SECONDS);
+		queued.sendMessage(frame("uno", null));
+		queued.sendMessage(frame("dos", null));
+
+		assertThrows(SessionLimitExceededException.class, () -> queued.sendMessage(frame("tres", null)));
+		assertEquals(1.0, registry.get("chat.session.outbound.disconnected").functionCounter().count());
+	}
+
+	@Test
+	void disconnectsSessionThatStopsWriting() throws Exception {
+		ReflectionTestUtils.setField(queues, "slowTimeout", Duration.ofMillis(50));
+		queues.start();
+		OutboundQueueSession queued = queues.open(session);
+
+		queued.sendMessage(frame("primero", null));
+		writing.await(5, TimeUnit.SECONDS);
+		Thread.sleep(100);
+
+		assertThrows(SessionLimitExceededException.class, () -> queued.sendMessage(frame("uno", null)));
+	}
+
+	@Test
+	void keepsWritingHealthySessionWhileStalledSessionsHoldEveryThread() throws Exception {
+		int poolSize = 2;
+		ReflectionTestUtils.setField(queues, "poolSize", poolSize);
+		ReflectionTestUtils.setField(queues, "slowTimeout", Duration.ofMillis(100));
+		queues.start();
+		CountDownLatch stuck = new CountDownLatch(poolSize);
+		List<WebSocketSession> stalled = new CopyOnWriteArrayList<>();
+		for (int i = 0; i <= poolSize; i++) {
+			WebSocketSession client = stalledSession("stalled-" + i, stuck);
+			stalled.add(client);
+			queues.open(client).sendMessage(frame("primero", null));
+		}
+		assertTrue(stuck.await(5, TimeUnit.SECONDS));
+		WebSocketSession healthy = mock(WebSocketSession.class);
+		when(healthy.getId()).thenReturn("healthy");
+		doAnswer(invocation -> {
+			written.add(((TextMessage) invocation.getArgument(0)).getPayload());
+			return null;
+		}).when(healthy).sendMessage(any(WebSocketMessage.class));
+		OutboundQueueSession queued = queues.open(healthy);
+
+		queued.sendMessage(frame("uno", null));
+		queued.sendMessage(frame("dos", null));
+
+		awaitWritten(2);
+		assertEquals(List.of(frame("uno", null).getPayload(), frame("dos", null).getPayload()), written);
+		verify(healthy, never()).close(any(CloseStatus.class));
+		for (WebSocketSession client : stalled) {
+			verify(client, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+		}
+		assertEquals(poolSize + 1.0, registry.get("chat.session.outbound.disconnected").functionCounter().count());
+	}
+
+	@Test
+	void limitsBlockingWritesOfContainerSession() {
+		ReflectionTestUtils.setField(queues, "slowTimeout", Duration.ofSeconds(3));
+		queues.start();
+		Map<String, Object> properties = new HashMap<>();
+		Session container = mock(Session.class);
+		when(container.getUserProperties()).thenReturn(properties);
+		NativeWebSocketSession client = mock(NativeWebSocketSession.class);
+		when(client.getId()).thenReturn("s2");
+		when(client.getNativeSession(Session.class)).thenReturn(container);
+
+		queues.open(client);
+
+		assertEquals(3000L, properties.get("org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT"));
+	}
+
+	@Test
+	void removesGaugeOfClosedSession() {
+		queues.start();
+		queues.open(session);
+
+		queues.closed("s1");
+
+		assertNull(registry.find("chat.session.outbound.queue").tag("session", "s1").gauge());
+	}
+
+	/**
+	 * A client that stops reading: its first write blocks until the session is closed.
+	 */
+	private static WebSocketSession stalledSession(String id, CountDownLatch stuck) throws Exception {
+		WebSocketSession client = mock(WebSocketSession.class);
+		CountDownLatch closed = new CountDownLatch(1);
+		when(client.getId()).thenReturn(id);
+		doAnswer(invocation -> {
+			stuck.countDown();
+			closed.await(5, TimeUnit.SECONDS);
+			throw new IOException("Connection closed");
+		}).when(client).sendMessage(any(WebSocketMessage.class));
+		doAnswer(invocation -> {
+			closed.countDown();
+			return null;
+		}).when(client).close(any(CloseStatus.class));
+		return client;
+	}
+
+	private void awaitWritten(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (written.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	private static TextMessage frame(String body, String coalesceKey) {
+		String headers = "destination:/user/queue/messages\ncontent-type:text/plain\n";
+		if (coalesceKey != null) {
+			headers += OutboundSessionQueues.COALESCE_HEADER + ":" + coalesceKey + "\n";
+		}
+		return new TextMessage("MESSAGE\n" + headers + "\n" + body + "\0");
+	}
+
+}
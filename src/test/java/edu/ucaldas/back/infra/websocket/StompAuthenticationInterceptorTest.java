@@ -0,0 +1,97 @@
+package edu.ucaldas.back.infra.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucaldas.back.models.user.TypeUser;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IUserRepository;
+import edu.ucaldas.back.service.TokenService;
+
+class StompAuthenticationInterceptorTest {
+
+	private TokenService tokenService;
+	private IUserRepository userRepository;
+	private StompAuthenticationInterceptor interceptor;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		tokenService = mock(TokenService.class);
+		userRepository = mock(IUserRepository.class);
+		interceptor = new StompAuthenticationInterceptor();
+		ReflectionTestUtils.setField(interceptor, "tokenService", tokenService);
+		ReflectionTestUtils.setField(interceptor, "userRepository", userRepository);
+		user = new User();
+		user.setEmail("user@mail.com");
+		user.setTypeUser(TypeUser.CLIENT);
+		when(tokenService.getSubject("good")).thenReturn("user@mail.com");
+		when(tokenService.getSubject("bad")).thenThrow(new RuntimeException("Error decoding token"));
+		when(userRepository.findActiveByEmail("user@mail.com")).thenReturn(Optional.of(user));
+	}
+
+	@Test
+	void authenticatesConnectFrameWithBearerToken() {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		accessor.addNativeHeader("Authorization", "Bearer good");
+		accessor.setLeaveMutable(true);
+		Message<byte[]> connect = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+		interceptor.preSend(connect, null);
+
+		Authentication authentication = (Authentication) accessor.getUser();
+		assertSame(user, authentication.getPrincipal());
+		assertEquals("user@mail.com", authentication.getName());
+	}
+
+	@Test
+	void rejectsConnectWithoutValidToken() {
+		assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect(null), null));
+		assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect("Bearer bad"), null));
+	}
+
+	@Test
+	void rejectsFramesOfUnauthenticatedSessionsAndForeignSubscriptions() {
+		StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+		send.setDestination("/app/chat.send");
+		assertThrows(MessageDeliveryException.class,
+				() -> interceptor.preSend(MessageBuilder.createMessage(new byte[0], send.getMessageHeaders()), null));
+
+		StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		subscribe.setDestination("/queue/messages-user123");
+		subscribe.setUser(() -> "user@mail.com");
+		assertThrows(MessageDeliveryException.class, () -> interceptor
+				.preSend(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), null));
+
+		StompHeaderAccessor own = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		own.setDestination("/user/queue/messages");
+		own.setUser(() -> "user@mail.com");
+		Message<byte[]> allowed = MessageBuilder.createMessage(new byte[0], own.getMessageHeaders());
+		assertSame(allowed, interceptor.preSend(allowed, null));
+	}
+
+	private static Message<byte[]> connect(String authorization) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		if (authorization != null) {
+			accessor.addNativeHeader("Authorization", authorization);
+		}
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+}
@@ -0,0 +1,107 @@
+package edu.ucaldas.back.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.ChatUnreadCounter;
+import edu.ucaldas.back.models.user.User;
+
+@DataJpaTest
+class IChatRepositoryDataTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2026, 5, 1, 12, 0);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private IChatRepository chatRepository;
+
+	private User user;
+	private User owner;
+	private User buyer;
+
+	@BeforeEach
+	void setUp() {
+		chatRepository.createInboxIndexes();
+		user = user("user@mail.com");
+		owner = user("owner@mail.com");
+		buyer = user("buyer@mail.com");
+	}
+
+	@Test
+	void mergesOwnedAndInterestedChatsLatestMessageFirst() {
+		Chat asked = chat(owner, user, NOW.minusHours(1), "Sigue disponible?");
+		Chat sold = chat(user, buyer, NOW, "La compro");
+		Chat empty = chat(user, owner, null, null);
+		Chat old = chat(buyer, user, NOW.minusDays(3), "Gracias");
+		Chat closed = chat(user, buyer, NOW.plusHours(1), "Cerrado");
+		closed.setActive(false);
+		chat(owner, buyer, NOW.plusHours(2), "Ajeno");
+		entityManager.persist(new ChatUnreadCounter(new ChatParticipantId(user.getId(), sold.getId()), 3));
+		entityManager.persist(new ChatUnreadCounter(new ChatParticipantId(buyer.getId(), sold.getId()), 9));
+		entityManager.flush();
+
+		List<ChatInboxDTO> inbox = chatRepository.findInbox(user.getId(), 10);
+
+		assertEquals(List.of(sold.getId(), asked.getId(), old.getId(), empty.getId()),
+				inbox.stream().map(ChatInboxDTO::chatId).toList());
+		ChatInboxDTO first = inbox.get(0);
+		assertEquals(buyer.getId(), first.counterpartId());
+		assertEquals("buyer@mail.com", first.counterpartName());
+		assertFalse(first.counterpartOnline());
+		assertEquals(user.getId(), first.lastMessageSenderId());
+		assertEquals("La compro", first.lastMessagePreview());
+		assertEquals(NOW, first.lastMessageAt());
+		assertEquals(3, first.unread());
+		assertEquals(owner.getId(), inbox.get(1).counterpartId());
+		assertEquals(0, inbox.get(1).unread());
+		assertNull(inbox.get(3).lastMessageAt());
+		assertNull(inbox.get(3).lastMessageSenderId());
+	}
+
+	@Test
+	void limitsMergedInboxToLatestChats() {
+		Chat second = chat(user, buyer, NOW.minusHours(1), "Dos");
+		chat(user, owner, NOW.minusHours(2), "Tres");
+		Chat first = chat(owner, user, NOW, "Uno");
+		chat(buyer, user, NOW.minusHours(3), "Cuatro");
+		entityManager.flush();
+
+		assertEquals(List.of(first.getId(), second.getId()),
+				chatRepository.findInbox(user.getId(), 2).stream().map(ChatInboxDTO::chatId).toList());
+	}
+
+	private Chat chat(User chatOwner, User interested, LocalDateTime lastMessageAt, String preview) {
+		Chat chat = new Chat(chatOwner, interested, null);
+		if (lastMessageAt != null) {
+			chat.setLastMessageSeq(1);
+			chat.setLastMessageSenderId(user.getId());
+			chat.setLastMessagePreview(preview);
+			chat.setLastMessageAt(lastMessageAt);
+		}
+		return entityManager.persist(chat);
+	}
+
+	private User user(String email) {
+		User created = new User();
+		created.setName(email);
+		created.setEmail(email);
+		created.setActive(true);
+		return entityManager.persist(created);
+	}
+
+}
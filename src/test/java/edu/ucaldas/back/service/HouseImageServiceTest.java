@@ -0,0 +1,197 @@
+package edu.ucaldas.back.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import edu.ucaldas.back.DTO.HouseImageSaveDTO;
+import edu.ucaldas.back.infra.exception.InvalidFile;
+import edu.ucaldas.back.infra.exception.SaveFileError;
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+import edu.ucaldas.back.models.rent.House;
+import edu.ucaldas.back.models.rent.HouseImage;
+import edu.ucaldas.back.repository.IHouseImageRepository;
+import edu.ucaldas.back.repository.IHouseRepository;
+import edu.ucaldas.back.service.image.ImageStorage;
+import edu.ucaldas.back.service.image.ImageVariantService;
+import edu.ucaldas.back.service.image.StoredImage;
+
+class HouseImageServiceTest {
+
+	private static final byte[] PNG_HEADER = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13 };
+
+	@TempDir
+	Path directory;
+
+	private IHouseImageRepository houseImageRepository;
+	private IHouseRepository houseRepository;
+	private ImageVariantService imageVariantService;
+	private ExecutorService executor;
+	private HouseImageService service;
+
+	@BeforeEach
+	void setUp() {
+		ImageStorage storage = new ImageStorage();
+		ReflectionTestUtils.setField(storage, "directory", directory);
+		ReflectionTestUtils.setField(storage, "maxSize", DataSize.ofKilobytes(200));
+		ReflectionTestUtils.setField(storage, "blobStore", new FileSystemBlobStore(directory));
+		houseImageRepository = mock(IHouseImageRepository.class);
+		houseRepository = mock(IHouseRepository.class);
+		imageVariantService = mock(ImageVariantService.class);
+		executor = Executors.newFixedThreadPool(2);
+
+		service = new HouseImageService();
+		ReflectionTestUtils.setField(service, "houseImageRepository", houseImageRepository);
+		ReflectionTestUtils.setField(service, "houseRepository", houseRepository);
+		ReflectionTestUtils.setField(service, "imageStorage", storage);
+		ReflectionTestUtils.setField(service, "imageVariantService", imageVariantService);
+		ReflectionTestUtils.setField(service, "imageUploadExecutor", executor);
+		ReflectionTestUtils.setField(service, "maxBatchFiles", 3);
+
+		House house = new House();
+		house.setId(7);
+		when(houseRepository.findActiveById(7L)).thenReturn(Optional.of(house));
+		when(houseImageRepository.findNextPosition(7L)).thenReturn(5);
+		doAnswer(invocation -> {
+			List<HouseImage> rows = invocation.getArgument(0);
+			for (int i = 0; i < rows.size(); i++) {
+				rows.get(i).setId(100 + i);
+			}
+			return null;
+		}).when(houseImageRepository).insertAll(anyList());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void storesEveryFileAndInsertsRowsInOneBatch() {
+		List<MultipartFile> files = List.of(png("a.png", 1), png("b.png", 2), png("c.png", 3));
+
+		List<HouseImageSaveDTO> saved = service.saveHouseImages(7, files);
+
+		assertEquals(3, saved.size());
+		assertEquals(3, saved.stream().map(HouseImageSaveDTO::imageUrl).distinct().count());
+		verify(houseRepository, times(1)).findActiveById(7L);
+		ArgumentCaptor<List<HouseImage>> rows = ArgumentCaptor.forClass(List.class);
+		verify(houseImageRepository, times(1)).insertAll(rows.capture());
+		assertEquals(saved.stream().map(HouseImageSaveDTO::imageUrl).toList(),
+				rows.getValue().stream().map(HouseImage::getImageUrl).toList());
+		assertEquals(List.of(5, 6, 7), rows.getValue().stream().map(HouseImage::getPosition).toList());
+		verify(imageVariantService, times(3)).generateVariants(anyLong(), any(StoredImage.class));
+	}
+
+	@Test
+	void reusesVariantsOfContentAlreadyStored() {
+		MockMultipartFile file = png("a.png", 1);
+		HouseImage existing = new HouseImage();
+		existing.setContentHash(service.saveHouseImages(7, List.of(file)).get(0).imageUrl().substring(0, 64));
+		existing.setThumbnailUrl("thumb.jpg");
+		when(houseImageRepository.findByContentHashInAndThumbnailUrlIsNotNull(anyList())).thenReturn(List.of(existing));
+
+		service.saveHouseImages(7, List.of(file));
+
+		verify(imageVariantService, times(1)).generateVariants(anyLong(), any(StoredImage.class));
+	}
+
+	@Test
+	void rejectsWholeBatchWhenOneFileIsInvalid() throws IOException {
+		List<MultipartFile> files = List.of(png("a.png", 1),
+				new MockMultipartFile("images", "page.html", "text/html", "<html></html>".getBytes()));
+
+		assertThrows(InvalidFile.class, () -> service.saveHouseImages(7, files));
+
+		verify(houseImageRepository, never()).insertAll(anyList());
+		assertEquals(0, fileCount());
+	}
+
+	@Test
+	void deletesUnreferencedFilesWhenRowsCannotBeInsertedWithoutGarbageCollector() throws IOException {
+		doThrow(new DataIntegrityViolationException("duplicate")).when(houseImageRepository).insertAll(anyList());
+		List<MultipartFile> files = List.of(png("a.png", 1), png("b.png", 2));
+		when(houseImageRepository.countByContentHash(anyString())).thenReturn(0L);
+		when(houseImageRepository.countByContentHash(sha256(files.get(1)))).thenReturn(1L);
+
+		assertThrows(SaveFileError.class, () -> service.saveHouseImages(7, files));
+
+		assertEquals(1, fileCount());
+	}
+
+	@Test
+	void leavesStoredFilesToGarbageCollectorWhenRowsCannotBeInserted() throws IOException {
+		ReflectionTestUtils.setField(service, "garbageCollected", true);
+		doThrow(new DataIntegrityViolationException("duplicate")).when(houseImageRepository).insertAll(anyList());
+
+		assertThrows(SaveFileError.class, () -> service.saveHouseImages(7, List.of(png("a.png", 1))));
+
+		verify(houseImageRepository, never()).countByContentHash(anyString());
+		assertEquals(1, fileCount());
+	}
+
+	@Test
+	void rejectsBatchesOverTheLimitBeforeReadingThem() {
+		List<MultipartFile> files = List.of(png("a.png", 1), png("b.png", 2), png("c.png", 3), png("d.png", 4));
+
+		assertThrows(InvalidFile.class, () -> service.saveHouseImages(7, files));
+
+		verify(houseRepository, never()).findActiveById(anyLong());
+	}
+
+	private static MockMultipartFile png(String name, int seed) {
+		byte[] content = Arrays.copyOf(PNG_HEADER, 4096);
+		Arrays.fill(content, PNG_HEADER.length, content.length, (byte) seed);
+		return new MockMultipartFile("images", name, "image/png", content);
+	}
+
+	private static String sha256(MultipartFile file) throws IOException {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file.getBytes()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private long fileCount() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile).count();
+		}
+	}
+
+}
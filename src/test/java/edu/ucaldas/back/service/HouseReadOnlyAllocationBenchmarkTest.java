@@ -0,0 +1,78 @@
+package edu.ucaldas.back.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Bytes allocated per {@link HouseService#getHouses} call for a page of 100 houses with their owners, in
+ * its own read-only transaction versus joined to a read-write one, as it ran before. Run with
+ * {@code -Dhouse.benchmark=true} against the database to measure.
+ */
+@EnabledIfSystemProperty(named = "house.benchmark", matches = "true")
+@SpringBootTest
+class HouseReadOnlyAllocationBenchmarkTest {
+
+	private static final int HOUSES = 100;
+	private static final int WARMUP = 300;
+	private static final int REQUESTS = 1000;
+
+	@Autowired
+	private HouseService houseService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void measuresBytesAllocatedPerRequest() {
+		createHouses();
+		Runnable readOnly = () -> assertEquals(HOUSES, houseService.getHouses(PageRequest.of(0, HOUSES)).getNumberOfElements());
+		Runnable readWrite = () -> transactionTemplate.executeWithoutResult(status -> readOnly.run());
+
+		for (int round = 1; round <= 2; round++) {
+			report("Round " + round + ", @Transactional", measure(readWrite));
+			report("Round " + round + ", @Transactional(readOnly = true)", measure(readOnly));
+		}
+	}
+
+	private long measure(Runnable request) {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < WARMUP; i++) {
+			request.run();
+		}
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < REQUESTS; i++) {
+			request.run();
+		}
+		return (threads.getCurrentThreadAllocatedBytes() - before) / REQUESTS;
+	}
+
+	private void createHouses() {
+		for (int i = 0; i < HOUSES; i++) {
+			String email = "owner" + i + "@alloc.com";
+			jdbcTemplate.update("INSERT INTO users (name, email, password, type_user, stars, is_active) "
+					+ "VALUES ('Bench', ?, 'x', 'OWNER', 0, true)", email);
+			long owner = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+			jdbcTemplate.update("INSERT INTO houses (user_id, description, city, state, number, stars, is_available, "
+					+ "is_active) VALUES (?, 'Casa', 'Manizales', 'Caldas', ?, 0, true, true)", owner, "" + i);
+		}
+	}
+
+	private static void report(String mode, long bytes) {
+		System.out.printf("%s: %d bytes allocated per request%n", mode, bytes);
+	}
+
+}
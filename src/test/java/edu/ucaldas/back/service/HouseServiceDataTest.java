@@ -0,0 +1,95 @@
+package edu.ucaldas.back.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import edu.ucaldas.back.DTO.HouseGetDTO;
+import edu.ucaldas.back.models.rent.AddressData;
+import edu.ucaldas.back.models.rent.House;
+import edu.ucaldas.back.models.rent.HouseData;
+import edu.ucaldas.back.models.rent.HouseImage;
+import edu.ucaldas.back.models.user.TypeUser;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.service.validations.ValidationsHouse;
+import edu.ucaldas.back.service.validations.ValidationsRent;
+
+/**
+ * Counts the statements of the house listing and detail with the Hibernate statistics, for 15 houses
+ * with 3 images each.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ HouseService.class, ValidationsHouse.class })
+class HouseServiceDataTest {
+
+	private static final int HOUSES = 15;
+	private static final int IMAGES = 3;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private HouseService houseService;
+
+	@MockitoBean
+	private ValidationsRent validationsRent;
+
+	private Statistics statistics;
+	private List<House> houses = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < HOUSES; i++) {
+			User owner = new User();
+			owner.setName("Owner " + i);
+			owner.setEmail("owner" + i + "@mail.com");
+			owner.setTypeUser(TypeUser.OWNER);
+			owner.setActive(true);
+			entityManager.persist(owner);
+			House house = entityManager.persist(new House(
+					new HouseData("Casa " + i, new AddressData("Calle " + i, "Manizales", "Caldas", "" + i, null)),
+					owner));
+			for (int position = 0; position < IMAGES; position++) {
+				entityManager.persist(new HouseImage(house, i + "-" + position + ".jpg", null, position));
+			}
+			houses.add(house);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void listsPageOfHousesWithOwnersAndImagesInThreeStatements() {
+		Page<HouseGetDTO> page = houseService.getHouses(PageRequest.of(0, HOUSES));
+
+		assertEquals(HOUSES, page.getNumberOfElements());
+		page.forEach(house -> assertEquals(IMAGES, house.images().size()));
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void readsHouseWithOwnerAndImagesInThreeStatements() {
+		HouseGetDTO house = houseService.getHouse(houses.get(0).getId());
+
+		assertEquals("owner0@mail.com", house.emailOwener());
+		assertEquals(IMAGES, house.images().size());
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+}
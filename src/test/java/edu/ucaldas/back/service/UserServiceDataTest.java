@@ -0,0 +1,102 @@
+package edu.ucaldas.back.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import edu.ucaldas.back.DTO.UserUpdatePasswordDTO;
+import edu.ucaldas.back.models.user.TypeUser;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.service.validations.ValidationsHouse;
+import edu.ucaldas.back.service.validations.ValidationsRent;
+import edu.ucaldas.back.service.validations.ValidationsUser;
+import jakarta.persistence.EntityNotFoundException;
+
+@DataJpaTest
+@Import(UserService.class)
+class UserServiceDataTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private UserService userService;
+
+	@MockitoBean
+	private PasswordEncoder passwordEncoder;
+
+	@MockitoBean
+	private ValidationsUser validationsUser;
+
+	@MockitoBean
+	private ValidationsRent validationsRent;
+
+	@MockitoBean
+	private ValidationsHouse validationsHouse;
+
+	private User principal;
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setName("Ana");
+		user.setEmail("ana@mail.com");
+		user.setPassword("old-hash");
+		user.setTypeUser(TypeUser.OWNER);
+		user.setActive(true);
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+
+		principal = entityManager.find(User.class, user.getId());
+		entityManager.detach(principal);
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+		when(passwordEncoder.matches("Old12345", "old-hash")).thenReturn(true);
+		when(passwordEncoder.encode("New12345")).thenReturn("new-hash");
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void writesOnlyThePasswordOverChangesMadeSinceTheRequestStarted() {
+		User current = entityManager.find(User.class, principal.getId());
+		current.setName("Ana Maria");
+		entityManager.flush();
+
+		userService.updateUserPassword(new UserUpdatePasswordDTO("Old12345", "New12345"));
+		entityManager.flush();
+		entityManager.clear();
+
+		User saved = entityManager.find(User.class, principal.getId());
+		assertEquals("new-hash", saved.getPassword());
+		assertEquals("Ana Maria", saved.getName());
+	}
+
+	@Test
+	void rejectsWrongOldPasswordBeforeHashing() {
+		assertThrows(EntityNotFoundException.class,
+				() -> userService.updateUserPassword(new UserUpdatePasswordDTO("Wrong1234", "New12345")));
+
+		verify(passwordEncoder, never()).encode(anyString());
+		assertEquals("old-hash", entityManager.find(User.class, principal.getId()).getPassword());
+	}
+
+}
@@ -0,0 +1,216 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucaldas.back.DTO.ChatMessageDTO;
+import edu.ucaldas.back.DTO.ChatTypingDTO;
+import edu.ucaldas.back.DTO.UserPresenceDTO;
+import edu.ucaldas.back.infra.websocket.OutboundSessionQueues;
+
+class ChatClusterBusTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	@Test
+	void packsMessagesInPayloadsUnderLimitInOrder() throws Exception {
+		ChatClusterBus bus = bus(null, mock(SimpMessagingTemplate.class), mock(SimpUserRegistry.class));
+		List<ChatClusterBus.Event> events = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			events.add(event(List.of("owner@mail.com", "interested@mail.com"), message(i, "ñ".repeat(1500))));
+		}
+		events.add(event(List.of("owner@mail.com"), message(11, "ñ".repeat(4000))));
+
+		List<String> payloads = bus.payloads(events);
+
+		List<ChatClusterBus.Event> read = new ArrayList<>();
+		for (String payload : payloads) {
+			assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= ChatClusterBus.MAX_PAYLOAD);
+			read.addAll(OBJECT_MAPPER.readValue(payload, ChatClusterBus.Batch.class).events());
+		}
+		assertEquals(5, payloads.size());
+		assertEquals(events.subList(0, 10), read);
+	}
+
+	@Test
+	void handsPresenceReportsOfOtherInstanceToChatPresence() {
+		ChatClusterBus nodeA = bus(null, mock(SimpMessagingTemplate.class), mock(SimpUserRegistry.class));
+		ChatPresence presenceB = presence();
+		ChatClusterBus nodeB = bus(null, mock(SimpMessagingTemplate.class), mock(SimpUserRegistry.class), presenceB);
+		LocalDateTime seen = LocalDateTime.of(2025, 5, 1, 12, 0);
+		ChatClusterBus.Event event = new ChatClusterBus.Event(List.of(), ChatClusterBus.PRESENCE, null,
+				OBJECT_MAPPER.valueToTree(new ChatPresence.Report(List.of(7L), List.of(), seen)));
+
+		nodeA.payloads(List.of(event)).forEach(nodeB::receive);
+
+		assertEquals(new UserPresenceDTO(7, true, seen), presenceB.find(List.of(7L)).get(7L));
+	}
+
+	@Test
+	@EnabledIfEnvironmentVariable(named = "CHAT_CLUSTER_TEST_DB_URL", matches = ".+")
+	void pushesMessagesPublishedOnOtherInstance() throws Exception {
+		SimpMessagingTemplate templateA = mock(SimpMessagingTemplate.class);
+		SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+		SimpUserRegistry registry = mock(SimpUserRegistry.class);
+		when(registry.getUser("owner@mail.com")).thenReturn(mock(SimpUser.class));
+		DataSourceProperties database = database();
+		ChatClusterBus nodeA = bus(database, templateA, registry);
+		ChatClusterBus nodeB = bus(database, templateB, registry);
+		nodeA.start();
+		nodeB.start();
+		try {
+			List<ChatMessageDTO> messages = new ArrayList<>();
+			for (int i = 1; i <= 50; i++) {
+				messages.add(message(i, "Hola " + i));
+				nodeA.publish(List.of("owner@mail.com", "interested@mail.com"), ChatNotifier.MESSAGES_QUEUE,
+						messages.get(i - 1), null);
+			}
+			nodeA.publish(List.of("owner@mail.com"), ChatNotifier.TYPING_QUEUE, new ChatTypingDTO(10, 2),
+					"typing-10-2");
+
+			for (ChatMessageDTO message : messages) {
+				verify(templateB, timeout(5000)).convertAndSendToUser("owner@mail.com", ChatNotifier.MESSAGES_QUEUE,
+						json(message));
+			}
+			verify(templateB, timeout(5000)).convertAndSendToUser("owner@mail.com", ChatNotifier.TYPING_QUEUE,
+					json(new ChatTypingDTO(10, 2)),
+					Map.of(OutboundSessionQueues.COALESCE_HEADER, "typing-10-2"));
+			verify(templateB, never()).convertAndSendToUser(eq("interested@mail.com"), anyString(), any());
+			verify(templateA, after(500).never()).convertAndSendToUser(anyString(), anyString(), any());
+		} finally {
+			nodeA.stop();
+			nodeB.stop();
+		}
+	}
+
+	@Test
+	@EnabledIfEnvironmentVariable(named = "CHAT_CLUSTER_TEST_DB_URL", matches = ".+")
+	void showsUsersConnectedToOtherInstanceOnline() throws Exception {
+		DataSourceProperties database = database();
+		ChatPresence presenceA = presence();
+		ChatPresence presenceB = presence();
+		ChatClusterBus nodeA = bus(database, mock(SimpMessagingTemplate.class), mock(SimpUserRegistry.class), presenceA);
+		ChatClusterBus nodeB = bus(database, mock(SimpMessagingTemplate.class), mock(SimpUserRegistry.class), presenceB);
+		ReflectionTestUtils.setField(presenceA, "clusterBus",
+				new StaticListableBeanFactory(Map.of("chatClusterBus", nodeA)).getBeanProvider(ChatClusterBus.class));
+		ReflectionTestUtils.setField(presenceB, "clusterBus",
+				new StaticListableBeanFactory(Map.of("chatClusterBus", nodeB)).getBeanProvider(ChatClusterBus.class));
+		nodeA.start();
+		nodeB.start();
+		try {
+			presenceA.connected(7, "a1");
+			presenceB.connected(8, "b1");
+
+			awaitOnline(presenceB, 7, true);
+			awaitOnline(presenceA, 8, true);
+
+			presenceA.disconnected(7, "a1");
+
+			awaitOnline(presenceB, 7, false);
+			assertTrue(presenceA.find(List.of(8L)).get(8L).online());
+		} finally {
+			nodeA.stop();
+			nodeB.stop();
+		}
+	}
+
+	private static void awaitOnline(ChatPresence presence, long userId, boolean online) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (System.nanoTime() < deadline) {
+			UserPresenceDTO found = presence.find(List.of(userId)).get(userId);
+			if (found != null && found.online() == online) {
+				return;
+			}
+			Thread.sleep(10);
+		}
+		assertEquals(online, presence.find(List.of(userId)).get(userId).online());
+	}
+
+	private static DataSourceProperties database() {
+		DataSourceProperties database = new DataSourceProperties();
+		database.setUrl(System.getenv("CHAT_CLUSTER_TEST_DB_URL"));
+		database.setUsername(System.getenv("CHAT_CLUSTER_TEST_DB_USERNAME"));
+		database.setPassword(System.getenv("CHAT_CLUSTER_TEST_DB_PASSWORD"));
+		return database;
+	}
+
+	private static ChatPresence presence() {
+		ChatPresence presence = new ChatPresence();
+		ReflectionTestUtils.setField(presence, "jdbcTemplate", mock(JdbcTemplate.class));
+		ReflectionTestUtils.setField(presence, "clusterInterval", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(presence, "clusterBus",
+				new StaticListableBeanFactory().getBeanProvider(ChatClusterBus.class));
+		return presence;
+	}
+
+	private static ChatClusterBus bus(DataSourceProperties database, SimpMessagingTemplate template,
+			SimpUserRegistry registry) {
+		return bus(database, template, registry, new ChatPresence());
+	}
+
+	private static ChatClusterBus bus(DataSourceProperties database, SimpMessagingTemplate template,
+			SimpUserRegistry registry, ChatPresence presence) {
+		ChatClusterBus bus = new ChatClusterBus();
+		ReflectionTestUtils.setField(bus, "chatPresence",
+				new StaticListableBeanFactory(Map.of("chatPresence", presence)).getBeanProvider(ChatPresence.class));
+		ReflectionTestUtils.setField(bus, "dataSourceProperties", database);
+		ReflectionTestUtils.setField(bus, "messagingTemplate", template);
+		ReflectionTestUtils.setField(bus, "userRegistry", registry);
+		ReflectionTestUtils.setField(bus, "objectMapper", OBJECT_MAPPER);
+		ReflectionTestUtils.setField(bus, "capacity", 1000);
+		ReflectionTestUtils.setField(bus, "batchSize", 20);
+		ReflectionTestUtils.setField(bus, "flushInterval", Duration.ofMillis(10));
+		ReflectionTestUtils.setField(bus, "retryDelay", Duration.ofMillis(100));
+		return bus;
+	}
+
+	private static ChatClusterBus.Event event(List<String> recipients, ChatMessageDTO message) throws Exception {
+		return new ChatClusterBus.Event(recipients, ChatNotifier.MESSAGES_QUEUE, null, json(message));
+	}
+
+	/**
+	 * The event as a receiving instance reads it.
+	 */
+	private static JsonNode json(Object event) throws Exception {
+		return OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsString(event));
+	}
+
+	private static ChatMessageDTO message(long seq, String content) {
+		return new ChatMessageDTO(100 + seq, 10, seq, 2, "interested@mail.com", content,
+				LocalDateTime.of(2025, 5, 1, 12, 0), false);
+	}
+
+}
@@ -0,0 +1,108 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.repository.IMessageRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Time per page of 30 messages of a chat with 100,000 messages: the latest page and the deepest one
+ * read with the {@code (date_time, id)} cursor, and the same deepest page read with {@code OFFSET}.
+ * Run with {@code -Dchat.benchmark=true} against the database to measure; the messages are rolled back.
+ */
+@EnabledIfSystemProperty(named = "chat.benchmark", matches = "true")
+@SpringBootTest
+class ChatHistoryPagingBenchmarkTest {
+
+	private static final int MESSAGES = 100_000;
+	private static final int PAGE = 30;
+	private static final int BATCH = 1000;
+	private static final int EXECUTIONS = 200;
+	private static final LocalDateTime FIRST = LocalDateTime.of(2026, 1, 1, 0, 0);
+	private static final String LATEST = "SELECT new edu.ucaldas.back.DTO.MessageDTO(m.id, m.seq, m.sender.id, "
+			+ "m.content, m.dateTime, m.isRead) FROM Message m WHERE m.chat.id = :chatId AND m.isActive = true "
+			+ "ORDER BY m.dateTime DESC, m.id DESC";
+
+	@Autowired
+	private IMessageRepository messageRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Test
+	@Transactional
+	void measuresPageTimes() {
+		long chat = createChat();
+		MessageDTO cursor = entityManager.createQuery(LATEST, MessageDTO.class).setParameter("chatId", chat)
+				.setFirstResult(MESSAGES - PAGE - 1).setMaxResults(1).getSingleResult();
+
+		for (int round = 1; round <= 3; round++) {
+			System.out.printf("Round %d%n", round);
+			report("Latest page (findLatest)", measure(() -> messageRepository.findLatest(chat, Limit.of(PAGE))));
+			report("Deepest page, cursor (findBefore)", measure(() -> messageRepository.findBefore(chat,
+					cursor.dateTime(), cursor.id(), Limit.of(PAGE))));
+			report("Deepest page, OFFSET " + (MESSAGES - PAGE), measure(() -> entityManager
+					.createQuery(LATEST, MessageDTO.class).setParameter("chatId", chat)
+					.setFirstResult(MESSAGES - PAGE).setMaxResults(PAGE).getResultList()));
+		}
+	}
+
+	private double measure(Supplier<List<MessageDTO>> page) {
+		long start = System.nanoTime();
+		for (int i = 0; i < EXECUTIONS; i++) {
+			assertEquals(PAGE, page.get().size());
+		}
+		return (System.nanoTime() - start) / 1e6 / EXECUTIONS;
+	}
+
+	private long createChat() {
+		long owner = insertUser("owner@paging.com");
+		long interested = insertUser("interested@paging.com");
+		jdbcTemplate.update("INSERT INTO houses (user_id, stars, is_available, is_active) VALUES (?, 0, true, true)",
+				owner);
+		long house = jdbcTemplate.queryForObject("SELECT MAX(id) FROM houses", Long.class);
+		jdbcTemplate.update("INSERT INTO chats (owner_id, interested_id, house_id, date_time, is_active) "
+				+ "VALUES (?, ?, ?, CURRENT_TIMESTAMP, true)", owner, interested, house);
+		long chat = jdbcTemplate.queryForObject("SELECT MAX(id) FROM chats", Long.class);
+		for (int first = 0; first < MESSAGES; first += BATCH) {
+			List<Object[]> rows = new ArrayList<>();
+			for (int i = first; i < first + BATCH; i++) {
+				rows.add(new Object[] { chat, i + 1, i % 2 == 0 ? owner : interested, "Mensaje " + i,
+						Timestamp.valueOf(FIRST.plusSeconds(i)) });
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO messages (chat_id, seq, user_id, content, date_time, is_read, "
+					+ "is_active) VALUES (?, ?, ?, ?, ?, true, true)", rows);
+		}
+		return chat;
+	}
+
+	private long insertUser(String email) {
+		jdbcTemplate.update("INSERT INTO users (name, email, password, type_user, stars, is_active) "
+				+ "VALUES ('Bench', ?, 'x', 'CLIENT', 0, true)", email);
+		return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	private static void report(String page, double millis) {
+		System.out.printf("%s: %.2f ms per page%n", page, millis);
+	}
+
+}
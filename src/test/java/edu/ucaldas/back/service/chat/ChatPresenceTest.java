@@ -0,0 +1,165 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucaldas.back.DTO.UserPresenceDTO;
+
+class ChatPresenceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private ChatPresence presence;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		presence = new ChatPresence();
+		ReflectionTestUtils.setField(presence, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(presence, "batchSize", 500);
+		ReflectionTestUtils.setField(presence, "clusterInterval", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(presence, "clusterBus",
+				new StaticListableBeanFactory().getBeanProvider(ChatClusterBus.class));
+	}
+
+	@Test
+	void staysOnlineUntilLastSessionCloses() {
+		presence.connected(1, "a");
+		presence.connected(1, "b");
+		presence.disconnected(1, "a");
+		presence.disconnected(1, "a");
+
+		assertTrue(presence.find(List.of(1L)).get(1L).online());
+
+		presence.disconnected(1, "b");
+
+		assertFalse(presence.find(List.of(1L)).get(1L).online());
+		assertEquals(Map.of(), presence.find(List.of(2L)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void writesOnlyNewestTransitionOfEachUserInOneBatch() {
+		presence.connected(1, "a");
+		presence.seen(1);
+		presence.disconnected(1, "a");
+		presence.connected(2, "b");
+		LocalDateTime offline = presence.find(List.of(1L)).get(1L).lastSeen();
+
+		presence.flush();
+
+		ArgumentCaptor<Collection<Map.Entry<Long, LocalDateTime>>> batch = ArgumentCaptor.forClass(Collection.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+		assertEquals(2, batch.getValue().size());
+		assertTrue(batch.getValue().contains(Map.entry(1L, offline)));
+		assertEquals(Map.of(), presence.find(List.of(1L)));
+		assertTrue(presence.find(List.of(2L)).get(2L).online());
+
+		presence.seen(2);
+		presence.flush();
+
+		verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void keepsTransitionsWhenDatabaseFails() {
+		when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class))).thenThrow(new QueryTimeoutException("timeout"));
+		presence.connected(1, "a");
+		presence.disconnected(1, "a");
+
+		presence.flush();
+		presence.flush();
+
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class));
+		assertFalse(presence.find(List.of(1L)).get(1L).online());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void ignoresHeartBeatsOfUnknownUsers() {
+		presence.seen(1);
+		presence.flush();
+
+		assertEquals(Map.of(), presence.find(List.of(1L)));
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	@Test
+	void isOnlineWhileAnyOtherInstanceReportsUser() {
+		LocalDateTime connected = LocalDateTime.of(2025, 5, 1, 12, 0);
+		LocalDateTime left = connected.plusMinutes(5);
+		presence.report("b", new ChatPresence.Report(List.of(7L), List.of(), connected));
+		presence.report("c", new ChatPresence.Report(List.of(7L), List.of(), connected.plusMinutes(1)));
+		presence.report("b", new ChatPresence.Report(List.of(), List.of(7L), left.minusMinutes(1)));
+
+		assertTrue(presence.find(List.of(7L)).get(7L).online());
+
+		presence.report("c", new ChatPresence.Report(List.of(), List.of(7L), left));
+
+		assertEquals(new UserPresenceDTO(7, false, left), presence.find(List.of(7L)).get(7L));
+	}
+
+	@Test
+	void forgetsInstanceThatStopsReportingUser() {
+		presence.report("b", new ChatPresence.Report(List.of(7L), List.of(), LocalDateTime.now()));
+
+		presence.expire(System.nanoTime() + Duration.ofSeconds(20).toNanos());
+
+		assertTrue(presence.find(List.of(7L)).get(7L).online());
+
+		presence.expire(System.nanoTime() + Duration.ofSeconds(31).toNanos());
+
+		assertEquals(Map.of(), presence.find(List.of(7L)));
+	}
+
+	@Test
+	void publishesTransitionsAndOnlineUsersToOtherInstances() {
+		ChatClusterBus bus = mock(ChatClusterBus.class);
+		ReflectionTestUtils.setField(presence, "clusterBus",
+				new StaticListableBeanFactory(Map.of("chatClusterBus", bus)).getBeanProvider(ChatClusterBus.class));
+		ArgumentCaptor<ChatPresence.Report> reports = ArgumentCaptor.forClass(ChatPresence.Report.class);
+
+		presence.connected(1, "a");
+		presence.connected(1, "b");
+		presence.connected(2, "c");
+		presence.announce();
+		presence.disconnected(1, "a");
+		presence.disconnected(1, "b");
+
+		verify(bus, times(4)).publishPresence(reports.capture());
+		List<ChatPresence.Report> published = reports.getAllValues();
+		assertEquals(List.of(1L), published.get(0).online());
+		assertEquals(List.of(2L), published.get(1).online());
+		assertEquals(List.of(1L, 2L), published.get(2).online().stream().sorted().toList());
+		assertEquals(List.of(1L), published.get(3).offline());
+	}
+
+}
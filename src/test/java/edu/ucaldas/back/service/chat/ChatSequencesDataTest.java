@@ -0,0 +1,187 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.Message;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+import edu.ucaldas.back.repository.IUserRepository;
+
+/**
+ * Sends messages to one chat from several threads at once, through the synchronous path and the
+ * write-behind batches, each in its own transaction, as separate instances sharing the database would.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ ChatService.class, MessageBatchWriter.class, MessageSearchIndex.class, MessageSearchBackfill.class,
+		UnreadCounters.class, ChatSequences.class, ChatNotifier.class })
+class ChatSequencesDataTest {
+
+	private static final int SENDERS = 8;
+	private static final int ROUNDS = 20;
+	private static final int BATCH = 3;
+
+	@Autowired
+	private ChatService chatService;
+
+	@Autowired
+	private MessageBatchWriter batchWriter;
+
+	@Autowired
+	private ChatSequences chatSequences;
+
+	@Autowired
+	private IChatRepository chatRepository;
+
+	@Autowired
+	private IMessageRepository messageRepository;
+
+	@Autowired
+	private IUserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoBean
+	private SimpMessagingTemplate messagingTemplate;
+
+	@MockitoBean
+	private ChatPresence chatPresence;
+
+	private User owner;
+	private User interested;
+	private Chat chat;
+
+	@BeforeEach
+	void setUp() {
+		owner = userRepository.save(user("owner@mail.com"));
+		interested = userRepository.save(user("interested@mail.com"));
+		chat = chatRepository.save(new Chat(owner, interested, null));
+	}
+
+	@AfterEach
+	void tearDown() {
+		for (String table : List.of("message_search_terms", "messages", "chat_unread_counters",
+				"message_log_checkpoints", "chats", "users")) {
+			jdbcTemplate.update("DELETE FROM " + table);
+		}
+	}
+
+	@Test
+	void numbersConcurrentMessagesOfBothPathsWithoutGapsOrDuplicates() throws Exception {
+		ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> sent = new ArrayList<>();
+		for (int i = 0; i < SENDERS; i++) {
+			int sender = i;
+			sent.add(senders.submit(() -> {
+				start.await();
+				for (int round = 0; round < ROUNDS; round++) {
+					if (sender % 2 == 0) {
+						chatService.sendMessage("owner@mail.com", new ChatMessageSendDTO(chat.getId(), "Hola"));
+					} else {
+						batchWriter.write("log-" + sender, round + 1,
+								List.of(queued("uno"), queued("dos"), queued("tres")));
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : sent) {
+			future.get();
+		}
+		senders.shutdown();
+
+		int total = SENDERS / 2 * ROUNDS + SENDERS / 2 * ROUNDS * BATCH;
+		List<Long> seqs = jdbcTemplate.queryForList(
+				"SELECT seq FROM messages WHERE chat_id = ? ORDER BY seq", Long.class, chat.getId());
+		assertEquals(LongStream.rangeClosed(1, total).boxed().toList(), seqs);
+		assertEquals(total, chatRepository.findMessageSeq(chat.getId()));
+		assertEquals(total, (long) chatRepository.findById(chat.getId()).orElseThrow().getLastMessageSeq());
+	}
+
+	@Test
+	void continuesAfterNumberedMessagesAndNumbersLegacyOnes() {
+		jdbcTemplate.execute("ALTER TABLE messages DROP CONSTRAINT IF EXISTS uk_messages_chat_seq");
+		jdbcTemplate.execute("DROP INDEX IF EXISTS uk_messages_chat_seq");
+		long legacy = messageRepository.save(message(0)).getId();
+		long other = messageRepository.save(message(0)).getId();
+		messageRepository.save(message(7));
+		assertFalse(messageRepository.hasSeqIndex());
+
+		chatSequences.numberLegacyMessages();
+		long next = transactionTemplate.execute(status -> chatSequences.take(chat.getId(), 2));
+
+		assertEquals(8, next);
+		assertEquals(9, chatRepository.findMessageSeq(chat.getId()));
+		assertEquals(-legacy, (long) messageRepository.findById(legacy).orElseThrow().getSeq());
+		assertEquals(-other, (long) messageRepository.findById(other).orElseThrow().getSeq());
+		assertTrue(messageRepository.hasSeqIndex());
+	}
+
+	@Test
+	void skipsNumberingOnceTheIndexExists() {
+		long legacy = messageRepository.save(message(0)).getId();
+		assertTrue(messageRepository.hasSeqIndex());
+
+		chatSequences.numberLegacyMessages();
+
+		assertEquals(0, (long) messageRepository.findById(legacy).orElseThrow().getSeq());
+	}
+
+	private Message message(long seq) {
+		Message message = new Message();
+		message.setChat(chat);
+		message.setSender(owner);
+		message.setSeq(seq);
+		message.setContent("Antes");
+		message.setDateTime(LocalDateTime.now().minusDays(30));
+		message.setActive(true);
+		return message;
+	}
+
+	private QueuedMessage queued(String content) {
+		return new QueuedMessage(chat.getId(), 0, interested.getId(), interested.getEmail(), owner.getId(),
+				owner.getEmail(), content, LocalDateTime.now());
+	}
+
+	private static User user(String email) {
+		User user = new User();
+		user.setName(email);
+		user.setEmail(email);
+		user.setActive(true);
+		return user;
+	}
+
+}
@@ -0,0 +1,320 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucaldas.back.DTO.ChatInboxDTO;
+import edu.ucaldas.back.DTO.ChatMessageDTO;
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+import edu.ucaldas.back.DTO.ChatReadReceiptDTO;
+import edu.ucaldas.back.DTO.ChatTypingDTO;
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.DTO.MessagePageDTO;
+import edu.ucaldas.back.DTO.MessageSearchPageDTO;
+import edu.ucaldas.back.DTO.MessageSearchResultDTO;
+import edu.ucaldas.back.DTO.UnreadCountDTO;
+import edu.ucaldas.back.infra.exception.MissingData;
+import edu.ucaldas.back.infra.exception.NotPermited;
+import edu.ucaldas.back.infra.websocket.OutboundSessionQueues;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.ChatParticipantId;
+import edu.ucaldas.back.models.chat.ChatUnreadCounter;
+import edu.ucaldas.back.models.chat.Message;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IChatRepository;
+import edu.ucaldas.back.repository.IChatUnreadCounterRepository;
+import edu.ucaldas.back.repository.IMessageRepository;
+import edu.ucaldas.back.repository.IMessageSearchTermRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+class ChatServiceTest {
+
+	private IChatRepository chatRepository;
+	private IMessageRepository messageRepository;
+	private IChatUnreadCounterRepository unreadCounterRepository;
+	private SimpMessagingTemplate messagingTemplate;
+	private ChatService service;
+	private ChatPresence chatPresence;
+	private MessageSearchIndex searchIndex;
+	private IMessageSearchTermRepository searchTermRepository;
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		chatRepository = mock(IChatRepository.class);
+		messageRepository = mock(IMessageRepository.class);
+		unreadCounterRepository = mock(IChatUnreadCounterRepository.class);
+		messagingTemplate = mock(SimpMessagingTemplate.class);
+		ChatNotifier notifier = new ChatNotifier();
+		ReflectionTestUtils.setField(notifier, "messagingTemplate", messagingTemplate);
+		service = new ChatService();
+		ReflectionTestUtils.setField(service, "chatRepository", chatRepository);
+		ReflectionTestUtils.setField(service, "messageRepository", messageRepository);
+		UnreadCounters unreadCounters = new UnreadCounters();
+		ReflectionTestUtils.setField(unreadCounters, "unreadCounterRepository", unreadCounterRepository);
+		ReflectionTestUtils.setField(unreadCounters, "messageRepository", messageRepository);
+		ReflectionTestUtils.setField(unreadCounters, "chatRepository", chatRepository);
+		ReflectionTestUtils.setField(service, "unreadCounterRepository", unreadCounterRepository);
+		ReflectionTestUtils.setField(service, "unreadCounters", unreadCounters);
+		ChatSequences chatSequences = new ChatSequences();
+		ReflectionTestUtils.setField(chatSequences, "chatRepository", chatRepository);
+		ReflectionTestUtils.setField(service, "chatSequences", chatSequences);
+		ReflectionTestUtils.setField(service, "chatNotifier", notifier);
+		chatPresence = new ChatPresence();
+		ReflectionTestUtils.setField(chatPresence, "clusterBus",
+				new StaticListableBeanFactory().getBeanProvider(ChatClusterBus.class));
+		ReflectionTestUtils.setField(service, "chatPresence", chatPresence);
+		searchIndex = mock(MessageSearchIndex.class);
+		ReflectionTestUtils.setField(service, "searchIndex", searchIndex);
+		searchTermRepository = mock(IMessageSearchTermRepository.class);
+		ReflectionTestUtils.setField(service, "searchTermRepository", searchTermRepository);
+		transactionManager = mock(PlatformTransactionManager.class);
+		ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+
+		Chat chat = new Chat(user(1, "owner@mail.com"), user(2, "interested@mail.com"), null);
+		chat.setId(10);
+		when(chatRepository.findWithParticipantsByIdAndIsActiveTrue(10L)).thenReturn(Optional.of(chat));
+		when(chatRepository.findMessageSeq(10L)).thenReturn(1L);
+		when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
+			Message message = invocation.getArgument(0);
+			message.setId(100);
+			return message;
+		});
+	}
+
+	@Test
+	void savesMessageAndPushesItToBothParticipants() {
+		when(unreadCounterRepository.increment(10L, 1L, 1L)).thenReturn(1);
+
+		ChatMessageDTO message = service.sendMessage("interested@mail.com", new ChatMessageSendDTO(10, "Hola"));
+
+		assertEquals(100, message.id());
+		assertEquals(1, message.seq());
+		assertEquals("interested@mail.com", message.senderEmail());
+		verify(chatRepository).takeMessageSeq(10L, 1);
+		verify(messagingTemplate).convertAndSendToUser("owner@mail.com", ChatNotifier.MESSAGES_QUEUE, message);
+		verify(messagingTemplate).convertAndSendToUser("interested@mail.com", ChatNotifier.MESSAGES_QUEUE, message);
+		verify(unreadCounterRepository).increment(10L, 1L, 1L);
+		verify(chatRepository).updateLastMessage(eq(10L), eq(1L), eq(2L), eq("Hola"), any(LocalDateTime.class));
+		verify(searchIndex).add(List.of(new MessageSearchIndex.Document(100, 10, List.of(2L, 1L), "Hola")));
+	}
+
+	@Test
+	void queuesMessageOutsideAnyTransaction() {
+		MessageWriteBehind writeBehind = mock(MessageWriteBehind.class);
+		ReflectionTestUtils.setField(service, "writeBehind", writeBehind);
+
+		ChatMessageDTO message = service.sendMessage("interested@mail.com", new ChatMessageSendDTO(10, "Hola"));
+
+		assertEquals(0, message.id());
+		assertEquals(0, message.seq());
+		verify(writeBehind).enqueue(any(QueuedMessage.class));
+		verify(chatRepository, never()).takeMessageSeq(anyLong(), anyLong());
+		verify(transactionManager, never()).getTransaction(any());
+		verify(messageRepository, never()).save(any(Message.class));
+	}
+
+	@Test
+	void searchesIndexOfAuthenticatedUserAndReadsOnlyFoundMessages() {
+		authenticate(user(1, "owner@mail.com"));
+		List<MessageSearchResultDTO> found = List.of(
+				new MessageSearchResultDTO(300, 10, 7, 2, "La casa tiene patio", LocalDateTime.of(2025, 5, 1, 12, 0)),
+				new MessageSearchResultDTO(120, 11, 2, 1, "¿Tiene PATIO la casa?", LocalDateTime.of(2025, 4, 1, 12, 0)));
+		when(searchTermRepository.search(1L, List.of("patio", "casa"), 2L, 500L, null, Limit.of(2)))
+				.thenReturn(List.of(300L, 120L));
+		when(messageRepository.findSearchResults(List.of(300L, 120L))).thenReturn(found);
+
+		MessageSearchPageDTO page = service.searchMessages("Patio, casa, CASA", null, "500", 2);
+
+		assertEquals(found, page.messages());
+		assertEquals("120", page.nextCursor());
+		verify(messageRepository, never()).findLatest(anyLong(), any(Limit.class));
+	}
+
+	@Test
+	void rejectsSearchWithoutWords() {
+		authenticate(user(1, "owner@mail.com"));
+
+		assertThrows(MissingData.class, () -> service.searchMessages(" ¿? ", null, null, 30));
+		assertThrows(MissingData.class, () -> service.searchMessages("casa", 10L, "abc", 30));
+		verify(searchTermRepository, never()).search(anyLong(), any(), anyLong(), anyLong(), any(), any(Limit.class));
+	}
+
+	@Test
+	void createsMissingCounterFromUnreadMessages() {
+		when(messageRepository.countUnread(10L, 2L)).thenReturn(4L);
+
+		service.sendMessage("owner@mail.com", new ChatMessageSendDTO(10, "Hola"));
+
+		verify(chatRepository).lockById(10L);
+		verify(unreadCounterRepository).save(any(ChatUnreadCounter.class));
+		verify(messageRepository).countUnread(10L, 2L);
+	}
+
+	@Test
+	void marksReadUpToMessageAndDecrementsCounter() {
+		authenticate(user(1, "owner@mail.com"));
+		LocalDateTime date = LocalDateTime.of(2025, 5, 1, 12, 0);
+		when(chatRepository.isActiveParticipant(10L, 1L)).thenReturn(true);
+		when(messageRepository.findDateTimeByIdAndChatId(100L, 10L)).thenReturn(Optional.of(date));
+		when(messageRepository.markReadUpTo(10L, 1L, date, 100L)).thenReturn(3);
+		when(unreadCounterRepository.decrement(10L, 1L, 3L)).thenReturn(1);
+		when(unreadCounterRepository.findById(new ChatParticipantId(1, 10)))
+				.thenReturn(Optional.of(new ChatUnreadCounter(new ChatParticipantId(1, 10), 2)));
+
+		UnreadCountDTO unread = service.markRead(10, 100);
+
+		assertEquals(10, unread.chatId());
+		assertEquals(2, unread.unread());
+		verify(messagingTemplate).convertAndSendToUser("interested@mail.com", ChatNotifier.READ_QUEUE,
+				new ChatReadReceiptDTO(10, 1, 100), Map.of(OutboundSessionQueues.COALESCE_HEADER, "read-10-1"));
+	}
+
+	@Test
+	void tellsOtherParticipantWhoIsTyping() {
+		service.typing("interested@mail.com", 10);
+
+		verify(messagingTemplate).convertAndSendToUser("owner@mail.com", ChatNotifier.TYPING_QUEUE,
+				new ChatTypingDTO(10, 2), Map.of(OutboundSessionQueues.COALESCE_HEADER, "typing-10-2"));
+		assertThrows(NotPermited.class, () -> service.typing("other@mail.com", 10));
+	}
+
+	@Test
+	void rejectsMarkingMessagesOfOtherChats() {
+		authenticate(user(1, "owner@mail.com"));
+		when(chatRepository.isActiveParticipant(10L, 1L)).thenReturn(true);
+		when(messageRepository.findDateTimeByIdAndChatId(100L, 10L)).thenReturn(Optional.empty());
+
+		assertThrows(EntityNotFoundException.class, () -> service.markRead(10, 100));
+		verify(messageRepository, never()).markReadUpTo(anyLong(), anyLong(), any(), anyLong());
+	}
+
+	@Test
+	void rejectsMessagesFromOutsiders() {
+		assertThrows(NotPermited.class,
+				() -> service.sendMessage("other@mail.com", new ChatMessageSendDTO(10, "Hola")));
+
+		verify(messageRepository, never()).save(any());
+		verify(messagingTemplate, never()).convertAndSendToUser(anyString(), eq(ChatNotifier.MESSAGES_QUEUE), any());
+	}
+
+	@Test
+	void pagesHistoryWithCursorOfLastMessage() {
+		authenticate(user(2, "interested@mail.com"));
+		when(chatRepository.isActiveParticipant(10L, 2L)).thenReturn(true);
+		LocalDateTime date = LocalDateTime.of(2025, 5, 1, 12, 0, 0, 123_000_000);
+		when(messageRepository.findLatest(10L, Limit.of(2))).thenReturn(List.of(
+				new MessageDTO(9, 3, 1, "b", date.plusMinutes(1), false),
+				new MessageDTO(8, 2, 2, "a", date, true)));
+		when(messageRepository.findBefore(10L, date, 8L, Limit.of(2))).thenReturn(List.of(
+				new MessageDTO(7, 1, 1, "z", date, true)));
+
+		MessagePageDTO first = service.getMessages(10, null, 2);
+		MessagePageDTO second = service.getMessages(10, first.nextCursor(), 2);
+
+		assertEquals(2, first.messages().size());
+		assertEquals(7, second.messages().get(0).id());
+		assertNull(second.nextCursor());
+	}
+
+	@Test
+	void numbersMessagesWithCounterOfChat() {
+		when(chatRepository.findMessageSeq(10L)).thenReturn(42L, 43L);
+
+		ChatMessageDTO first = service.sendMessage("owner@mail.com", new ChatMessageSendDTO(10, "Hola"));
+		ChatMessageDTO second = service.sendMessage("interested@mail.com", new ChatMessageSendDTO(10, "Hola"));
+
+		assertEquals(42, first.seq());
+		assertEquals(43, second.seq());
+		verify(chatRepository, times(2)).takeMessageSeq(10L, 1);
+	}
+
+	@Test
+	void resumesAfterLastSequenceOfClient() {
+		authenticate(user(2, "interested@mail.com"));
+		when(chatRepository.isActiveParticipant(10L, 2L)).thenReturn(true);
+		List<MessageDTO> missed = List.of(new MessageDTO(9, 6, 1, "b", LocalDateTime.of(2025, 5, 1, 12, 0), false));
+		when(messageRepository.findAfter(10L, 5L, Limit.of(ChatService.MAX_PAGE_SIZE))).thenReturn(missed);
+
+		assertEquals(missed, service.getMessagesAfter(10, 5, 1000));
+	}
+
+	@Test
+	void listsInboxOfAuthenticatedUserWithPresenceFromMemory() {
+		authenticate(user(2, "interested@mail.com"));
+		LocalDateTime stored = LocalDateTime.of(2025, 4, 30, 9, 0);
+		ChatInboxDTO online = new ChatInboxDTO(10, 5, 1, "Owner", false, stored, 3, 1L, "Hola",
+				LocalDateTime.of(2025, 5, 1, 12, 0), 2);
+		ChatInboxDTO offline = new ChatInboxDTO(11, 6, 3, "Other", false, stored, 0, null, null, null, 0);
+		when(chatRepository.findInbox(2L, ChatService.MAX_PAGE_SIZE)).thenReturn(List.of(online, offline));
+		chatPresence.connected(1, "session-1");
+
+		List<ChatInboxDTO> inbox = service.getInbox(1000);
+
+		assertTrue(inbox.get(0).counterpartOnline());
+		assertTrue(inbox.get(0).counterpartLastSeen().isAfter(stored));
+		assertEquals(offline, inbox.get(1));
+	}
+
+	@Test
+	void cutsLongMessagesInLastMessagePreview() {
+		assertEquals("Hola", Chat.preview("Hola"));
+		assertEquals(Chat.PREVIEW_LENGTH, Chat.preview("a".repeat(500)).length());
+		assertEquals(Chat.PREVIEW_LENGTH - 1, Chat.preview("a".repeat(Chat.PREVIEW_LENGTH - 1) + "😀").length());
+	}
+
+	@Test
+	void hidesHistoryFromOutsidersAndRejectsForgedCursors() {
+		authenticate(user(3, "other@mail.com"));
+		assertThrows(EntityNotFoundException.class, () -> service.getMessages(10, null, 20));
+
+		when(chatRepository.isActiveParticipant(10L, 3L)).thenReturn(true);
+		assertThrows(MissingData.class, () -> service.getMessages(10, "not-a-cursor", 20));
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private static void authenticate(User user) {
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+	}
+
+	private static User user(long id, String email) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		return user;
+	}
+
+}
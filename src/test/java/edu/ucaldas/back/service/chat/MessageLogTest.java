@@ -0,0 +1,89 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MessageLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsRecordsAfterPositionAcrossSegments() throws IOException {
+		try (MessageLog log = new MessageLog(directory, 64)) {
+			for (int i = 1; i <= 10; i++) {
+				assertEquals(i, log.append(("message " + i).getBytes(StandardCharsets.UTF_8)));
+			}
+			log.sync(10);
+
+			List<MessageLog.Entry> entries = log.readAfter(7);
+
+			assertEquals(3, entries.size());
+			assertEquals(8, entries.get(0).position());
+			assertEquals("message 10", new String(entries.get(2).payload(), StandardCharsets.UTF_8));
+		}
+		assertTrue(segments() > 1);
+	}
+
+	@Test
+	void ignoresTornRecordAndContinuesNumberingAfterRestart() throws IOException {
+		String id;
+		try (MessageLog log = new MessageLog(directory, 1024)) {
+			id = log.id();
+			log.append(new byte[] { 1 });
+			log.append(new byte[] { 2 });
+		}
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().get();
+		}
+		Files.write(segment, new byte[] { 0, 0, 0, 9, 0, 0 }, StandardOpenOption.APPEND);
+
+		try (MessageLog log = new MessageLog(directory, 1024)) {
+			assertEquals(id, log.id());
+			assertEquals(3, log.append(new byte[] { 3 }));
+			log.sync(3);
+
+			List<MessageLog.Entry> entries = log.readAfter(0);
+
+			assertEquals(List.of(1L, 2L, 3L), entries.stream().map(MessageLog.Entry::position).toList());
+		}
+	}
+
+	@Test
+	void deletesOnlyCompletedSegmentsOfStoredRecords() throws IOException {
+		try (MessageLog log = new MessageLog(directory, 1)) {
+			for (int i = 0; i < 4; i++) {
+				log.append(new QueuedMessage(1, i + 1, 2, "a@mail.com", 3, "b@mail.com", "Hola " + i,
+						LocalDateTime.of(2025, 5, 1, 12, 0)).encode());
+			}
+			assertEquals(4, segments());
+
+			log.truncate(2);
+
+			assertEquals(2, segments());
+			List<MessageLog.Entry> entries = log.readAfter(0);
+			assertEquals(3, entries.get(0).position());
+			assertEquals("Hola 3", QueuedMessage.decode(entries.get(1).payload()).content());
+		}
+	}
+
+	private long segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+import edu.ucaldas.back.DTO.MessageDTO;
+import edu.ucaldas.back.DTO.MessageSearchPageDTO;
+import edu.ucaldas.back.DTO.MessageSearchResultDTO;
+import edu.ucaldas.back.models.chat.Chat;
+import edu.ucaldas.back.models.chat.Message;
+import edu.ucaldas.back.models.user.User;
+import edu.ucaldas.back.repository.IMessageRepository;
+
+@DataJpaTest
+@Import({ ChatService.class, MessageBatchWriter.class, MessageSearchIndex.class, MessageSearchBackfill.class,
+		UnreadCounters.class, ChatSequences.class, ChatNotifier.class })
+class MessageSearchIndexDataTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private IMessageRepository messageRepository;
+
+	@Autowired
+	private ChatService chatService;
+
+	@Autowired
+	private MessageBatchWriter batchWriter;
+
+	@Autowired
+	private MessageSearchBackfill backfill;
+
+	@MockitoBean
+	private SimpMessagingTemplate messagingTemplate;
+
+	@MockitoBean
+	private ChatPresence chatPresence;
+
+	private User owner;
+	private User interested;
+	private User other;
+	private User stranger;
+	private Chat chat;
+	private Chat otherChat;
+
+	@BeforeEach
+	void setUp() {
+		owner = user("owner@mail.com");
+		interested = user("interested@mail.com");
+		other = user("other@mail.com");
+		stranger = user("stranger@mail.com");
+		chat = entityManager.persist(new Chat(owner, interested, null));
+		otherChat = entityManager.persist(new Chat(owner, other, null));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void findsMessagesIndexedByEveryIngestionPathOnlyForParticipants() {
+		long old = oldMessage(chat, interested, "Patio y casa de antes");
+		long sent = chatService.sendMessage("interested@mail.com",
+				new ChatMessageSendDTO(chat.getId(), "¿La CASA tiene pátio?")).id();
+		batchWriter.write("log", 1, List.of(
+				queued(otherChat, other, owner, "Casa con patio grande"),
+				queued(otherChat, other, owner, "Solo patio")));
+		long[] batch = messageRepository.findLatest(otherChat.getId(), Limit.of(2)).stream()
+				.mapToLong(MessageDTO::id).toArray();
+		entityManager.flush();
+
+		backfill.run();
+
+		assertEquals(List.of(batch[1], sent, old), ids(search(owner, "patio casa", null, null, 10)));
+		assertEquals(List.of(sent, old), ids(search(owner, "patio casa", chat.getId(), null, 10)));
+		assertEquals(List.of(sent, old), ids(search(interested, "Patio", null, null, 10)));
+		assertEquals(List.of(batch[0], batch[1]), ids(search(other, "patio", null, null, 10)));
+		assertEquals(List.of(), ids(search(stranger, "patio", null, null, 10)));
+		assertEquals(List.of(), ids(search(owner, "patio jardin", null, null, 10)));
+	}
+
+	@Test
+	void pagesResultsNewestFirst() {
+		long first = chatService.sendMessage("interested@mail.com", new ChatMessageSendDTO(chat.getId(), "casa uno")).id();
+		long second = chatService.sendMessage("owner@mail.com", new ChatMessageSendDTO(chat.getId(), "casa dos")).id();
+		long third = chatService.sendMessage("interested@mail.com", new ChatMessageSendDTO(chat.getId(), "casa tres")).id();
+
+		MessageSearchPageDTO page = search(owner, "casa", null, null, 2);
+		MessageSearchPageDTO next = search(owner, "casa", null, page.nextCursor(), 2);
+
+		assertEquals(List.of(third, second), ids(page));
+		assertEquals(List.of(first), ids(next));
+		assertNull(next.nextCursor());
+		assertEquals("casa dos", page.messages().get(1).content());
+	}
+
+	private MessageSearchPageDTO search(User user, String query, Long chatId, String before, int limit) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(user, null, List.of()));
+		return chatService.searchMessages(query, chatId, before, limit);
+	}
+
+	private static List<Long> ids(MessageSearchPageDTO page) {
+		return page.messages().stream().map(MessageSearchResultDTO::id).toList();
+	}
+
+	/**
+	 * A message stored before the search index existed: saved without indexing it.
+	 */
+	private long oldMessage(Chat chat, User sender, String content) {
+		Message message = new Message();
+		message.setChat(chat);
+		message.setSender(sender);
+		message.setContent(content);
+		message.setDateTime(LocalDateTime.now().minusDays(30));
+		message.setActive(true);
+		return messageRepository.save(message).getId();
+	}
+
+	private static QueuedMessage queued(Chat chat, User sender, User recipient, String content) {
+		return new QueuedMessage(chat.getId(), 0, sender.getId(), sender.getEmail(), recipient.getId(),
+				recipient.getEmail(), content, LocalDateTime.now());
+	}
+
+	private User user(String email) {
+		User user = new User();
+		user.setName(email);
+		user.setEmail(email);
+		user.setActive(true);
+		return entityManager.persist(user);
+	}
+
+}
@@ -0,0 +1,58 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MessageSearchIndexTest {
+
+	@Test
+	void normalizesWordsIgnoringCaseAccentsAndPunctuation() {
+		assertEquals(List.of("hola", "la", "cancion", "del", "ano", "esta", "lista", "2025"),
+				List.copyOf(MessageSearchIndex.terms("¡Hola! La CANCIÓN del año... ¿está lista? 2025, a y")));
+		assertEquals(Set.of(), MessageSearchIndex.terms(null));
+		assertEquals(Set.of("a".repeat(MessageSearchIndex.MAX_TERM_LENGTH)), MessageSearchIndex.terms("A".repeat(40)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void writesOneEntryPerWordAndReaderInOneBatch() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		MessageSearchIndex index = new MessageSearchIndex();
+		ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+
+		index.add(List.of(
+				new MessageSearchIndex.Document(100, 10, List.of(2L, 1L), "Casa casa, patio"),
+				new MessageSearchIndex.Document(101, 10, List.of(1L, 2L), "?")));
+
+		ArgumentCaptor<List<Object[]>> entries = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), entries.capture());
+		assertEquals(4, entries.getValue().size());
+		assertArrayEquals(new Object[] { 2L, "casa", 100L, 10L }, entries.getValue().get(0));
+		assertArrayEquals(new Object[] { 1L, "patio", 100L, 10L }, entries.getValue().get(3));
+	}
+
+	@Test
+	void writesNothingForMessagesWithoutWords() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		MessageSearchIndex index = new MessageSearchIndex();
+		ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+
+		index.add(List.of(new MessageSearchIndex.Document(100, 10, List.of(2L, 1L), "¡!")));
+
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+	}
+
+}
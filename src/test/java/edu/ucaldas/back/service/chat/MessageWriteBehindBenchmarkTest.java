@@ -0,0 +1,129 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucaldas.back.DTO.ChatMessageSendDTO;
+
+/**
+ * Messages per second stored by {@link ChatService#sendMessage}, one transaction per message versus the
+ * write-behind queue. Run with {@code -Dchat.benchmark=true} against the database to measure.
+ */
+@EnabledIfSystemProperty(named = "chat.benchmark", matches = "true")
+@SpringBootTest(properties = {
+		"app.chat.write-behind.enabled=true",
+		"app.chat.write-behind.directory=target/chat-log-benchmark",
+		"app.chat.write-behind.capacity=100000" })
+class MessageWriteBehindBenchmarkTest {
+
+	private static final int SENDERS = 16;
+	private static final int MESSAGES_PER_SENDER = 1000;
+	private static final int CHATS = 64;
+
+	@Autowired
+	private ChatService chatService;
+
+	@Autowired
+	private MessageWriteBehind writeBehind;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void measuresMessagesPerSecond() throws Exception {
+		List<Long> chats = createChats();
+		ChatService target = AopTestUtils.getTargetObject(chatService);
+
+		ReflectionTestUtils.setField(target, "writeBehind", null);
+		send(chats);
+		long before = count();
+		long start = System.nanoTime();
+		send(chats);
+		report("Transaction per message", start, start, count() - before);
+
+		ReflectionTestUtils.setField(target, "writeBehind", writeBehind);
+		before = count();
+		send(chats);
+		waitStored(before + (long) SENDERS * MESSAGES_PER_SENDER);
+		before = count();
+		start = System.nanoTime();
+		send(chats);
+		long accepted = System.nanoTime();
+		waitStored(before + (long) SENDERS * MESSAGES_PER_SENDER);
+		report("Write-behind", start, accepted, count() - before);
+	}
+
+	private void send(List<Long> chats) throws Exception {
+		ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int s = 0; s < SENDERS; s++) {
+				int sender = s;
+				results.add(senders.submit(() -> {
+					for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+						int chat = (sender * MESSAGES_PER_SENDER + i) % CHATS;
+						chatService.sendMessage("interested" + chat + "@bench.com",
+								new ChatMessageSendDTO(chats.get(chat), "Mensaje " + i));
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			senders.shutdown();
+		}
+	}
+
+	private List<Long> createChats() {
+		List<Long> chats = new ArrayList<>();
+		for (int i = 0; i < CHATS; i++) {
+			long owner = insertUser("owner" + i + "@bench.com");
+			long interested = insertUser("interested" + i + "@bench.com");
+			jdbcTemplate.update("INSERT INTO houses (user_id, stars, is_available, is_active) VALUES (?, 0, true, true)",
+					owner);
+			long house = jdbcTemplate.queryForObject("SELECT MAX(id) FROM houses", Long.class);
+			jdbcTemplate.update("INSERT INTO chats (owner_id, interested_id, house_id, date_time, is_active) "
+					+ "VALUES (?, ?, ?, CURRENT_TIMESTAMP, true)", owner, interested, house);
+			chats.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM chats", Long.class));
+		}
+		return chats;
+	}
+
+	private long insertUser(String email) {
+		jdbcTemplate.update("INSERT INTO users (name, email, password, type_user, stars, is_active) "
+				+ "VALUES ('Bench', ?, 'x', 'CLIENT', 0, true)", email);
+		return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	private void waitStored(long expected) throws InterruptedException {
+		while (count() < expected) {
+			Thread.sleep(5);
+		}
+		assertEquals(expected, count());
+	}
+
+	private long count() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages", Long.class);
+	}
+
+	private static void report(String mode, long start, long accepted, long stored) {
+		long end = System.nanoTime();
+		System.out.printf("%s: %d messages, accepted at %.0f msg/s, stored at %.0f msg/s%n", mode, stored,
+				stored * 1e9 / (accepted == start ? end - start : accepted - start), stored * 1e9 / (end - start));
+	}
+
+}
@@ -0,0 +1,91 @@
+package edu.ucaldas.back.service.chat;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import edu.ucaldas.back.models.chat.MessageLogCheckpoint;
+import edu.ucaldas.back.repository.IMessageLogCheckpointRepository;
+
+class MessageWriteBehindTest {
+
+	@TempDir
+	Path directory;
+
+	private MessageBatchWriter batchWriter;
+	private IMessageLogCheckpointRepository checkpointRepository;
+	private MessageWriteBehind writeBehind;
+
+	@BeforeEach
+	void setUp() {
+		batchWriter = mock(MessageBatchWriter.class);
+		checkpointRepository = mock(IMessageLogCheckpointRepository.class);
+		writeBehind = new MessageWriteBehind();
+		ReflectionTestUtils.setField(writeBehind, "batchWriter", batchWriter);
+		ReflectionTestUtils.setField(writeBehind, "checkpointRepository", checkpointRepository);
+		ReflectionTestUtils.setField(writeBehind, "directory", directory);
+		ReflectionTestUtils.setField(writeBehind, "segmentSize", DataSize.ofMegabytes(1));
+		ReflectionTestUtils.setField(writeBehind, "capacity", 100);
+		ReflectionTestUtils.setField(writeBehind, "batchSize", 10);
+		ReflectionTestUtils.setField(writeBehind, "flushInterval", Duration.ofMillis(200));
+		ReflectionTestUtils.setField(writeBehind, "retryDelay", Duration.ofMillis(10));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		writeBehind.stop();
+	}
+
+	@Test
+	void storesAcceptedMessagesInOneBatch() throws Exception {
+		writeBehind.start();
+
+		writeBehind.enqueue(message("uno"));
+		writeBehind.enqueue(message("dos"));
+		writeBehind.enqueue(message("tres"));
+
+		verify(batchWriter, timeout(2000)).write(anyString(), eq(3L),
+				eq(List.of(message("uno"), message("dos"), message("tres"))));
+	}
+
+	@Test
+	void storesMessagesLeftAfterCheckpointOnStart() throws Exception {
+		String logId;
+		try (MessageLog log = new MessageLog(directory, DataSize.ofMegabytes(1).toBytes())) {
+			logId = log.id();
+			log.append(message("guardado").encode());
+			log.append(message("pendiente").encode());
+			log.sync(2);
+		}
+		when(checkpointRepository.findById(logId)).thenReturn(Optional.of(new MessageLogCheckpoint(logId, 1)));
+
+		writeBehind.start();
+
+		verify(batchWriter).write(logId, 2, List.of(message("pendiente")));
+		verify(batchWriter, never()).write(anyString(), anyLong(), eq(List.of(message("guardado"))));
+	}
+
+	private static QueuedMessage message(String content) {
+		return new QueuedMessage(10, content.length(), 1, "owner@mail.com", 2, "interested@mail.com", content,
+				LocalDateTime.of(2025, 5, 1, 12, 0));
+	}
+
+}
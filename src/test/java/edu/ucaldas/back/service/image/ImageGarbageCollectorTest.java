@@ -0,0 +1,163 @@
+package edu.ucaldas.back.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucaldas.back.infra.storage.BlobListing;
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+import edu.ucaldas.back.repository.IHouseImageRepository;
+import edu.ucaldas.back.repository.IImageMessageRepository;
+import edu.ucaldas.back.service.image.ImageGarbageCollector.GcReport;
+
+class ImageGarbageCollectorTest {
+
+	private static final String LIVE = "a".repeat(64);
+	private static final String ORPHAN = "b".repeat(64);
+	private static final String RECENT = "c".repeat(64);
+
+	@TempDir
+	Path directory;
+
+	private FileSystemBlobStore blobStore;
+	private IHouseImageRepository houseImageRepository;
+	private IImageMessageRepository imageMessageRepository;
+	private ImageGarbageCollector collector;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		blobStore = new FileSystemBlobStore(directory);
+		houseImageRepository = mock(IHouseImageRepository.class);
+		imageMessageRepository = mock(IImageMessageRepository.class);
+		collector = new ImageGarbageCollector();
+		ReflectionTestUtils.setField(collector, "blobStore", blobStore);
+		ReflectionTestUtils.setField(collector, "houseImageRepository", houseImageRepository);
+		ReflectionTestUtils.setField(collector, "imageMessageRepository", imageMessageRepository);
+		ReflectionTestUtils.setField(collector, "gracePeriod", Duration.ofHours(1));
+		ReflectionTestUtils.setField(collector, "maxDeletesPerSecond", 1000);
+
+		store(LIVE + ".jpg", true);
+		store(LIVE + "-thumb.webp", true);
+		store(ORPHAN + ".png", true);
+		store(ORPHAN + "-card.webp", true);
+		store(RECENT + ".jpg", false);
+		store("legacy-live.jpg", true);
+		store("legacy-orphan.jpg", true);
+		store("chat-photo.jpg", true);
+
+		when(houseImageRepository.findLiveContentHashes(any())).thenReturn(List.of(LIVE));
+		when(houseImageRepository.findLiveFileNames(any()))
+				.thenReturn(List.<Object[]>of(new Object[] { "legacy-live.jpg", null, null, null }));
+		when(imageMessageRepository.findLiveImageUrls(any())).thenReturn(List.of("chat-photo.jpg"));
+	}
+
+	@Test
+	void deletesOnlyOldUnreferencedFiles() throws IOException {
+		GcReport report = collector.collectChunk(null, 100, false);
+
+		assertEquals(8, report.scanned());
+		assertEquals(4, report.live());
+		assertEquals(1, report.recent());
+		assertEquals(3, report.garbage());
+		assertEquals(3, report.deleted());
+		assertNull(report.cursor());
+		assertTrue(exists(LIVE + ".jpg"));
+		assertTrue(exists(LIVE + "-thumb.webp"));
+		assertTrue(exists(RECENT + ".jpg"));
+		assertTrue(exists("legacy-live.jpg"));
+		assertTrue(exists("chat-photo.jpg"));
+		assertFalse(exists(ORPHAN + ".png"));
+		assertFalse(exists(ORPHAN + "-card.webp"));
+		assertFalse(exists("legacy-orphan.jpg"));
+	}
+
+	@Test
+	void dryRunOnlyReports() throws IOException {
+		GcReport report = collector.collectChunk(null, 100, true);
+
+		assertEquals(3, report.garbage());
+		assertEquals(0, report.deleted());
+		assertEquals(3 * 10, report.garbageBytes());
+		assertTrue(exists(ORPHAN + ".png"));
+		assertTrue(exists("legacy-orphan.jpg"));
+	}
+
+	@Test
+	void scansInChunks() throws IOException {
+		List<GcReport> chunks = new ArrayList<>();
+		String cursor = null;
+		do {
+			GcReport chunk = collector.collectChunk(cursor, 3, false);
+			chunks.add(chunk);
+			cursor = chunk.cursor();
+		} while (cursor != null);
+
+		GcReport pass = chunks.stream().reduce(GcReport.EMPTY, GcReport::plus);
+		assertEquals(3, chunks.size());
+		assertNotNull(chunks.get(0).cursor());
+		assertEquals(8, pass.scanned());
+		assertEquals(3, pass.deleted());
+		assertFalse(exists("legacy-orphan.jpg"));
+	}
+
+	@Test
+	void keepsFileTouchedByUploadAfterItWasListed() throws IOException {
+		FileSystemBlobStore touching = new FileSystemBlobStore(directory) {
+			@Override
+			public BlobListing list(String cursor, int limit) throws IOException {
+				BlobListing listing = super.list(cursor, limit);
+				touch(ORPHAN + ".png");
+				return listing;
+			}
+		};
+		ReflectionTestUtils.setField(collector, "blobStore", touching);
+
+		GcReport report = collector.collectChunk(null, 100, false);
+
+		assertEquals(3, report.garbage());
+		assertEquals(2, report.deleted());
+		assertTrue(exists(ORPHAN + ".png"));
+		assertFalse(exists(ORPHAN + "-card.webp"));
+		assertFalse(exists("legacy-orphan.jpg"));
+		assertEquals(List.of(), leftovers());
+	}
+
+	private List<Path> leftovers() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(path -> path.toString().endsWith(".gc.tmp")).toList();
+		}
+	}
+
+	private void store(String key, boolean old) throws IOException {
+		Path source = Files.write(directory.resolve(key + ".tmp"), new byte[10]);
+		blobStore.put(key, source);
+		if (old) {
+			Files.setLastModifiedTime(blobStore.resolve(key), FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+		}
+	}
+
+	private boolean exists(String key) throws IOException {
+		return blobStore.stat(key).isPresent();
+	}
+
+}
@@ -0,0 +1,42 @@
+package edu.ucaldas.back.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+
+class ImageReshardRunnerTest {
+
+	@TempDir
+	Path directory;
+
+	private ApplicationContextRunner contextRunner() {
+		return new ApplicationContextRunner()
+				.withBean(FileSystemBlobStore.class, () -> new FileSystemBlobStore(directory))
+				.withUserConfiguration(ImageReshardService.class, ImageReshardRunner.class);
+	}
+
+	@Test
+	void startsWithReshardEnabledOnTheFileSystemStore() {
+		contextRunner().withPropertyValues("app.images.reshard.enabled=true")
+				.run(context -> assertThat(context).hasSingleBean(ImageReshardRunner.class));
+	}
+
+	@Test
+	void staysOffWithReshardEnabledOnAnotherStore() {
+		contextRunner().withPropertyValues("app.images.reshard.enabled=true", "app.images.store=s3")
+				.run(context -> assertThat(context).hasNotFailed().doesNotHaveBean(ImageReshardRunner.class)
+						.doesNotHaveBean(ImageReshardService.class));
+	}
+
+	@Test
+	void staysOffUnlessEnabled() {
+		contextRunner().run(context -> assertThat(context).doesNotHaveBean(ImageReshardRunner.class));
+	}
+
+}
@@ -0,0 +1,128 @@
+package edu.ucaldas.back.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import edu.ucaldas.back.infra.exception.FileTooLarge;
+import edu.ucaldas.back.infra.exception.InvalidFile;
+import edu.ucaldas.back.infra.storage.FileSystemBlobStore;
+
+class ImageStorageTest {
+
+	private static final byte[] PNG_HEADER = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13 };
+
+	@TempDir
+	Path directory;
+
+	private FileSystemBlobStore blobStore;
+	private ImageStorage storage;
+
+	@BeforeEach
+	void setUp() {
+		blobStore = new FileSystemBlobStore(directory);
+		storage = new ImageStorage();
+		ReflectionTestUtils.setField(storage, "directory", directory);
+		ReflectionTestUtils.setField(storage, "blobStore", blobStore);
+		ReflectionTestUtils.setField(storage, "maxSize", DataSize.ofKilobytes(200));
+	}
+
+	@Test
+	void storesCompleteFileUnderDetectedExtension() throws IOException {
+		byte[] content = png(150 * 1024);
+
+		StoredImage image = storage.store(new ByteArrayInputStream(content));
+
+		assertEquals(ImageFormat.PNG, image.format());
+		assertEquals(content.length, image.size());
+		assertTrue(image.fileName().endsWith(".png"));
+		assertArrayEquals(content, Files.readAllBytes(blobStore.resolve(image.fileName())));
+		assertEquals(1, fileCount());
+	}
+
+	@Test
+	void namesFileAfterContentHashAndStoresDuplicatesOnce() throws Exception {
+		byte[] content = png(10 * 1024);
+
+		StoredImage first = storage.store(new ByteArrayInputStream(content));
+		StoredImage second = storage.store(new ByteArrayInputStream(content));
+
+		assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), first.contentHash());
+		assertEquals(first.contentHash() + ".png", first.fileName());
+		assertEquals(first.fileName(), second.fileName());
+		assertEquals(1, fileCount());
+	}
+
+	@Test
+	void storesFilesInShardedDirectories() throws IOException {
+		StoredImage image = storage.store(new ByteArrayInputStream(png(1024)));
+
+		Path expected = directory.resolve(image.contentHash().substring(0, 2))
+				.resolve(image.contentHash().substring(2, 4)).resolve(image.fileName());
+		assertTrue(Files.exists(expected));
+		assertEquals(expected, blobStore.resolve(image.fileName()));
+	}
+
+	@Test
+	void reshardMovesFlatFilesAndKeepsThemResolvable() throws IOException {
+		byte[] legacy = png(2048);
+		Files.write(directory.resolve("1b4e28ba-photo.png"), legacy);
+		Files.write(directory.resolve("upload-123.tmp"), legacy);
+		assertEquals(directory.resolve("1b4e28ba-photo.png"), blobStore.resolve("1b4e28ba-photo.png"));
+
+		ImageReshardService reshard = new ImageReshardService();
+		ReflectionTestUtils.setField(reshard, "blobStore", blobStore);
+		ImageReshardService.ReshardReport report = reshard.reshard(2);
+
+		assertEquals(new ImageReshardService.ReshardReport(1, 0, 0), report);
+		Path moved = blobStore.resolve("1b4e28ba-photo.png");
+		assertEquals(blobStore.shardedPath("1b4e28ba-photo.png"), moved);
+		assertArrayEquals(legacy, Files.readAllBytes(moved));
+		assertTrue(Files.exists(directory.resolve("upload-123.tmp")));
+	}
+
+	@Test
+	void rejectsContentThatIsNotAnImage() throws IOException {
+		byte[] content = "<html><body>not an image</body></html>".getBytes();
+
+		assertThrows(InvalidFile.class, () -> storage.store(new ByteArrayInputStream(content)));
+		assertEquals(0, fileCount());
+	}
+
+	@Test
+	void rejectsFileOverLimitWithoutLeavingFiles() throws IOException {
+		byte[] content = png(201 * 1024);
+
+		assertThrows(FileTooLarge.class, () -> storage.store(new ByteArrayInputStream(content)));
+		assertEquals(0, fileCount());
+	}
+
+	private static byte[] png(int size) {
+		byte[] content = Arrays.copyOf(PNG_HEADER, size);
+		Arrays.fill(content, PNG_HEADER.length, size, (byte) 7);
+		return content;
+	}
+
+	private long fileCount() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile).count();
+		}
+	}
+
+}